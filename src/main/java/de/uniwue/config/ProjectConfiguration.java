@@ -126,6 +126,21 @@ public final class ProjectConfiguration {
      */
     public String PROJECT_DIR = "";
 
+    /**
+     * Absolute path to the persisted page state index of the project (is made absolute in Constructor)
+     */
+    public String PAGE_STATE_INDEX = ".page_state.json";
+
+    /**
+     * Absolute path to the image encoding profile of the project (is made absolute in Constructor)
+     */
+    public String ENCODING_PROFILE = ".image_encoding.json";
+
+    /**
+     * Absolute path to the manifest of the last GTC export of the project (is made absolute in Constructor)
+     */
+    public String GTC_MANIFEST = ".gtc_manifest.json";
+
     /**** Image related directories ****/
 
     /**
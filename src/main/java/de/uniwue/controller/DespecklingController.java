@@ -13,6 +13,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.ModelAndView;
 
+import de.uniwue.feature.JobScheduler;
 import de.uniwue.helper.DespecklingHelper;
 
 /**
@@ -70,30 +71,47 @@ public class DespecklingController {
      * @param session Session of the user
      * @param response Response to the request
      * @param inProcessFlow Indicates if the process is executed within the ProcessFlow
+     * @param threads Number of threads that despeckle pages at the same time (optional)
+     * @param async Indicates if the process is executed as a job (the request returns immediately)
+     * @return Identifier of the job if the process is executed asynchronously
      */
     @RequestMapping(value = "/ajax/despeckling/execute", method = RequestMethod.POST)
-    public @ResponseBody void execute(
+    public @ResponseBody String execute(
                 @RequestParam("pageIds[]") String[] pageIds,
                 @RequestParam("maxContourRemovalSize") double maxContourRemovalSize,
                 HttpSession session, HttpServletResponse response,
-                @RequestParam(value = "inProcessFlow", required = false, defaultValue = "false") boolean inProcessFlow
+                @RequestParam(value = "inProcessFlow", required = false, defaultValue = "false") boolean inProcessFlow,
+                @RequestParam(value = "threads", required = false) Integer threads,
+                @RequestParam(value = "async", required = false, defaultValue = "false") boolean async
             ) {
+        if (async)
+            return GenericController.submitJob(session, "despeckling",
+                jobResponse -> execute(pageIds, maxContourRemovalSize, session, jobResponse, inProcessFlow, threads, false));
+
         DespecklingHelper despecklingHelper = provideHelper(session, response);
         if (despecklingHelper == null)
-            return;
+            return null;
 
         int conflictType = despecklingHelper.getConflictType(GenericController.getProcessList(session), inProcessFlow);
         if (GenericController.hasProcessConflict(session, response, conflictType))
-            return;
+            return null;
 
         GenericController.addToProcessList(session, "despeckling");
+        if (threads != null)
+            despecklingHelper.setDespecklingThreads(threads);
+        JobScheduler.Admission admission = null;
         try {
+            admission = JobScheduler.admit("despeckling", 1, despecklingHelper.getDespecklingThreads(), session);
             despecklingHelper.execute(Arrays.asList(pageIds), maxContourRemovalSize);
         } catch (IOException e) {
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             e.printStackTrace();
+        } finally {
+            if (admission != null)
+                admission.close();
         }
         GenericController.removeFromProcessList(session, "despeckling");
+        return null;
     }
 
     /**
@@ -108,6 +126,7 @@ public class DespecklingController {
         if (despecklingHelper == null)
             return;
 
+        JobScheduler.cancelWaiting(session, "despeckling");
         despecklingHelper.cancelDespecklingProcess();
         // Directly remove despeckling from process list and
         // let it cancel in the background
@@ -15,7 +15,9 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.ModelAndView;
 
+import de.uniwue.feature.JobScheduler;
 import de.uniwue.helper.EvaluationHelper;
+import de.uniwue.model.ConsoleSegment;
 
 /**
  * Controller class for pages of evaluation module
@@ -71,16 +73,23 @@ public class EvaluationController {
      * @param cmdArgs[] Command line arguments for evaluation process
      * @param session Session of the user
      * @param response Response to the request
+     * @param async Indicates if the process is executed as a job (the request returns immediately)
+     * @return Identifier of the job if the process is executed asynchronously
      */
     @RequestMapping(value = "/ajax/evaluation/execute", method = RequestMethod.POST)
-    public @ResponseBody void execute(
+    public @ResponseBody String execute(
                @RequestParam("pageIds[]") String[] pageIds,
                @RequestParam(value = "cmdArgs[]", required = false) String[] cmdArgs,
-               HttpSession session, HttpServletResponse response
+               HttpSession session, HttpServletResponse response,
+               @RequestParam(value = "async", required = false, defaultValue = "false") boolean async
            ) {
+        if (async)
+            return GenericController.submitJob(session, "evaluation",
+                jobResponse -> execute(pageIds, cmdArgs, session, jobResponse, false));
+
         EvaluationHelper evaluationHelper = provideHelper(session, response);
         if (evaluationHelper == null)
-            return;
+            return null;
 
         List<String> cmdArgList = new ArrayList<String>();
         if (cmdArgs != null)
@@ -88,17 +97,23 @@ public class EvaluationController {
 
         int conflictType = evaluationHelper.getConflictType(GenericController.getProcessList(session));
         if (GenericController.hasProcessConflict(session, response, conflictType))
-            return;
+            return null;
 
         GenericController.addToProcessList(session, "evaluation");
+        JobScheduler.Admission admission = null;
         try {
+            admission = JobScheduler.admit("evaluation", session);
             evaluationHelper.execute(Arrays.asList(pageIds), cmdArgList);
         } catch (IOException e) {
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             evaluationHelper.resetProgress();
             e.printStackTrace();
+        } finally {
+            if (admission != null)
+                admission.close();
         }
         GenericController.removeFromProcessList(session, "evaluation");
+        return null;
     }
 
     /**
@@ -113,6 +128,7 @@ public class EvaluationController {
         if (evaluationHelper == null)
             return;
 
+        JobScheduler.cancelWaiting(session, "evaluation");
         evaluationHelper.cancelProcess();
     }
 
@@ -153,6 +169,31 @@ public class EvaluationController {
         return evaluationHelper.getProcessHandler().getConsoleOut();
     }
 
+    /**
+     * Response to the request to return the console lines of the evaluation process after a given offset
+     * Allows clients to fetch only the new lines instead of the whole console
+     *
+     * @param streamType Type of the console output (out | err)
+     * @param offset Sequence number of the first requested line (end of the previous segment)
+     * @param session Session of the user
+     * @param response Response to the request
+     * @return Console segment (null if session is invalid)
+     */
+    @RequestMapping(value = "/ajax/evaluation/consoleSince" , method = RequestMethod.GET)
+    public @ResponseBody ConsoleSegment consoleSince(
+                @RequestParam("streamType") String streamType,
+                @RequestParam(value = "offset", required = false, defaultValue = "0") long offset,
+                HttpSession session, HttpServletResponse response
+            ) {
+        EvaluationHelper evaluationHelper = provideHelper(session, response);
+        if (evaluationHelper == null)
+            return null;
+
+        if (streamType.equals("err"))
+            return evaluationHelper.getProcessHandler().getConsoleErr(offset);
+        return evaluationHelper.getProcessHandler().getConsoleOut(offset);
+    }
+
     /**
      * Response to the request to return all pageIds that can be used for evaluation
      *
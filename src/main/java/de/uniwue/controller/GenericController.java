@@ -3,6 +3,7 @@ package de.uniwue.controller;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
@@ -13,8 +14,11 @@ import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 
+import de.uniwue.feature.JobManager;
+import de.uniwue.feature.MatPool;
 import de.uniwue.feature.ProcessConflictDetector;
 import de.uniwue.helper.GenericHelper;
+import de.uniwue.model.MatPoolMetrics;
 
 /**
  * Controller class for all pages that provides general functionalities
@@ -22,6 +26,11 @@ import de.uniwue.helper.GenericHelper;
  */
 @Controller
  class GenericController {
+    /**
+     * Lock of the process lists (processes of the process flow can run at the same time)
+     */
+    private static final Object processListLock = new Object();
+
     /**
      * Check if mandatory session variables are set correctly
      *
@@ -48,13 +57,15 @@ import de.uniwue.helper.GenericHelper;
      */
     @SuppressWarnings("unchecked")
     public static void addToProcessList(HttpSession session, String process) {
-        List<String> processList = (List<String>) session.getAttribute("processList");
-        if (processList == null)
-            processList = new ArrayList<String>();
+        synchronized (processListLock) {
+            List<String> processList = (List<String>) session.getAttribute("processList");
+            if (processList == null)
+                processList = new ArrayList<String>();
 
-        if(!processList.contains(process)) 
-			processList.add(process);
-        session.setAttribute("processList", processList);
+            if(!processList.contains(process)) 
+                processList.add(process);
+            session.setAttribute("processList", processList);
+        }
     }
 
     /**
@@ -65,27 +76,32 @@ import de.uniwue.helper.GenericHelper;
      */
     @SuppressWarnings("unchecked")
     public static void removeFromProcessList(HttpSession session, String process) {
-        List<String> processList = (List<String>) session.getAttribute("processList");
-        if (processList == null)
-            return;
+        synchronized (processListLock) {
+            List<String> processList = (List<String>) session.getAttribute("processList");
+            if (processList == null)
+                return;
 
-        processList.remove(process);
-        session.setAttribute("processList", processList);
+            processList.remove(process);
+            session.setAttribute("processList", processList);
+        }
     }
 
     /**
      * Returns the current processList from the session
      * This list is maintained in every process controller and holds running processes
+     * Returns a copy, so that processes can be added and removed while the list is checked
      *
      * @param session Session of the user
      */
     @SuppressWarnings("unchecked")
     public static List<String> getProcessList(HttpSession session) {
-        List<String> processList = (List<String>) session.getAttribute("processList");
-        if (processList == null)
-            processList = new ArrayList<String>();
+        synchronized (processListLock) {
+            List<String> processList = (List<String>) session.getAttribute("processList");
+            if (processList == null)
+                return new ArrayList<String>();
 
-        return processList;
+            return new ArrayList<String>(processList);
+        }
     }
 
     /**
@@ -116,6 +132,19 @@ import de.uniwue.helper.GenericHelper;
         }
     }
 
+    /**
+     * Submits the execution of a process as a job
+     * The process is executed by the JobManager and reports its result through the status of the job
+     *
+     * @param session Session of the user
+     * @param process Name of the process (e.g. recognition)
+     * @param work Execution of the process with the response that records its status
+     * @return Identifier of the job
+     */
+    public static String submitJob(HttpSession session, String process, Consumer<HttpServletResponse> work) {
+        return JobManager.submit(process, session, work).getJobId();
+    }
+
     /**
      * Manages the helper object and stores it in the session
      *
@@ -214,4 +243,15 @@ import de.uniwue.helper.GenericHelper;
     public @ResponseBody int hostProcessors(HttpSession session) {
         return GenericHelper.getLogicalThreadCount();
     }
+
+    /**
+     * Response to the request to return the metrics of the pool for native image buffers
+     *
+     * @param session Session of the user
+     * @return Metrics of the pool (live native bytes, hit rate, ...)
+     */
+    @RequestMapping(value = "/ajax/generic/matPool" , method = RequestMethod.GET)
+    public @ResponseBody MatPoolMetrics matPoolMetrics(HttpSession session) {
+        return MatPool.getMetrics();
+    }
 }
@@ -1,19 +1,29 @@
 package de.uniwue.controller;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.WebRequest;
 
+import de.uniwue.feature.DespecklePreview;
 import de.uniwue.feature.ImageResize;
 import de.uniwue.helper.ImageHelper;
+import de.uniwue.model.DespeckleCurve;
 
 
 /**
@@ -22,6 +32,62 @@ import de.uniwue.helper.ImageHelper;
  */
 @Controller
 public class ImageController {
+    /**
+     * Image formats that can be requested from the binary image endpoints
+     */
+    private static final List<String> STREAM_FORMATS = Arrays.asList("png", "jpg", "webp");
+
+    /**
+     * Streams the bytes of an image file in the requested format
+     * Responses carry an ETag and a Last-Modified header, so that browsers can cache the images
+     * and revalidate them with conditional requests (answered with 304 without encoding the image)
+     *
+     * @param imageHelper Image helper with the resizing of the request
+     * @param imageFile File of the image
+     * @param format Requested image format (png, jpg or webp)
+     * @param width Width to resize the image to (null to keep the aspect ratio or the size)
+     * @param height Height to resize the image to (null to keep the aspect ratio or the size)
+     * @param response Response to the request
+     * @param webRequest Request to check the conditional headers of
+     * @return Image bytes with headers or null if the image was not modified
+     */
+    private ResponseEntity<byte[]> streamImage(ImageHelper imageHelper, File imageFile, String format,
+            Integer width, Integer height, HttpServletResponse response, WebRequest webRequest) {
+        if (!STREAM_FORMATS.contains(format))
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        if (!imageFile.isFile())
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+
+        // The image only changes with the file or the requested representation
+        long lastModified = imageFile.lastModified();
+        String eTag = "\"" + DigestUtils.md5DigestAsHex((imageFile.getAbsolutePath() + "|" + lastModified + "|"
+            + imageFile.length() + "|" + width + "|" + height + "|" + format).getBytes()) + "\"";
+        // Images of a page can change during processing, therefore they always need to be revalidated
+        response.setHeader("Cache-Control", "private, no-cache");
+        if (webRequest.checkNotModified(eTag, lastModified))
+            return null;
+
+        byte[] bytes;
+        try {
+            imageHelper.setImageResize(new ImageResize(width, height));
+            bytes = imageHelper.getImageBytes(imageFile, format);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        if (bytes == null)
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+
+        MediaType contentType = format.equals("png") ? MediaType.IMAGE_PNG
+            : format.equals("jpg") ? MediaType.IMAGE_JPEG : new MediaType("image", "webp");
+        return ResponseEntity.ok()
+            .contentType(contentType)
+            .contentLength(bytes.length)
+            .eTag(eTag)
+            .lastModified(lastModified)
+            .body(bytes);
+    }
+
     /**
      * Response to the request to return the specified page image as base64 string
      *
@@ -174,7 +240,11 @@ public class ImageController {
             Integer width  = request.getParameter("width")  == null ? null : Integer.parseInt(request.getParameter("width"));
             Integer height = request.getParameter("height") == null ? null : Integer.parseInt(request.getParameter("height"));
             imageHelper.setImageResize(new ImageResize(width, height));
-            base64Image = imageHelper.getPreviewDespeckleAsBase64(pageId, maxContourRemovalSize, illustrationType);
+            // The analyzed page is kept in the session, so that changed settings only need to apply the threshold
+            DespecklePreview preview = imageHelper.getDespecklePreview(pageId,
+                (DespecklePreview) session.getAttribute("despecklePreview"));
+            session.setAttribute("despecklePreview", preview);
+            base64Image = imageHelper.getPreviewDespeckleAsBase64(preview, maxContourRemovalSize, illustrationType);
         } catch (IOException e) {
             response.setStatus(HttpServletResponse.SC_NOT_FOUND);
             e.printStackTrace();
@@ -182,4 +252,139 @@ public class ImageController {
 
         return base64Image;
     }
+
+    /**
+     * Response to the request to return the number of removed contours for different despeckling settings
+     *
+     * @param pageId Identifier of the page (e.g 0002)
+     * @param maxSize Largest maximum contour size of the curve
+     * @param steps Number of sizes between 0 and the largest size (1 to 1000)
+     * @param session Session of the user
+     * @param response Response to the request
+     * @return Number of removed contours for every maximum contour size
+     */
+    @RequestMapping(value = "/ajax/image/preview/despeckled/curve", method = RequestMethod.GET)
+    public @ResponseBody DespeckleCurve getDespeckleCurve(
+                @RequestParam("pageId") String pageId,
+                @RequestParam(value = "maxSize", required = false) Double maxSize,
+                @RequestParam(value = "steps", required = false) Integer steps,
+                HttpSession session, HttpServletResponse response
+            ) {
+        String projectDir = (String) session.getAttribute("projectDir");
+        if (projectDir == null || projectDir.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            return null;
+        }
+
+        try {
+            ImageHelper imageHelper = new ImageHelper(projectDir);
+            DespecklePreview preview = imageHelper.getDespecklePreview(pageId,
+                (DespecklePreview) session.getAttribute("despecklePreview"));
+            session.setAttribute("despecklePreview", preview);
+            // Every step is a point of the curve, limit them to keep the response small
+            int curveSteps = Math.max(1, Math.min(1000, steps == null ? 50 : steps));
+            return preview.getRemovalCurve(maxSize == null ? 1000 : maxSize, curveSteps);
+        } catch (IOException e) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Response to the request to return the specified page image as binary data
+     *
+     * @param pageId Identifier of the page (e.g 0002)
+     * @param imageId Image identifier (Original, Gray or Despeckled)
+     * @param format Image format of the response (png, jpg or webp)
+     * @param width Width to resize the image to
+     * @param height Height to resize the image to
+     * @param session Session of the user
+     * @param response Response to the request
+     * @param webRequest Request
+     * @return Returns the required image with caching headers
+     */
+    @RequestMapping(value = "/ajax/image/page/raw", method = RequestMethod.GET)
+    public ResponseEntity<byte[]> getRawImageOfPage(
+                @RequestParam("pageId") String pageId,
+                @RequestParam("imageId") String imageId,
+                @RequestParam(value = "format", required = false, defaultValue = "png") String format,
+                @RequestParam(value = "width", required = false) Integer width,
+                @RequestParam(value = "height", required = false) Integer height,
+                HttpSession session, HttpServletResponse response, WebRequest webRequest
+            ) {
+        String projectDir = (String) session.getAttribute("projectDir");
+        if (projectDir == null || projectDir.isEmpty() || pageId.isEmpty() || imageId.isEmpty())
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+
+        ImageHelper imageHelper = new ImageHelper(projectDir);
+        return streamImage(imageHelper, imageHelper.getPageImageFile(pageId, imageId), format,
+            width, height, response, webRequest);
+    }
+
+    /**
+     * Response to the request to return the specified segment page image as binary data
+     *
+     * @param pageId Identifier of the page (e.g 0002)
+     * @param imageId Identifier of the segment (e.g 0002__000__paragraph)
+     * @param format Image format of the response (png, jpg or webp)
+     * @param width Width to resize the image to
+     * @param height Height to resize the image to
+     * @param session Session of the user
+     * @param response Response to the request
+     * @param webRequest Request
+     * @return Returns the required image with caching headers
+     */
+    @RequestMapping(value = "/ajax/image/segment/raw", method = RequestMethod.GET)
+    public ResponseEntity<byte[]> getRawImageOfSegment(
+                @RequestParam("pageId") String pageId,
+                @RequestParam("imageId") String imageId,
+                @RequestParam(value = "format", required = false, defaultValue = "png") String format,
+                @RequestParam(value = "width", required = false) Integer width,
+                @RequestParam(value = "height", required = false) Integer height,
+                HttpSession session, HttpServletResponse response, WebRequest webRequest
+            ) {
+        String projectDir = (String) session.getAttribute("projectDir");
+        if (projectDir == null || projectDir.isEmpty() || pageId.isEmpty() || imageId.isEmpty())
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+
+        ImageHelper imageHelper = new ImageHelper(projectDir);
+        return streamImage(imageHelper, imageHelper.getSegmentImageFile(pageId, imageId), format,
+            width, height, response, webRequest);
+    }
+
+    /**
+     * Response to the request to return the specified line image of a segment as binary data
+     *
+     * @param pageId Identifier of the page (e.g 0002)
+     * @param segmentId Identifier of the segment (e.g 0002__000__paragraph)
+     * @param imageId Identifier of the line (e.g 0002__000__paragraph__000)
+     * @param format Image format of the response (png, jpg or webp)
+     * @param width Width to resize the image to
+     * @param height Height to resize the image to
+     * @param session Session of the user
+     * @param response Response to the request
+     * @param webRequest Request
+     * @return Returns the required image with caching headers
+     */
+    @RequestMapping(value = "/ajax/image/line/raw", method = RequestMethod.GET)
+    public ResponseEntity<byte[]> getRawImageOfLine(
+                @RequestParam("pageId") String pageId,
+                @RequestParam("segmentId") String segmentId,
+                @RequestParam("imageId") String imageId,
+                @RequestParam(value = "format", required = false, defaultValue = "png") String format,
+                @RequestParam(value = "width", required = false) Integer width,
+                @RequestParam(value = "height", required = false) Integer height,
+                HttpSession session, HttpServletResponse response, WebRequest webRequest
+            ) {
+        String projectDir = (String) session.getAttribute("projectDir");
+        Object imageType = session.getAttribute("imageType");
+        if (projectDir == null || projectDir.isEmpty() || imageType == null || imageType.toString().isEmpty()
+                || pageId.isEmpty() || segmentId.isEmpty() || imageId.isEmpty())
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+
+        ImageHelper imageHelper = new ImageHelper(projectDir);
+        return streamImage(imageHelper, imageHelper.getLineImageFile(pageId, segmentId, imageId, imageType.toString()),
+            format, width, height, response, webRequest);
+    }
 }
@@ -0,0 +1,228 @@
+package de.uniwue.controller;
+
+import java.util.List;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import de.uniwue.feature.JobManager;
+import de.uniwue.feature.JobScheduler;
+import de.uniwue.model.ConsoleSegment;
+import de.uniwue.model.JobStatus;
+import de.uniwue.model.ResourceBudget;
+import de.uniwue.model.SchedulerMetrics;
+
+/**
+ * Controller class for processes that are executed as jobs
+ * Jobs are submitted with the parameter async=true of the execute requests of the processes
+ * Use response.setStatus to trigger AJAX fail (and therefore show errors)
+ */
+@Controller
+public class JobController {
+    /**
+     * Gets a job of the session and sets the status if it does not exist
+     *
+     * @param jobId Identifier of the job
+     * @param session Session of the user
+     * @param response Response to the request
+     * @return Job or null if the session has no job with this identifier
+     */
+    private JobManager.Job provideJob(String jobId, HttpSession session, HttpServletResponse response) {
+        JobManager.Job job = JobManager.getJob(jobId, session);
+        if (job == null)
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+        return job;
+    }
+
+    /**
+     * Returns the process that a job currently executes
+     * The process flow executes its processes one after another
+     *
+     * @param job Job of the user
+     * @return Name of the process
+     */
+    private String getCurrentProcess(JobManager.Job job) {
+        if (!job.getProcess().equals("processFlow"))
+            return job.getProcess();
+
+        String currentProcess = (String) job.getSession().getAttribute("currentProcess");
+        return (currentProcess == null) ? "" : currentProcess;
+    }
+
+    /**
+     * Response to the request to return the state of a job
+     *
+     * @param jobId Identifier of the job
+     * @param session Session of the user
+     * @param response Response to the request
+     * @return State of the job
+     */
+    @RequestMapping(value = "/ajax/job/status" , method = RequestMethod.GET)
+    public @ResponseBody JobStatus status(
+                @RequestParam("jobId") String jobId,
+                HttpSession session, HttpServletResponse response
+            ) {
+        JobManager.Job job = provideJob(jobId, session, response);
+        if (job == null)
+            return null;
+
+        return job.getStatus();
+    }
+
+    /**
+     * Response to the request to return the states of all jobs of the session
+     *
+     * @param session Session of the user
+     * @return States of the jobs in order of submission
+     */
+    @RequestMapping(value = "/ajax/job/list" , method = RequestMethod.GET)
+    public @ResponseBody List<JobStatus> list(HttpSession session) {
+        return JobManager.getJobs(session);
+    }
+
+    /**
+     * Response to the request to return the progress of a job
+     *
+     * @param jobId Identifier of the job
+     * @param session Session of the user
+     * @param response Response to the request
+     * @return Current progress of the executed process (range: 0 - 100)
+     */
+    @RequestMapping(value = "/ajax/job/progress" , method = RequestMethod.GET)
+    public @ResponseBody int progress(
+                @RequestParam("jobId") String jobId,
+                HttpSession session, HttpServletResponse response
+            ) {
+        JobManager.Job job = provideJob(jobId, session, response);
+        if (job == null)
+            return -1;
+
+        HttpSession jobSession = job.getSession();
+        switch(getCurrentProcess(job)) {
+            case "preprocessing":               return new PreprocessingController().progress(jobSession, response);
+            case "despeckling":                 return new DespecklingController().progress(jobSession, response);
+            case "segmentationDummy":           return new SegmentationDummyController().progress(jobSession, response);
+            case "segmentationPixelClassifier": return new SegmentationPixelClassifierController().progress(jobSession, response);
+            case "lineSegmentation":            return new LineSegmentationController().progress(jobSession, response);
+            case "recognition":                 return new RecognitionController().progress(jobSession, response);
+            case "evaluation":                  return new EvaluationController().progress(jobSession, response);
+            case "training":                    return new TrainingController().progress(jobSession, response);
+            case "resultGeneration":            return new ResultGenerationController().progress(jobSession, response);
+            default: return -1;
+        }
+    }
+
+    /**
+     * Response to the request to return the console lines of a job after a given offset
+     *
+     * @param jobId Identifier of the job
+     * @param streamType Type of the console output (out | err)
+     * @param offset Sequence number of the first requested line (end of the previous segment)
+     * @param session Session of the user
+     * @param response Response to the request
+     * @return Console segment (null if the executed process has no console)
+     */
+    @RequestMapping(value = "/ajax/job/console" , method = RequestMethod.GET)
+    public @ResponseBody ConsoleSegment console(
+                @RequestParam("jobId") String jobId,
+                @RequestParam("streamType") String streamType,
+                @RequestParam(value = "offset", required = false, defaultValue = "0") long offset,
+                HttpSession session, HttpServletResponse response
+            ) {
+        JobManager.Job job = provideJob(jobId, session, response);
+        if (job == null)
+            return null;
+
+        HttpSession jobSession = job.getSession();
+        switch(getCurrentProcess(job)) {
+            case "preprocessing":    return new PreprocessingController().consoleSince(streamType, offset, jobSession, response);
+            case "lineSegmentation": return new LineSegmentationController().consoleSince(streamType, offset, jobSession, response);
+            case "recognition":      return new RecognitionController().consoleSince(streamType, offset, jobSession, response);
+            case "evaluation":       return new EvaluationController().consoleSince(streamType, offset, jobSession, response);
+            case "training":         return new TrainingController().consoleSince(streamType, offset, jobSession, response);
+            default: return null;
+        }
+    }
+
+    /**
+     * Response to the request to cancel a job
+     * Queued jobs are not executed anymore, the processes of running jobs are cancelled
+     *
+     * @param jobId Identifier of the job
+     * @param session Session of the user
+     * @param response Response to the request
+     */
+    @RequestMapping(value = "/ajax/job/cancel", method = RequestMethod.POST)
+    public @ResponseBody void cancel(
+                @RequestParam("jobId") String jobId,
+                HttpSession session, HttpServletResponse response
+            ) {
+        JobManager.Job job = provideJob(jobId, session, response);
+        if (job == null || !job.requestCancel())
+            return;
+
+        HttpSession jobSession = job.getSession();
+        switch(job.getProcess()) {
+            case "processFlow":                 new ProcessFlowController().cancel(true, jobSession, response); break;
+            case "preprocessing":               new PreprocessingController().cancel(jobSession, response); break;
+            case "despeckling":                 new DespecklingController().cancel(jobSession, response); break;
+            case "segmentationDummy":           new SegmentationDummyController().cancel(jobSession, response); break;
+            case "segmentationPixelClassifier": new SegmentationPixelClassifierController().cancel(jobSession, response); break;
+            case "lineSegmentation":            new LineSegmentationController().cancel(jobSession, response); break;
+            case "recognition":                 new RecognitionController().cancel(jobSession, response); break;
+            case "evaluation":                  new EvaluationController().cancel(jobSession, response); break;
+            case "training":                    new TrainingController().cancel(jobSession, response); break;
+            case "resultGeneration":            new ResultGenerationController().cancel(jobSession, response); break;
+            default: return;
+        }
+    }
+
+    /**
+     * Response to the request to return the state of the server-wide scheduler
+     *
+     * @return Queue depth, waiting times, used resources and budgets of the processes
+     */
+    @RequestMapping(value = "/ajax/job/scheduler" , method = RequestMethod.GET)
+    public @ResponseBody SchedulerMetrics scheduler() {
+        return JobScheduler.getMetrics();
+    }
+
+    /**
+     * Response to the request to set the resources that a single program instance of a process needs
+     *
+     * @param process Name of the process
+     * @param cores Number of CPU cores
+     * @param memoryMb Memory in megabytes
+     */
+    @RequestMapping(value = "/ajax/job/scheduler/budget", method = RequestMethod.POST)
+    public @ResponseBody void setBudget(
+                @RequestParam("process") String process,
+                @RequestParam("cores") int cores,
+                @RequestParam("memoryMb") long memoryMb
+            ) {
+        ResourceBudget budget = new ResourceBudget();
+        budget.setCores(cores);
+        budget.setMemoryMb(memoryMb);
+        JobScheduler.setBudget(process, budget);
+    }
+
+    /**
+     * Response to the request to set the resources of the server that can be assigned to processes
+     *
+     * @param cores Number of CPU cores
+     * @param memoryMb Memory in megabytes
+     */
+    @RequestMapping(value = "/ajax/job/scheduler/capacity", method = RequestMethod.POST)
+    public @ResponseBody void setCapacity(
+                @RequestParam("cores") int cores,
+                @RequestParam("memoryMb") long memoryMb
+            ) {
+        JobScheduler.setCapacity(new ResourceBudget(cores, memoryMb));
+    }
+}
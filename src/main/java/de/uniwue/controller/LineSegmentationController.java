@@ -15,7 +15,11 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.ModelAndView;
 
+import de.uniwue.feature.JobScheduler;
+import de.uniwue.feature.ProcessProgress;
+import de.uniwue.helper.GenericHelper;
 import de.uniwue.helper.LineSegmentationHelper;
+import de.uniwue.model.ConsoleSegment;
 
 /**
  * Controller class for line segmentation module
@@ -72,36 +76,50 @@ public class LineSegmentationController {
      * @param session Session of the user
      * @param response Response to the request
      * @param inProcessFlow Indicates if the process is executed within the ProcessFlow
+     * @param async Indicates if the process is executed as a job (the request returns immediately)
+     * @return Identifier of the job if the process is executed asynchronously
      */
     @RequestMapping(value = "/ajax/lineSegmentation/execute", method = RequestMethod.POST)
-    public @ResponseBody void execute(
+    public @ResponseBody String execute(
                @RequestParam("pageIds[]") String[] pageIds,
                @RequestParam(value = "cmdArgs[]", required = false) String[] cmdArgs,
                HttpSession session, HttpServletResponse response,
-               @RequestParam(value = "inProcessFlow", required = false, defaultValue = "false") boolean inProcessFlow
+               @RequestParam(value = "inProcessFlow", required = false, defaultValue = "false") boolean inProcessFlow,
+               @RequestParam(value = "async", required = false, defaultValue = "false") boolean async
            ) {
+        if (async)
+            return GenericController.submitJob(session, "lineSegmentation",
+                jobResponse -> execute(pageIds, cmdArgs, session, jobResponse, inProcessFlow, false));
 
         LineSegmentationHelper lineSegmentationHelper = provideHelper(session, response);
         if (lineSegmentationHelper == null)
-            return;
+            return null;
 
         int conflictType = lineSegmentationHelper.getConflictType(GenericController.getProcessList(session), inProcessFlow);
         if (GenericController.hasProcessConflict(session, response, conflictType))
-            return;
+            return null;
 
         GenericController.addToProcessList(session, "lineSegmentation");
-        try {
-            List<String> cmdArgList = new ArrayList<String>();
-            if (cmdArgs != null)
-                cmdArgList = Arrays.asList(cmdArgs);
+        List<String> cmdArgList = new ArrayList<String>();
+        if (cmdArgs != null)
+            cmdArgList = Arrays.asList(cmdArgs);
 
+        JobScheduler.Admission admission = null;
+        try {
+            // Every parallel pagelineseg process needs its own resources
+            admission = JobScheduler.admit("lineSegmentation",
+                GenericHelper.getIntArgument(cmdArgList, "--parallel", 1), 1, session);
             lineSegmentationHelper.execute(Arrays.asList(pageIds), cmdArgList);
         } catch (IOException e) {
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             lineSegmentationHelper.resetProgress();
             e.printStackTrace();
+        } finally {
+            if (admission != null)
+                admission.close();
         }
         GenericController.removeFromProcessList(session, "lineSegmentation");
+        return null;
     }
 
     /**
@@ -126,6 +144,31 @@ public class LineSegmentationController {
         return lineSegmentationHelper.getProcessHandler().getConsoleOut();
     }
 
+    /**
+     * Response to the request to return the console lines of the line segmentation process after a given offset
+     * Allows clients to fetch only the new lines instead of the whole console
+     *
+     * @param streamType Type of the console output (out | err)
+     * @param offset Sequence number of the first requested line (end of the previous segment)
+     * @param session Session of the user
+     * @param response Response to the request
+     * @return Console segment (null if session is invalid)
+     */
+    @RequestMapping(value = "/ajax/lineSegmentation/consoleSince" , method = RequestMethod.GET)
+    public @ResponseBody ConsoleSegment consoleSince(
+                @RequestParam("streamType") String streamType,
+                @RequestParam(value = "offset", required = false, defaultValue = "0") long offset,
+                HttpSession session, HttpServletResponse response
+            ) {
+        LineSegmentationHelper lineSegmentationHelper = provideHelper(session, response);
+        if (lineSegmentationHelper == null)
+            return null;
+
+        if (streamType.equals("err"))
+            return lineSegmentationHelper.getProcessHandler().getConsoleErr(offset);
+        return lineSegmentationHelper.getProcessHandler().getConsoleOut(offset);
+    }
+
     /**
      * Response to the request to cancel the lineSegmentation process
      *
@@ -138,6 +181,7 @@ public class LineSegmentationController {
         if (lineSegmentationHelper == null)
             return;
 
+        JobScheduler.cancelWaiting(session, "lineSegmentation");
         lineSegmentationHelper.cancelProcess();
     }
 
@@ -163,6 +207,23 @@ public class LineSegmentationController {
         }
     }
 
+    /**
+     * Response to the request to return the detailed progress of the line segmentation service
+     * Contains the completed units, the throughput (units per second) and the estimated remaining time (seconds)
+     *
+     * @param session Session of the user
+     * @param response Response to the request
+     * @return Progress as reported by pagelineseg (null if not available)
+     */
+    @RequestMapping(value = "/ajax/lineSegmentation/progressDetails" , method = RequestMethod.GET)
+    public @ResponseBody ProcessProgress progressDetails(HttpSession session, HttpServletResponse response) {
+        LineSegmentationHelper lineSegmentationHelper = provideHelper(session, response);
+        if (lineSegmentationHelper == null)
+            return null;
+
+        return lineSegmentationHelper.getProgressDetails();
+    }
+
     /**
      * Response to the request to return all pageIds that can be used for line segmentation
      *
@@ -3,6 +3,7 @@ package de.uniwue.controller;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.TreeMap;
 import java.util.regex.Pattern;
 
@@ -18,6 +19,8 @@ import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.ModelAndView;
 
 import de.uniwue.helper.OverviewHelper;
+import de.uniwue.model.ImageEncodingBenchmark;
+import de.uniwue.model.ImageEncodingProfile;
 import de.uniwue.model.PageOverview;
 
 /**
@@ -238,12 +241,14 @@ public class OverviewController {
      * Response to adjust the files according to the project standard
      *
      * @param backupImages Determines if a backup of the image folder is required 
+     * @param threads Number of worker threads for the backup and conversion, 1 for sequential processing (optional)
      * @param session Session of the user
      * @param response Response to the request
      */
     @RequestMapping(value ="/ajax/overview/adjustProjectFiles" , method = RequestMethod.POST)
     public @ResponseBody void adjustFiles(
                 @RequestParam("backupImages") Boolean backupImages,
+                @RequestParam(value = "threads", required = false) Integer threads,
                 HttpSession session, HttpServletResponse response
             ) {
         OverviewHelper overviewHelper = provideHelper(session, response);
@@ -252,6 +257,8 @@ public class OverviewController {
 
         try {
             session.setAttribute("projectAdjustment", "Please wait until the project adjustment is finished.");
+            if (threads != null)
+                overviewHelper.setConversionThreads(threads);
             overviewHelper.execute(backupImages,false);
             session.setAttribute("projectAdjustment", "");
         } catch (IOException e) {
@@ -347,6 +354,9 @@ public class OverviewController {
     /**
      * Response to the Request to convert a PDF in to image files
      * @param deleteBlank flag to delete blank pages
+     * @param dpi DPI value used for rendering
+     * @param threads Number of worker threads used for rendering (optional)
+     * @param memoryLimit Memory ceiling in MB for pages rendered at the same time (optional)
      * @param session Session of the user
      * @param response Response to the request
      */
@@ -354,6 +364,8 @@ public class OverviewController {
     public @ResponseBody void convertFiles(
             @RequestParam("deleteBlank") Boolean deleteBlank,
             @RequestParam("dpi") int dpi,
+            @RequestParam(value = "threads", required = false) Integer threads,
+            @RequestParam(value = "memoryLimit", required = false) Long memoryLimit,
             HttpSession session, HttpServletResponse response
     ) {
         OverviewHelper overviewHelper = provideHelper(session, response);
@@ -364,6 +376,10 @@ public class OverviewController {
         try {
             session.setAttribute("projectAdjustment", "Please wait until the project adjustment is finished.");
             overviewHelper.setDPI(dpi);
+            if (threads != null)
+                overviewHelper.setPdfWorkerThreads(threads);
+            if (memoryLimit != null)
+                overviewHelper.setPdfMemoryLimit(memoryLimit * 1024 * 1024);
             overviewHelper.execute(deleteBlank, true);
             session.setAttribute("projectAdjustment", "");
         } catch (Exception e) {
@@ -413,6 +429,7 @@ public class OverviewController {
      * @param pages selected pages to zip
      * @param binary determines if binary images will be included
      * @param gray determines if grayscale images will be included
+     * @param incremental determines if only the line pairs that changed since the last export will be included
      * @param session Session of the user
      * @param response Response to the Request
      */
@@ -422,6 +439,7 @@ public class OverviewController {
             @RequestParam("pages") String pages,
             @RequestParam("binary") Boolean binary,
             @RequestParam("gray") Boolean gray,
+            @RequestParam(value = "incremental", required = false) Boolean incremental,
             HttpSession session, HttpServletResponse response
     ) {
         OverviewHelper overviewHelper = provideHelper(session, response);
@@ -433,9 +451,9 @@ public class OverviewController {
             session.setAttribute("projectAdjustment", "Please wait until the project adjustment is finished.");
 
             if(completeDir) {
-                overviewHelper.zipDir(binary, gray);
+                overviewHelper.zipDir(binary, gray, incremental != null && incremental);
             } else {
-                overviewHelper.zipPages(pages, binary, gray);
+                overviewHelper.zipPages(pages, binary, gray, incremental != null && incremental);
             }
             session.setAttribute("projectAdjustment", "");
         } catch (Exception e) {
@@ -447,6 +465,61 @@ public class OverviewController {
         return overviewHelper.getProjDir();
     }
 
+    /**
+     * Response to the Request to download the Ground Truth Data of the Project
+     * The archive is streamed directly to the response and not stored in the project folder
+     * @param pages selected pages to zip (complete project if not set)
+     * @param binary determines if binary images will be included
+     * @param gray determines if grayscale images will be included
+     * @param incremental determines if only the line pairs that changed since the last export will be included
+     * @param session Session of the user
+     * @param response Response to the Request
+     */
+    @RequestMapping(value ="ajax/overview/exportGtc/download" , method = RequestMethod.GET)
+    public void downloadGtc(
+            @RequestParam(value = "pages", required = false) String pages,
+            @RequestParam("binary") Boolean binary,
+            @RequestParam("gray") Boolean gray,
+            @RequestParam(value = "incremental", required = false) Boolean incremental,
+            HttpSession session, HttpServletResponse response
+    ) {
+        OverviewHelper overviewHelper = provideHelper(session, response);
+        if (overviewHelper == null)
+            return;
+
+        boolean delta = incremental != null && incremental;
+        String archiveName = overviewHelper.getGtcArchiveName(delta);
+        response.setContentType("application/zip");
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + archiveName + "\"");
+        try {
+            overviewHelper.streamGtc(pages, binary, gray, delta, archiveName, response.getOutputStream());
+        } catch (IllegalArgumentException e) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            e.printStackTrace();
+        } catch (IOException e) {
+            // Headers are already sent if the client aborted the download
+            if (!response.isCommitted())
+                response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Response to the request to return the progress status of the GTC export
+     *
+     * @param session Session of the user
+     * @param response Response to the request
+     * @return Current progress (range: 0 - 100, -1 if no export was started)
+     */
+    @RequestMapping(value = "ajax/overview/exportGtc/progress" , method = RequestMethod.GET)
+    public @ResponseBody int exportGtcProgress(HttpSession session, HttpServletResponse response) {
+        OverviewHelper overviewHelper = provideHelper(session, response);
+        if (overviewHelper == null)
+            return -1;
+
+        return overviewHelper.getExportProgress();
+    }
+
     /**
      * Response to the Request to check for exportable Ground Truth Data
      * @param session Session of the user
@@ -470,4 +543,90 @@ public class OverviewController {
         }
         return false;
     }
+
+    /**
+     * Response to the request to return the image encoding profile of the project
+     *
+     * @param session Session of the user
+     * @param response Response to the request
+     * @return Encoding profile of the project
+     */
+    @RequestMapping(value ="/ajax/overview/encodingProfile" , method = RequestMethod.GET)
+    public @ResponseBody ImageEncodingProfile getEncodingProfile(HttpSession session, HttpServletResponse response) {
+        OverviewHelper overviewHelper = provideHelper(session, response);
+        if (overviewHelper == null)
+            return null;
+
+        return overviewHelper.getEncodingProfile();
+    }
+
+    /**
+     * Response to the request to set the image encoding profile of the project
+     * Either a predefined profile or the single settings can be passed
+     *
+     * @param preset Name of a predefined profile (default, fast or compact)
+     * @param compressionLevel zlib compression level (range: 0 - 9)
+     * @param strategy zlib strategy (default, filtered, huffman, rle or fixed)
+     * @param bilevel Store bitonal images with a bit depth of 1
+     * @param session Session of the user
+     * @param response Response to the request
+     */
+    @RequestMapping(value ="/ajax/overview/encodingProfile" , method = RequestMethod.POST)
+    public @ResponseBody void setEncodingProfile(
+                @RequestParam(value = "preset", required = false) String preset,
+                @RequestParam(value = "compressionLevel", required = false) Integer compressionLevel,
+                @RequestParam(value = "strategy", required = false) String strategy,
+                @RequestParam(value = "bilevel", required = false) Boolean bilevel,
+                HttpSession session, HttpServletResponse response
+            ) {
+        OverviewHelper overviewHelper = provideHelper(session, response);
+        if (overviewHelper == null)
+            return;
+
+        ImageEncodingProfile profile;
+        if (preset != null) {
+            profile = ImageEncodingProfile.getPreset(preset);
+            if (profile == null) {
+                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                return;
+            }
+        }
+        else {
+            profile = overviewHelper.getEncodingProfile();
+            profile.setName("custom");
+            if (compressionLevel != null)
+                profile.setCompressionLevel(compressionLevel);
+            if (strategy != null)
+                profile.setStrategy(strategy);
+            if (bilevel != null)
+                profile.setBilevel(bilevel);
+        }
+
+        try {
+            overviewHelper.setEncodingProfile(profile);
+        } catch (IOException e) {
+            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Response to the request to compare the encoding profiles on the images of a page
+     *
+     * @param pageId Identifier of the page (e.g 0002)
+     * @param session Session of the user
+     * @param response Response to the request
+     * @return Encoded size and encoding time of every image type and profile
+     */
+    @RequestMapping(value ="/ajax/overview/encodingBenchmark" , method = RequestMethod.GET)
+    public @ResponseBody List<ImageEncodingBenchmark> benchmarkEncoding(
+                @RequestParam("pageId") String pageId,
+                HttpSession session, HttpServletResponse response
+            ) {
+        OverviewHelper overviewHelper = provideHelper(session, response);
+        if (overviewHelper == null)
+            return new ArrayList<ImageEncodingBenchmark>();
+
+        return overviewHelper.benchmarkEncoding(pageId);
+    }
 }
@@ -15,7 +15,9 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.ModelAndView;
 
+import de.uniwue.feature.JobScheduler;
 import de.uniwue.helper.PreprocessingHelper;
+import de.uniwue.model.ConsoleSegment;
 
 /**
  * Controller class for pages of preprocessing module
@@ -72,17 +74,28 @@ public class PreprocessingController {
      * @param session Session of the user
      * @param response Response to the request
      * @param inProcessFlow Indicates if the process is executed within the ProcessFlow
+     * @param shards Number of parallel ocropus-nlbin processes, 0 to use one per thread (optional)
+     * @param thumbnails Generate the standard thumbnails of the results in the background (optional)
+     * @param async Indicates if the process is executed as a job (the request returns immediately)
+     * @return Identifier of the job if the process is executed asynchronously
      */
     @RequestMapping(value = "/ajax/preprocessing/execute", method = RequestMethod.POST)
-    public @ResponseBody void execute(
+    public @ResponseBody String execute(
                @RequestParam("pageIds[]") String[] pageIds,
                @RequestParam(value = "cmdArgs[]", required = false) String[] cmdArgs,
                HttpSession session, HttpServletResponse response,
-               @RequestParam(value = "inProcessFlow", required = false, defaultValue = "false") boolean inProcessFlow
+               @RequestParam(value = "inProcessFlow", required = false, defaultValue = "false") boolean inProcessFlow,
+               @RequestParam(value = "shards", required = false) Integer shards,
+               @RequestParam(value = "thumbnails", required = false) Boolean thumbnails,
+               @RequestParam(value = "async", required = false, defaultValue = "false") boolean async
            ) {
+        if (async)
+            return GenericController.submitJob(session, "preprocessing",
+                jobResponse -> execute(pageIds, cmdArgs, session, jobResponse, inProcessFlow, shards, thumbnails, false));
+
         PreprocessingHelper preprocessingHelper = provideHelper(session, response);
         if (preprocessingHelper == null)
-            return;
+            return null;
 
         List<String> cmdArgList = new ArrayList<String>();
         if (cmdArgs != null)
@@ -90,17 +103,28 @@ public class PreprocessingController {
 
         int conflictType = preprocessingHelper.getConflictType(GenericController.getProcessList(session), inProcessFlow);
         if (GenericController.hasProcessConflict(session, response, conflictType))
-            return;
+            return null;
 
         GenericController.addToProcessList(session, "preprocessing");
+        if (shards != null)
+            preprocessingHelper.setShardCount(shards);
+        if (thumbnails != null)
+            preprocessingHelper.setPregenerateThumbnails(thumbnails);
+        JobScheduler.Admission admission = null;
         try {
+            admission = JobScheduler.admit("preprocessing",
+                preprocessingHelper.getEffectiveShardCount(cmdArgList, pageIds.length), 1, session);
             preprocessingHelper.execute(Arrays.asList(pageIds), cmdArgList);
         } catch (IOException e) {
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             preprocessingHelper.resetProgress();
             e.printStackTrace();
+        } finally {
+            if (admission != null)
+                admission.close();
         }
         GenericController.removeFromProcessList(session, "preprocessing");
+        return null;
     }
 
     /**
@@ -115,6 +139,7 @@ public class PreprocessingController {
         if (preprocessingHelper == null)
             return;
 
+        JobScheduler.cancelWaiting(session, "preprocessing");
         preprocessingHelper.cancelProcess();
     }
 
@@ -156,6 +181,31 @@ public class PreprocessingController {
         return preprocessingHelper.getProcessHandler().getConsoleOut();
     }
 
+    /**
+     * Response to the request to return the console lines of the preprocessing process after a given offset
+     * Allows clients to fetch only the new lines instead of the whole console
+     *
+     * @param streamType Type of the console output (out | err)
+     * @param offset Sequence number of the first requested line (end of the previous segment)
+     * @param session Session of the user
+     * @param response Response to the request
+     * @return Console segment (null if session is invalid)
+     */
+    @RequestMapping(value = "/ajax/preprocessing/consoleSince" , method = RequestMethod.GET)
+    public @ResponseBody ConsoleSegment consoleSince(
+                @RequestParam("streamType") String streamType,
+                @RequestParam(value = "offset", required = false, defaultValue = "0") long offset,
+                HttpSession session, HttpServletResponse response
+            ) {
+        PreprocessingHelper preprocessingHelper = provideHelper(session, response);
+        if (preprocessingHelper == null)
+            return null;
+
+        if (streamType.equals("err"))
+            return preprocessingHelper.getProcessHandler().getConsoleErr(offset);
+        return preprocessingHelper.getProcessHandler().getConsoleOut(offset);
+    }
+
     /**
      * Response to the request to check if old process related files exist
      *
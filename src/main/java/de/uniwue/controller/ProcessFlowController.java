@@ -1,5 +1,7 @@
 package de.uniwue.controller;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -15,8 +17,10 @@ import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.ModelAndView;
 
 import de.uniwue.controller.PreprocessingController;
+import de.uniwue.feature.ProcessFlowPipeline;
 import de.uniwue.helper.ProcessFlowHelper;
 import de.uniwue.model.ProcessFlowData;
+import de.uniwue.model.ProcessFlowStageState;
 
 /**
  * Controller class for pages of process flow module
@@ -106,7 +110,7 @@ public class ProcessFlowController {
         String[] cmdArgsArr = new String[cmdArgsList.size()];
         cmdArgsArr = cmdArgsList.toArray(cmdArgsArr);
 
-        new PreprocessingController().execute(pageIds, cmdArgsArr, session, response, true);
+        new PreprocessingController().execute(pageIds, cmdArgsArr, session, response, true, null, null, false);
     }
 
     /**
@@ -124,7 +128,7 @@ public class ProcessFlowController {
         }
 
         Double maxContourRemovalSizeDouble = Double.parseDouble((String)maxContourRemovalSize);
-        new DespecklingController().execute(pageIds, maxContourRemovalSizeDouble, session, response, true);
+        new DespecklingController().execute(pageIds, maxContourRemovalSizeDouble, session, response, true, null, false);
     }
 
     /**
@@ -144,7 +148,7 @@ public class ProcessFlowController {
             return;
         }
 
-        new SegmentationDummyController().execute(pageIds, (String)segmentationImageType, session, response, true);
+        new SegmentationDummyController().execute(pageIds, (String)segmentationImageType, session, response, true, false);
     }
 
     /**
@@ -167,7 +171,7 @@ public class ProcessFlowController {
         String[] cmdArgsArr = new String[cmdArgsList.size()];
         cmdArgsArr = cmdArgsList.toArray(cmdArgsArr);
 
-        new LineSegmentationController().execute(pageIds, cmdArgsArr, session, response, true);
+        new LineSegmentationController().execute(pageIds, cmdArgsArr, session, response, true, false);
     }
 
     /**
@@ -190,7 +194,7 @@ public class ProcessFlowController {
         String[] cmdArgsArr = new String[cmdArgsList.size()];
         cmdArgsArr = cmdArgsList.toArray(cmdArgsArr);
 
-        new RecognitionController().execute(pageIds, cmdArgsArr, session, response, true);
+        new RecognitionController().execute(pageIds, cmdArgsArr, session, response, true, null, false);
     }
 
     /**
@@ -212,25 +216,99 @@ public class ProcessFlowController {
         return false;
     }
 
+    /**
+     * Executes the processes as a pipeline, so that every page moves to the next process
+     * as soon as the previous process finished it
+     *
+     * @param pageIds Identifiers of the pages (e.g 0002,0003)
+     * @param processes Names of the processes that should be executed
+     * @param processSettings Settings for each process
+     * @param batchSize Number of pages that are passed through the pipeline together
+     * @param processFlowHelper Helper object of the process flow
+     * @param session Session of the user
+     * @param response Response to the request
+     */
+    public void executePipeline(
+                String[] pageIds, List<String> processes, Map<String, Map<String, Object>> processSettings,
+                int batchSize, ProcessFlowHelper processFlowHelper, HttpSession session, HttpServletResponse response
+            ) {
+        // Every process executes one batch at a time, because its helper object is shared within the session
+        List<ProcessFlowPipeline.Stage> stages = new ArrayList<ProcessFlowPipeline.Stage>();
+        if (processes.contains("preprocessing")) {
+            Object cmdArgs = processSettings.get("preprocessing").get("cmdArgs");
+            stages.add(new ProcessFlowPipeline.Stage("preprocessing", null,
+                (pages, stageResponse) -> doPreprocessing(pages, cmdArgs, session, stageResponse)));
+        }
+
+        if (processes.contains("despeckling")) {
+            Object maxContourRemovalSize = processSettings.get("despeckling").get("maxContourRemovalSize");
+            stages.add(new ProcessFlowPipeline.Stage("despeckling",
+                pages -> processFlowHelper.getValidPageIds(pages, "preprocessing"),
+                (pages, stageResponse) -> doDespeckling(pages, maxContourRemovalSize, session, stageResponse)));
+        }
+
+        if (processes.contains("segmentationDummy")) {
+            Object segmentationImageType = processSettings.get("segmentationDummy").get("imageType");
+            stages.add(new ProcessFlowPipeline.Stage("segmentationDummy",
+                pages -> processFlowHelper.getValidPageIds(pages, "preprocessing"),
+                (pages, stageResponse) -> doSegmentationDummy(pages, segmentationImageType, session, stageResponse)));
+        }
+
+        if (processes.contains("lineSegmentation")) {
+            Object cmdArgs = processSettings.get("lineSegmentation").get("cmdArgs");
+            stages.add(new ProcessFlowPipeline.Stage("lineSegmentation",
+                pages -> processFlowHelper.getValidPageIds(pages, "segmentation"),
+                (pages, stageResponse) -> doLineSegmentation(pages, cmdArgs, session, stageResponse)));
+        }
+
+        if (processes.contains("recognition")) {
+            Object cmdArgs = processSettings.get("recognition").get("cmdArgs");
+            stages.add(new ProcessFlowPipeline.Stage("recognition",
+                pages -> processFlowHelper.getValidPageIds(pages, "lineSegmentation"),
+                (pages, stageResponse) -> doRecognition(pages, cmdArgs, session, stageResponse)));
+        }
+
+        ProcessFlowPipeline pipeline = new ProcessFlowPipeline(stages,
+            process -> session.setAttribute("currentProcess", process));
+        session.setAttribute("processFlowPipeline", pipeline);
+        pipeline.execute(pageIds, batchSize, () -> Boolean.TRUE.equals(session.getAttribute("cancelProcessFlow")));
+
+        if (pipeline.getFailedStatus() != HttpServletResponse.SC_OK)
+            response.setStatus(pipeline.getFailedStatus());
+        session.setAttribute("currentProcess", "");
+        GenericController.removeFromProcessList(session, "processFlow");
+    }
+
     /**
      * Response to the request to execute the processflow
      *
      * @param processFlowData Necessary data for processflow execution
      * @param session Session of the user
      * @param response Response to the request
+     * @param pipeline Indicates if the pages move to the next process as soon as the previous one finished them
+     * @param batchSize Number of pages that are passed through the pipeline together
+     * @param async Indicates if the process is executed as a job (the request returns immediately)
+     * @return Identifier of the job if the process is executed asynchronously
      */
     @RequestMapping(value = "/ajax/processFlow/execute", method = RequestMethod.POST)
-    public @ResponseBody void execute(
+    public @ResponseBody String execute(
                @RequestBody ProcessFlowData processFlowData,
-               HttpSession session, HttpServletResponse response
+               HttpSession session, HttpServletResponse response,
+               @RequestParam(value = "pipeline", required = false, defaultValue = "false") boolean pipeline,
+               @RequestParam(value = "batchSize", required = false) Integer batchSize,
+               @RequestParam(value = "async", required = false, defaultValue = "false") boolean async
            ) {
+        if (async)
+            return GenericController.submitJob(session, "processFlow",
+                jobResponse -> execute(processFlowData, session, jobResponse, pipeline, batchSize, false));
+
         ProcessFlowHelper processFlowHelper = provideHelper(session, response);
         if (processFlowHelper == null)
-            return;
+            return null;
 
         int conflictType = processFlowHelper.getConflictType(GenericController.getProcessList(session));
         if (GenericController.hasProcessConflict(session, response, conflictType))
-            return;
+            return null;
 
         // Check that all variables were passed in request
         String[] pageIds = processFlowData.getPageIds();
@@ -238,15 +316,16 @@ public class ProcessFlowController {
         Map<String, Map<String, Object>> processSettings = processFlowData.getProcessSettings();
         if (pageIds == null || processes == null || processSettings == null) {
             response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-            return;
+            return null;
         }
 
         session.setAttribute("cancelProcessFlow", false);
+        session.removeAttribute("processFlowPipeline");
 
         // Verify that settings for every executed process are provided
         validateSettings(processes, processSettings, response);
         if (needsExit(session, response))
-            return;
+            return null;
 
         /*
          * Execute all processes consecutively
@@ -256,11 +335,18 @@ public class ProcessFlowController {
          */
         GenericController.addToProcessList(session, "processFlow");
 
+        if (pipeline) {
+            executePipeline(pageIds, processes, processSettings,
+                (batchSize != null) ? batchSize : ProcessFlowPipeline.DEFAULT_BATCH_SIZE,
+                processFlowHelper, session, response);
+            return null;
+        }
+
         if (processes.contains("preprocessing")) {
             session.setAttribute("currentProcess", "preprocessing");
             doPreprocessing(pageIds, processSettings.get("preprocessing").get("cmdArgs"), session, response);
             if (needsExit(session, response))
-                return;
+                return null;
         }
 
         if (processes.contains("despeckling")) {
@@ -268,7 +354,7 @@ public class ProcessFlowController {
             pageIds = processFlowHelper.getValidPageIds(pageIds, "preprocessing");
             doDespeckling(pageIds, processSettings.get("despeckling").get("maxContourRemovalSize"), session, response);
             if (needsExit(session, response))
-                return;
+                return null;
         }
 
         if (processes.contains("segmentationDummy")) {
@@ -277,7 +363,7 @@ public class ProcessFlowController {
             Map<String, Object> settings = processSettings.get("segmentationDummy");
             doSegmentationDummy(pageIds, settings.get("imageType"), session, response);
             if (needsExit(session, response))
-                return;
+                return null;
         }
 
         if (processes.contains("lineSegmentation")) {
@@ -286,7 +372,7 @@ public class ProcessFlowController {
             pageIds = processFlowHelper.getValidPageIds(pageIds, "segmentation");
             doLineSegmentation(pageIds, processSettings.get("lineSegmentation").get("cmdArgs"), session, response);
             if (needsExit(session, response))
-                return;
+                return null;
         }
 
         if (processes.contains("recognition")) {
@@ -294,11 +380,12 @@ public class ProcessFlowController {
             pageIds = processFlowHelper.getValidPageIds(pageIds, "lineSegmentation");
             doRecognition(pageIds, processSettings.get("recognition").get("cmdArgs"), session, response);
             if (needsExit(session, response))
-                return;
+                return null;
         }
 
         session.setAttribute("currentProcess", "");
         GenericController.removeFromProcessList(session, "processFlow");
+        return null;
     }
 
     /**
@@ -317,9 +404,25 @@ public class ProcessFlowController {
         return currentProcess;
     }
 
+    /**
+     * Response to the request to return the state of the processes of a pipelined process flow execution
+     *
+     * @param session Session of the user
+     * @return States of the processes in order of execution (empty if the process flow was not pipelined)
+     */
+    @RequestMapping(value = "/ajax/processFlow/pipeline", method = RequestMethod.GET)
+    public @ResponseBody List<ProcessFlowStageState> pipelineState(HttpSession session) {
+        ProcessFlowPipeline pipeline = (ProcessFlowPipeline) session.getAttribute("processFlowPipeline");
+        if (pipeline == null)
+            return new ArrayList<ProcessFlowStageState>();
+
+        return pipeline.getStates();
+    }
+
     /**
      * Indicates that the process flow execution should be cancelled
      * Cancels currently executed process as well to initiate cancellation
+     * A pipelined execution cancels all of its currently executed processes
      *
      * @param terminate Determines if the current process should be terminated or not
      * @param session Session of the user
@@ -341,14 +444,21 @@ public class ProcessFlowController {
         session.setAttribute("cancelProcessFlow", true);
 
         if (terminate != null && terminate == true) {
-            // Cancel current process
-            switch(currentProcess) {
-                case "preprocessing":     new PreprocessingController().cancel(session, response); break;
-                case "despeckling":       new DespecklingController().cancel(session, response); break;
-                case "segmentationDummy": new SegmentationDummyController().cancel(session, response); break;
-                case "lineSegmentation":  new LineSegmentationController().cancel(session, response); break;
-                case "recognition":       new RecognitionController().cancel(session, response); break;
-                default: return;
+            List<String> runningProcesses = Arrays.asList(currentProcess);
+            ProcessFlowPipeline pipeline = (ProcessFlowPipeline) session.getAttribute("processFlowPipeline");
+            if (pipeline != null && pipeline.isRunning())
+                runningProcesses = pipeline.getRunningProcesses();
+
+            // Cancel current processes
+            for (String runningProcess : runningProcesses) {
+                switch(runningProcess) {
+                    case "preprocessing":     new PreprocessingController().cancel(session, response); break;
+                    case "despeckling":       new DespecklingController().cancel(session, response); break;
+                    case "segmentationDummy": new SegmentationDummyController().cancel(session, response); break;
+                    case "lineSegmentation":  new LineSegmentationController().cancel(session, response); break;
+                    case "recognition":       new RecognitionController().cancel(session, response); break;
+                    default: break;
+                }
             }
         }
     }
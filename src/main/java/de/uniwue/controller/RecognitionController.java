@@ -16,7 +16,10 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.ModelAndView;
 
+import de.uniwue.feature.JobScheduler;
+import de.uniwue.feature.ProcessProgress;
 import de.uniwue.helper.RecognitionHelper;
+import de.uniwue.model.ConsoleSegment;
 
 /**
  * Controller class for pages of recognition module
@@ -73,34 +76,52 @@ public class RecognitionController {
      * @param session Session of the user
      * @param response Response to the request
      * @param inProcessFlow Indicates if the process is executed within the ProcessFlow
+     * @param shards Number of parallel calamari-predict processes, 0 to determine it from the logical threads (optional)
+     * @param async Indicates if the process is executed as a job (the request returns immediately)
+     * @return Identifier of the job if the process is executed asynchronously
      */
     @RequestMapping(value = "/ajax/recognition/execute", method = RequestMethod.POST)
-    public @ResponseBody void execute(
+    public @ResponseBody String execute(
                @RequestParam("pageIds[]") String[] pageIds,
                @RequestParam(value = "cmdArgs[]", required = false) String[] cmdArgs,
                HttpSession session, HttpServletResponse response,
-               @RequestParam(value = "inProcessFlow", required = false, defaultValue = "false") boolean inProcessFlow
+               @RequestParam(value = "inProcessFlow", required = false, defaultValue = "false") boolean inProcessFlow,
+               @RequestParam(value = "shards", required = false) Integer shards,
+               @RequestParam(value = "async", required = false, defaultValue = "false") boolean async
            ) {
+        if (async)
+            return GenericController.submitJob(session, "recognition",
+                jobResponse -> execute(pageIds, cmdArgs, session, jobResponse, inProcessFlow, shards, false));
+
         RecognitionHelper recognitionHelper = provideHelper(session, response);
         if (recognitionHelper == null)
-            return;
+            return null;
         List<String> cmdArgList = new ArrayList<String>();
         if (cmdArgs != null)
             cmdArgList = Arrays.asList(cmdArgs);
 
         int conflictType = recognitionHelper.getConflictType(GenericController.getProcessList(session), inProcessFlow);
         if (GenericController.hasProcessConflict(session, response, conflictType))
-            return;
+            return null;
 
         GenericController.addToProcessList(session, "recognition");
+        if (shards != null)
+            recognitionHelper.setShardCount(shards);
+        JobScheduler.Admission admission = null;
         try {
+            admission = JobScheduler.admit("recognition", recognitionHelper.getEffectiveShardCount(pageIds.length),
+                recognitionHelper.getThreadsPerShard(cmdArgList, pageIds.length), session);
             recognitionHelper.execute(Arrays.asList(pageIds), cmdArgList);
         } catch (IOException e) {
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             recognitionHelper.resetProgress();
             e.printStackTrace();
+        } finally {
+            if (admission != null)
+                admission.close();
         }
         GenericController.removeFromProcessList(session, "recognition");
+        return null;
     }
 
     /**
@@ -125,6 +146,31 @@ public class RecognitionController {
         return recognitionHelper.getProcessHandler().getConsoleOut();
     }
 
+    /**
+     * Response to the request to return the console lines of the recognition process after a given offset
+     * Allows clients to fetch only the new lines instead of the whole console
+     *
+     * @param streamType Type of the console output (out | err)
+     * @param offset Sequence number of the first requested line (end of the previous segment)
+     * @param session Session of the user
+     * @param response Response to the request
+     * @return Console segment (null if session is invalid)
+     */
+    @RequestMapping(value = "/ajax/recognition/consoleSince" , method = RequestMethod.GET)
+    public @ResponseBody ConsoleSegment consoleSince(
+                @RequestParam("streamType") String streamType,
+                @RequestParam(value = "offset", required = false, defaultValue = "0") long offset,
+                HttpSession session, HttpServletResponse response
+            ) {
+        RecognitionHelper recognitionHelper = provideHelper(session, response);
+        if (recognitionHelper == null)
+            return null;
+
+        if (streamType.equals("err"))
+            return recognitionHelper.getProcessHandler().getConsoleErr(offset);
+        return recognitionHelper.getProcessHandler().getConsoleOut(offset);
+    }
+
     /**
      * Response to the request to cancel the recognition process
      *
@@ -137,6 +183,7 @@ public class RecognitionController {
         if (recognitionHelper == null)
             return;
 
+        JobScheduler.cancelWaiting(session, "recognition");
         recognitionHelper.cancelProcess();
     }
 
@@ -162,6 +209,23 @@ public class RecognitionController {
         }
     }
 
+    /**
+     * Response to the request to return the detailed progress of the recognition service
+     * Contains the completed units, the throughput (units per second) and the estimated remaining time (seconds)
+     *
+     * @param session Session of the user
+     * @param response Response to the request
+     * @return Progress as reported by calamari-predict (null if not available)
+     */
+    @RequestMapping(value = "/ajax/recognition/progressDetails" , method = RequestMethod.GET)
+    public @ResponseBody ProcessProgress progressDetails(HttpSession session, HttpServletResponse response) {
+        RecognitionHelper recognitionHelper = provideHelper(session, response);
+        if (recognitionHelper == null)
+            return null;
+
+        return recognitionHelper.getProgressDetails();
+    }
+
     /**
      * Response to the request to return all pageIds that can be used for recognition
      *
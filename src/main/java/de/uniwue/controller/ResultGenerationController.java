@@ -15,6 +15,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.ModelAndView;
 
+import de.uniwue.feature.JobScheduler;
 import de.uniwue.helper.ResultGenerationHelper;
 
 /**
@@ -71,30 +72,43 @@ public class ResultGenerationController {
      * @param resultType Command line arguments for result generation process
      * @param session Session of the user
      * @param response Response to the request
+     * @param async Indicates if the process is executed as a job (the request returns immediately)
+     * @return Identifier of the job if the process is executed asynchronously
      */
     @RequestMapping(value = "/ajax/resultGeneration/execute", method = RequestMethod.POST)
-    public @ResponseBody void execute(
+    public @ResponseBody String execute(
                @RequestParam("pageIds[]") String[] pageIds,
                @RequestParam(value = "resultType", required = true) String resultType,
-               HttpSession session, HttpServletResponse response
+               HttpSession session, HttpServletResponse response,
+               @RequestParam(value = "async", required = false, defaultValue = "false") boolean async
            ) {
+        if (async)
+            return GenericController.submitJob(session, "resultGeneration",
+                jobResponse -> execute(pageIds, resultType, session, jobResponse, false));
+
         ResultGenerationHelper resultGenerationHelper = provideHelper(session, response);
         if (resultGenerationHelper == null)
-            return;
+            return null;
 
         int conflictType = resultGenerationHelper.getConflictType(GenericController.getProcessList(session));
         if (GenericController.hasProcessConflict(session, response, conflictType))
-            return;
+            return null;
 
         GenericController.addToProcessList(session, "result");
+        JobScheduler.Admission admission = null;
         try {
+            admission = JobScheduler.admit("resultGeneration", session);
             resultGenerationHelper.executeProcess(Arrays.asList(pageIds), resultType);
         } catch (IOException | UnsupportedFormatVersionException e) {
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             resultGenerationHelper.resetProgress();
             e.printStackTrace();
+        } finally {
+            if (admission != null)
+                admission.close();
         }
         GenericController.removeFromProcessList(session, "result");
+        return null;
     }
 
     /**
@@ -109,6 +123,7 @@ public class ResultGenerationController {
         if (resultGenerationHelper == null)
             return;
 
+        JobScheduler.cancelWaiting(session, "resultGeneration");
         resultGenerationHelper.cancelProcess();
     }
 
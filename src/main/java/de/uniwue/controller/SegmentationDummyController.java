@@ -15,6 +15,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.ModelAndView;
 
+import de.uniwue.feature.JobScheduler;
 import de.uniwue.helper.SegmentationDummyHelper;
 
 /**
@@ -74,31 +75,44 @@ public class SegmentationDummyController {
      * @param session Session of the user
      * @param response Response to the request
      * @param inProcessFlow Indicates if the process is executed within the ProcessFlow
+     * @param async Indicates if the process is executed as a job (the request returns immediately)
+     * @return Identifier of the job if the process is executed asynchronously
      */
     @RequestMapping(value = "/ajax/segmentationDummy/execute", method = RequestMethod.POST)
-    public @ResponseBody void execute(
+    public @ResponseBody String execute(
                @RequestParam("pageIds[]") String[] pageIds,
                @RequestParam("imageType") String segmentationImageType,
                HttpSession session, HttpServletResponse response,
-               @RequestParam(value = "inProcessFlow", required = false, defaultValue = "false") boolean inProcessFlow
+               @RequestParam(value = "inProcessFlow", required = false, defaultValue = "false") boolean inProcessFlow,
+               @RequestParam(value = "async", required = false, defaultValue = "false") boolean async
            ) {
+        if (async)
+            return GenericController.submitJob(session, "segmentationDummy",
+                jobResponse -> execute(pageIds, segmentationImageType, session, jobResponse, inProcessFlow, false));
+
         SegmentationDummyHelper segmentationDummyHelper = provideHelper(session, response);
         if (segmentationDummyHelper == null)
-            return;
+            return null;
 
         int conflictType = segmentationDummyHelper.getConflictType(GenericController.getProcessList(session), inProcessFlow);
         if (GenericController.hasProcessConflict(session, response, conflictType))
-            return;
+            return null;
 
         GenericController.addToProcessList(session, "segmentationDummy");
+        JobScheduler.Admission admission = null;
         try {
+            admission = JobScheduler.admit("segmentationDummy", session);
             segmentationDummyHelper.execute(Arrays.asList(pageIds), segmentationImageType);
         } catch (IOException | ParserConfigurationException | TransformerException e) {
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             segmentationDummyHelper.resetProgress();
             e.printStackTrace();
+        } finally {
+            if (admission != null)
+                admission.close();
         }
         GenericController.removeFromProcessList(session, "segmentationDummy");
+        return null;
     }
 
     /**
@@ -128,6 +142,7 @@ public class SegmentationDummyController {
         if (segmentationDummyHelper == null)
             return;
 
+        JobScheduler.cancelWaiting(session, "segmentationDummy");
         segmentationDummyHelper.cancelProcess();
     }
 
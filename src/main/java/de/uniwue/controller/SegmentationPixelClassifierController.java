@@ -14,6 +14,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.ModelAndView;
 
+import de.uniwue.feature.JobScheduler;
 import de.uniwue.helper.SegmentationPixelClassifierHelper;
 
 /**
@@ -73,18 +74,25 @@ public class SegmentationPixelClassifierController {
      * @param session Session of the user
      * @param response Response to the request
      * @param inProcessFlow Indicates if the process is executed within the ProcessFlow
+     * @param async Indicates if the process is executed as a job (the request returns immediately)
+     * @return Identifier of the job if the process is executed asynchronously
      */
     @RequestMapping(value = "/ajax/segmentationPixelClassifier/execute", method = RequestMethod.POST)
-    public @ResponseBody void execute(
+    public @ResponseBody String execute(
                @RequestParam("pageIds[]") String[] pageIds,
                @RequestParam(value = "cmdArgs[]", required = false) String[] cmdArgs,
                @RequestParam("imageType") String segmentationImageType,
                HttpSession session, HttpServletResponse response,
-               @RequestParam(value = "inProcessFlow", required = false, defaultValue = "false") boolean inProcessFlow
+               @RequestParam(value = "inProcessFlow", required = false, defaultValue = "false") boolean inProcessFlow,
+               @RequestParam(value = "async", required = false, defaultValue = "false") boolean async
            ) {
+        if (async)
+            return GenericController.submitJob(session, "segmentationPixelClassifier",
+                jobResponse -> execute(pageIds, cmdArgs, segmentationImageType, session, jobResponse, inProcessFlow, false));
+
         SegmentationPixelClassifierHelper segmentationPixelClassifierHelper = provideHelper(session, response);
         if (segmentationPixelClassifierHelper == null)
-            return;
+            return null;
 
         List<String> cmdArgList = new ArrayList<String>();
         if (cmdArgs != null)
@@ -92,17 +100,23 @@ public class SegmentationPixelClassifierController {
 
         int conflictType = segmentationPixelClassifierHelper.getConflictType(GenericController.getProcessList(session), inProcessFlow);
         if (GenericController.hasProcessConflict(session, response, conflictType))
-            return;
+            return null;
 
         GenericController.addToProcessList(session, "segmentationPixelClassifier");
+        JobScheduler.Admission admission = null;
         try {
+            admission = JobScheduler.admit("segmentationPixelClassifier", session);
             segmentationPixelClassifierHelper.execute(Arrays.asList(pageIds), cmdArgList, segmentationImageType);
         } catch (IOException e) {
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             segmentationPixelClassifierHelper.resetProgress();
             e.printStackTrace();
+        } finally {
+            if (admission != null)
+                admission.close();
         }
         GenericController.removeFromProcessList(session, "segmentationPixelClassifier");
+        return null;
     }
 
     /**
@@ -132,6 +146,7 @@ public class SegmentationPixelClassifierController {
         if (segmentationPixelClassifierHelper == null)
             return;
 
+        JobScheduler.cancelWaiting(session, "segmentationPixelClassifier");
         segmentationPixelClassifierHelper.cancelProcess();
     }
 
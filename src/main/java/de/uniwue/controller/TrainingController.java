@@ -15,7 +15,9 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.ModelAndView;
 
+import de.uniwue.feature.JobScheduler;
 import de.uniwue.helper.TrainingHelper;
+import de.uniwue.model.ConsoleSegment;
 
 /**
  * Controller class for pages of training module
@@ -72,17 +74,24 @@ public class TrainingController {
      * @param session Session of the user
      * @param response Response to the request
      * @param inProcessFlow Indicates if the process is executed within the ProcessFlow
+     * @param async Indicates if the process is executed as a job (the request returns immediately)
+     * @return Identifier of the job if the process is executed asynchronously
      */
     @RequestMapping(value = "/ajax/training/execute", method = RequestMethod.POST)
-    public @ResponseBody void execute(
+    public @ResponseBody String execute(
                @RequestParam(value = "cmdArgs[]", required = false) String[] cmdArgs,
                @RequestParam(value = "trainingId") String trainingId,
                HttpSession session, HttpServletResponse response,
-               @RequestParam(value = "inProcessFlow", required = false, defaultValue = "false") boolean inProcessFlow
+               @RequestParam(value = "inProcessFlow", required = false, defaultValue = "false") boolean inProcessFlow,
+               @RequestParam(value = "async", required = false, defaultValue = "false") boolean async
            ) {
+        if (async)
+            return GenericController.submitJob(session, "training",
+                jobResponse -> execute(cmdArgs, trainingId, session, jobResponse, inProcessFlow, false));
+
         TrainingHelper trainingHelper = provideHelper(session, response);
         if (trainingHelper == null)
-            return;
+            return null;
 
         List<String> cmdArgList = new ArrayList<String>();
         if (cmdArgs != null)
@@ -90,17 +99,23 @@ public class TrainingController {
 
         int conflictType = trainingHelper.getConflictType(GenericController.getProcessList(session), inProcessFlow);
         if (GenericController.hasProcessConflict(session, response, conflictType))
-            return;
+            return null;
 
         GenericController.addToProcessList(session, "training");
+        JobScheduler.Admission admission = null;
         try {
+            admission = JobScheduler.admit("training", session);
             trainingHelper.execute(cmdArgList, session.getAttribute("projectName").toString(), trainingId);
         } catch (IOException e) {
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             trainingHelper.resetProgress();
             e.printStackTrace();
+        } finally {
+            if (admission != null)
+                admission.close();
         }
         GenericController.removeFromProcessList(session, "training");
+        return null;
     }
 
     /**
@@ -115,6 +130,7 @@ public class TrainingController {
         if (trainingHelper == null)
             return;
 
+        JobScheduler.cancelWaiting(session, "training");
         trainingHelper.cancelProcess();
     }
 
@@ -156,6 +172,31 @@ public class TrainingController {
         return trainingHelper.getProcessHandler().getConsoleOut();
     }
 
+    /**
+     * Response to the request to return the console lines of the training process after a given offset
+     * Allows clients to fetch only the new lines instead of the whole console
+     *
+     * @param streamType Type of the console output (out | err)
+     * @param offset Sequence number of the first requested line (end of the previous segment)
+     * @param session Session of the user
+     * @param response Response to the request
+     * @return Console segment (null if session is invalid)
+     */
+    @RequestMapping(value = "/ajax/training/consoleSince" , method = RequestMethod.GET)
+    public @ResponseBody ConsoleSegment consoleSince(
+                @RequestParam("streamType") String streamType,
+                @RequestParam(value = "offset", required = false, defaultValue = "0") long offset,
+                HttpSession session, HttpServletResponse response
+            ) {
+        TrainingHelper trainingHelper = provideHelper(session, response);
+        if (trainingHelper == null)
+            return null;
+
+        if (streamType.equals("err"))
+            return trainingHelper.getProcessHandler().getConsoleErr(offset);
+        return trainingHelper.getProcessHandler().getConsoleOut(offset);
+    }
+
     /**
      * Response to the request to check if old process related files exist
      *
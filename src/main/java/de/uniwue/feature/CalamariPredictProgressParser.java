@@ -0,0 +1,52 @@
+package de.uniwue.feature;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Progress parser for the console output of calamari-predict
+ * Calamari reports its progress with tqdm progress bars (e.g. "Prediction:  45%|####5     | 45/100 [00:03<00:04, 12.30it/s]")
+ * The units of the prediction bar are text lines, which allows a progress below page level
+ * Values are passed as differences, so that parallel calamari processes can report to the same progress object
+ */
+public class CalamariPredictProgressParser implements ProgressLineParser {
+    /**
+     * Pattern of a tqdm progress bar (description, completed units, total units)
+     */
+    private static final Pattern PROGRESS_BAR = Pattern.compile("^\\s*(.*?):?\\s*\\d+%\\|.*\\|\\s*(\\d+)/(\\d+)\\s*\\[");
+
+    /**
+     * Description of the progress bar of the prediction
+     */
+    private static final String PREDICTION_BAR = "Prediction";
+
+    /**
+     * Total units of the last parsed prediction bar
+     */
+    private int lastTotal = 0;
+
+    /**
+     * Completed units of the last parsed prediction bar
+     */
+    private int lastCompleted = 0;
+
+    @Override
+    public boolean parseLine(String line, ProcessProgress progress) {
+        Matcher matcher = PROGRESS_BAR.matcher(line);
+        if (!matcher.find())
+            return false;
+
+        // Progress bars of other stages (e.g. loading of the dataset) are not part of the progress
+        if (matcher.group(1).startsWith(PREDICTION_BAR)) {
+            int total = Integer.parseInt(matcher.group(3));
+            int completed = Integer.parseInt(matcher.group(2));
+            progress.addTotalUnits(total - lastTotal);
+            progress.addCompletedUnits(completed - lastCompleted);
+            lastTotal = total;
+            lastCompleted = completed;
+        }
+
+        // Progress bars are redrawn continuously and would flood the console
+        return true;
+    }
+}
@@ -0,0 +1,128 @@
+package de.uniwue.feature;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.uniwue.model.ConsoleSegment;
+
+/**
+ * Class to store the console output of a process in a bounded ring buffer
+ * Every line gets a sequence number, so that clients can request the lines after a known offset
+ * The oldest lines are dropped if the buffer exceeds its line or character limit
+ */
+public class ConsoleBuffer {
+    /**
+     * Default maximum number of lines held in the buffer
+     */
+    public static final int DEFAULT_MAX_LINES = 10000;
+
+    /**
+     * Default maximum number of characters held in the buffer
+     */
+    public static final int DEFAULT_MAX_CHARS = 4 * 1024 * 1024;
+
+    /**
+     * Counter to assign unique buffer identifiers
+     */
+    private static final AtomicLong bufferIdCounter = new AtomicLong(0);
+
+    /**
+     * Identifier of this buffer
+     */
+    private final long bufferId = bufferIdCounter.incrementAndGet();
+
+    /**
+     * Ring of lines (each line includes its line separator)
+     */
+    private final String[] lines;
+
+    /**
+     * Maximum number of characters held in the buffer
+     */
+    private final long maxChars;
+
+    /**
+     * Sequence number of the oldest line in the buffer
+     */
+    private long first = 0;
+
+    /**
+     * Sequence number of the next line to append
+     */
+    private long next = 0;
+
+    /**
+     * Number of characters currently held in the buffer
+     */
+    private long chars = 0;
+
+    /**
+     * Constructor
+     *
+     * @param maxLines Maximum number of lines held in the buffer
+     * @param maxChars Maximum number of characters held in the buffer
+     */
+    public ConsoleBuffer(int maxLines, long maxChars) {
+        this.lines = new String[Math.max(1, maxLines)];
+        this.maxChars = maxChars;
+    }
+
+    /**
+     * Constructor with the default limits
+     */
+    public ConsoleBuffer() {
+        this(DEFAULT_MAX_LINES, DEFAULT_MAX_CHARS);
+    }
+
+    /**
+     * Appends a line to the buffer (drops the oldest lines if a limit is exceeded)
+     *
+     * @param line Console line (without line separator)
+     */
+    public synchronized void append(String line) {
+        String entry = line + System.lineSeparator();
+        if (next - first == lines.length)
+            dropOldest();
+
+        lines[(int) (next % lines.length)] = entry;
+        chars += entry.length();
+        next++;
+
+        // Keep at least the newest line, even if it exceeds the character limit on its own
+        while (chars > maxChars && next - first > 1)
+            dropOldest();
+    }
+
+    /**
+     * Removes the oldest line from the buffer
+     */
+    private void dropOldest() {
+        int index = (int) (first % lines.length);
+        chars -= lines[index].length();
+        lines[index] = null;
+        first++;
+    }
+
+    /**
+     * Returns all lines held in the buffer
+     *
+     * @return Console content
+     */
+    public String getContent() {
+        return getSince(0).getContent();
+    }
+
+    /**
+     * Returns the lines after the given offset
+     * Offsets of a different buffer (larger than the current sequence number) restart at the oldest line
+     *
+     * @param offset Sequence number of the first requested line
+     * @return Segment with the requested lines that are still held in the buffer
+     */
+    public synchronized ConsoleSegment getSince(long offset) {
+        long start = (offset < first || offset > next) ? first : offset;
+        StringBuilder content = new StringBuilder();
+        for (long sequence = start; sequence < next; sequence++)
+            content.append(lines[(int) (sequence % lines.length)]);
+        return new ConsoleSegment(bufferId, start, next, content.toString());
+    }
+}
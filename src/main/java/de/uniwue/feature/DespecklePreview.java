@@ -0,0 +1,188 @@
+package de.uniwue.feature;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.servlet.http.HttpSessionBindingEvent;
+import javax.servlet.http.HttpSessionBindingListener;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfPoint;
+import org.opencv.core.Scalar;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.Imgproc;
+
+import de.uniwue.model.DespeckleCurve;
+
+/**
+ * Class to preview the despeckling of a binary page with changing settings
+ * The page is decoded and its contours are traced once. Every pixel stores the area of the external
+ * contour whose filled region covers it, so that the pixels removed by a given maximum contour size are
+ * determined by a single comparison. The result matches the despeckling of ImageDespeckle.
+ * Instances are meant to be kept in the session of the user while tuning the settings of a page.
+ */
+public class DespecklePreview implements HttpSessionBindingListener {
+    /**
+     * Area of pixels that are not covered by a contour (never removed)
+     */
+    private static final float NOT_COVERED = Float.MAX_VALUE;
+
+    /**
+     * Source image file of the preview
+     */
+    private final File source;
+
+    /**
+     * Modification time of the source image when it was analyzed
+     */
+    private final long lastModified;
+
+    /**
+     * Gray channel of the binary image
+     */
+    private final Mat gray;
+
+    /**
+     * Area of the covering external contour for every pixel (CV_32F)
+     */
+    private final Mat areas;
+
+    /**
+     * Areas of all external contours in ascending order
+     */
+    private final double[] sortedAreas;
+
+    /**
+     * Constructor
+     * Decodes the binary image and traces the contours of its components
+     *
+     * @param source Binary image file
+     */
+    public DespecklePreview(File source) {
+        this.source = source;
+        this.lastModified = source.lastModified();
+
+        // Convert to gray channel only (binary images sometimes seem to have RGB channels)
+        gray = Imgcodecs.imread(source.getAbsolutePath(), Imgcodecs.IMREAD_GRAYSCALE);
+        areas = new Mat(gray.size(), CvType.CV_32F, new Scalar(NOT_COVERED));
+
+        final ArrayList<MatOfPoint> contours = new ArrayList<MatOfPoint>();
+        try (MatPool.PooledMat inverted = MatPool.acquire(gray.rows(), gray.cols(), CvType.CV_8UC1)) {
+            Core.bitwise_not(gray, inverted.mat());
+            final Mat hierarchy = new Mat();
+            Imgproc.findContours(inverted.mat(), contours, hierarchy, Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE);
+            hierarchy.release();
+        }
+
+        // Pages with a single component are left unchanged by the despeckling
+        sortedAreas = new double[contours.size() > 1 ? contours.size() : 0];
+        for (int i = 0; i < contours.size(); i++) {
+            final MatOfPoint contour = contours.get(i);
+            if (sortedAreas.length > 0) {
+                sortedAreas[i] = Imgproc.contourArea(contour);
+                // Filled regions of external contours do not overlap, since they are not nested in each other
+                Imgproc.drawContours(areas, Collections.singletonList(contour), 0, new Scalar(sortedAreas[i]), Core.FILLED);
+            }
+            contour.release();
+        }
+        Arrays.sort(sortedAreas);
+    }
+
+    /**
+     * Checks if the preview still belongs to the current version of an image file
+     *
+     * @param file Binary image file
+     * @return True if the preview can be reused for the file
+     */
+    public boolean isValidFor(File file) {
+        return source.equals(file) && lastModified == file.lastModified() && !gray.empty();
+    }
+
+    /**
+     * Despeckles the analyzed image
+     *
+     * @param maxContourRemovalSize Maximum size of the contours to be removed
+     * @param illustrationType Standard: the result image shows the resulting binary image |
+     *                         Marked:  the result image shows the resulting binary image and additionally represents the removed contours
+     * @return Resulting binary image (new mat) or null if the preview was released in the meantime
+     */
+    public synchronized Mat despeckle(double maxContourRemovalSize, String illustrationType) {
+        if (gray.empty())
+            return null;
+
+        final Mat result = gray.clone();
+        try (MatPool.PooledMat removed = MatPool.acquire(gray.rows(), gray.cols(), CvType.CV_8UC1)) {
+            Core.compare(areas, new Scalar(maxContourRemovalSize), removed.mat(), Core.CMP_LT);
+            if (illustrationType.equals("marked")) {
+                // Convert to BGR image to be able to draw contours in red
+                Imgproc.cvtColor(result, result, Imgproc.COLOR_GRAY2BGR);
+                result.setTo(new Scalar(0, 0, 255), removed.mat());
+            }
+            else {
+                result.setTo(new Scalar(255), removed.mat());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of contours that are removed for the given maximum contour size
+     *
+     * @param maxContourRemovalSize Maximum size of the contours to be removed
+     * @return Number of removed contours
+     */
+    public int getRemovedCount(double maxContourRemovalSize) {
+        // Index of the first area that is not smaller than the size
+        int low = 0;
+        int high = sortedAreas.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedAreas[mid] < maxContourRemovalSize)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * Returns the number of removed contours for evenly spaced maximum contour sizes
+     *
+     * @param maxSize Largest maximum contour size of the curve
+     * @param steps Number of sizes between 0 and the largest size
+     * @return Curve of the removed contours
+     */
+    public DespeckleCurve getRemovalCurve(double maxSize, int steps) {
+        steps = Math.max(1, steps);
+        double[] thresholds = new double[steps + 1];
+        int[] removed = new int[steps + 1];
+        for (int step = 0; step <= steps; step++) {
+            thresholds[step] = maxSize * step / steps;
+            removed[step] = getRemovedCount(thresholds[step]);
+        }
+        return new DespeckleCurve(sortedAreas.length, thresholds, removed);
+    }
+
+    /**
+     * Releases the native memory of the preview
+     */
+    public synchronized void release() {
+        gray.release();
+        areas.release();
+    }
+
+    @Override
+    public void valueBound(HttpSessionBindingEvent event) { }
+
+    /**
+     * Releases the native memory as soon as the preview is removed from the session or the session expires
+     */
+    @Override
+    public void valueUnbound(HttpSessionBindingEvent event) {
+        release();
+    }
+}
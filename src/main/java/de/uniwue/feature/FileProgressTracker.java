@@ -0,0 +1,329 @@
+package de.uniwue.feature;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Class to track the progress of a process by the output files it writes
+ * All trackers share a single WatchService. Every output directory is registered once and completions
+ * are counted from file events, so that progress requests do not need to access the filesystem.
+ * Files in directories that cannot be watched (or stop being watchable) are checked on every progress request instead.
+ */
+public class FileProgressTracker {
+    /**
+     * WatchService shared by all trackers (created on first usage)
+     */
+    private static WatchService watchService = null;
+
+    /**
+     * Registered directories and their watch keys
+     */
+    private static final Map<Path, WatchKey> watchKeys = new HashMap<Path, WatchKey>();
+
+    /**
+     * Active trackers of every registered directory
+     */
+    private static final Map<Path, Set<FileProgressTracker>> directoryTrackers = new HashMap<Path, Set<FileProgressTracker>>();
+
+    /**
+     * Lock for the shared registration structures
+     */
+    private static final Object registrationLock = new Object();
+
+    /**
+     * Output files that are not written yet (file : key of the unit it belongs to)
+     */
+    private final Map<Path, String> pendingFiles = new ConcurrentHashMap<Path, String>();
+
+    /**
+     * Number of pending output files of every unit (key : count)
+     */
+    private final Map<String, AtomicInteger> pendingFilesPerKey = new ConcurrentHashMap<String, AtomicInteger>();
+
+    /**
+     * Modification times of the output files when tracking started (only used for modification tracking)
+     */
+    private final Map<Path, Long> baselines = new HashMap<Path, Long>();
+
+    /**
+     * Directories that contain output files
+     */
+    private final Set<Path> directories = new HashSet<Path>();
+
+    /**
+     * Directories that could not be watched or whose watch key became invalid (their files are checked on progress requests)
+     */
+    private final Set<Path> polledDirectories = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Number of completed units
+     */
+    private final AtomicInteger completed = new AtomicInteger(0);
+
+    /**
+     * Number of all units
+     */
+    private final int total;
+
+    /**
+     * Determines if existing files need to be modified (true) or only need to exist (false) to count as written
+     */
+    private final boolean trackModification;
+
+    /**
+     * Consumer that is informed about every completed unit (may be null)
+     */
+    private final Consumer<String> completionListener;
+
+    /**
+     * Constructor
+     *
+     * @param outputFiles Output files of every unit (key : absolute file paths), a unit is completed when all its files are written
+     * @param trackModification TRUE => files count as written when they are modified after tracking started
+     *                          FALSE => files count as written as soon as they exist
+     * @param completionListener Consumer that is informed about every completed unit (may be null)
+     */
+    public FileProgressTracker(Map<String, List<String>> outputFiles, boolean trackModification,
+            Consumer<String> completionListener) {
+        this.trackModification = trackModification;
+        this.completionListener = completionListener;
+        this.total = outputFiles.size();
+
+        for (Map.Entry<String, List<String>> unit : outputFiles.entrySet()) {
+            pendingFilesPerKey.put(unit.getKey(), new AtomicInteger(unit.getValue().size()));
+            for (String outputFile : unit.getValue()) {
+                Path file = Paths.get(outputFile).toAbsolutePath().normalize();
+                pendingFiles.put(file, unit.getKey());
+                directories.add(file.getParent());
+            }
+        }
+    }
+
+    /**
+     * Starts tracking the output files
+     * Needs to be called before the process starts writing its output
+     */
+    public void start() {
+        if (trackModification) {
+            for (Path file : pendingFiles.keySet())
+                baselines.put(file, file.toFile().lastModified());
+        }
+
+        synchronized (registrationLock) {
+            for (Path directory : directories) {
+                try {
+                    register(directory);
+                    directoryTrackers.get(directory).add(this);
+                } catch (IOException e) {
+                    polledDirectories.add(directory);
+                }
+            }
+        }
+
+        // Catch files that were written before the directories were registered
+        // (and existing files if they only need to exist)
+        for (Path file : new ArrayList<Path>(pendingFiles.keySet()))
+            checkFile(file);
+    }
+
+    /**
+     * Stops tracking and releases the directory registrations
+     * Pending files are checked a last time, since their events might not be distributed yet
+     */
+    public void close() {
+        for (Path file : new ArrayList<Path>(pendingFiles.keySet()))
+            checkFile(file);
+
+        synchronized (registrationLock) {
+            for (Path directory : directories) {
+                Set<FileProgressTracker> trackers = directoryTrackers.get(directory);
+                if (trackers == null)
+                    continue;
+
+                trackers.remove(this);
+                if (trackers.isEmpty()) {
+                    directoryTrackers.remove(directory);
+                    WatchKey key = watchKeys.remove(directory);
+                    if (key != null)
+                        key.cancel();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of completed units
+     *
+     * @return Number of units whose output files are all written
+     */
+    public int getCompletedCount() {
+        if (!polledDirectories.isEmpty()) {
+            for (Path file : new ArrayList<Path>(pendingFiles.keySet())) {
+                if (polledDirectories.contains(file.getParent()))
+                    checkFile(file);
+            }
+        }
+        return completed.get();
+    }
+
+    /**
+     * Returns the number of all units
+     *
+     * @return Number of units
+     */
+    public int getTotalCount() {
+        return total;
+    }
+
+    /**
+     * Returns the progress of the tracked process
+     *
+     * @return Progress percentage
+     */
+    public int getProgress() {
+        if (total == 0)
+            return 0;
+        return (getCompletedCount() * 100) / total;
+    }
+
+    /**
+     * Checks on the filesystem if a pending output file is written
+     *
+     * @param file Output file
+     */
+    private void checkFile(Path file) {
+        if (!pendingFiles.containsKey(file))
+            return;
+
+        File outputFile = file.toFile();
+        if (trackModification) {
+            Long baseline = baselines.get(file);
+            if (baseline == null || outputFile.lastModified() <= baseline)
+                return;
+        }
+        else if (!outputFile.exists()) {
+            return;
+        }
+
+        String key = pendingFiles.remove(file);
+        if (key != null && pendingFilesPerKey.get(key).decrementAndGet() == 0) {
+            completed.incrementAndGet();
+            if (completionListener != null)
+                completionListener.accept(key);
+        }
+    }
+
+    /**
+     * Checks all pending files of a directory (used if events of the directory got lost)
+     *
+     * @param directory Directory to check
+     */
+    private void checkDirectory(Path directory) {
+        for (Path file : new ArrayList<Path>(pendingFiles.keySet())) {
+            if (file.getParent().equals(directory))
+                checkFile(file);
+        }
+    }
+
+    /**
+     * Registers a directory at the shared WatchService (if not registered yet)
+     * Needs to be called while holding the registration lock
+     *
+     * @param directory Directory to watch
+     * @throws IOException
+     */
+    private static void register(Path directory) throws IOException {
+        if (watchService == null) {
+            watchService = FileSystems.getDefault().newWatchService();
+            Thread watcher = new Thread(FileProgressTracker::processEvents, "FileProgressTracker");
+            watcher.setDaemon(true);
+            watcher.start();
+        }
+
+        if (!watchKeys.containsKey(directory)) {
+            WatchKey key = directory.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            watchKeys.put(directory, key);
+            directoryTrackers.put(directory, new HashSet<FileProgressTracker>());
+        }
+    }
+
+    /**
+     * Distributes the events of the shared WatchService to the trackers of the affected directories
+     */
+    private static void processEvents() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            Path directory = (Path) key.watchable();
+            List<FileProgressTracker> trackers;
+            synchronized (registrationLock) {
+                Set<FileProgressTracker> registered = directoryTrackers.get(directory);
+                trackers = (registered == null) ? new ArrayList<FileProgressTracker>()
+                                                : new ArrayList<FileProgressTracker>(registered);
+            }
+
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    for (FileProgressTracker tracker : trackers)
+                        tracker.checkDirectory(directory);
+                    continue;
+                }
+
+                Path file = directory.resolve((Path) event.context());
+                for (FileProgressTracker tracker : trackers)
+                    tracker.checkFile(file);
+            }
+
+            // The key is invalid if the directory was deleted or became inaccessible
+            if (!key.reset())
+                unregisterInvalid(directory, key);
+        }
+    }
+
+    /**
+     * Removes the registration of a directory whose watch key is no longer valid
+     * Its trackers check the pending files of the directory on progress requests instead
+     *
+     * @param directory Watched directory
+     * @param key Invalid watch key of the directory
+     */
+    private static void unregisterInvalid(Path directory, WatchKey key) {
+        synchronized (registrationLock) {
+            // Keys that were cancelled by closing the last tracker are already removed
+            if (watchKeys.get(directory) != key)
+                return;
+
+            watchKeys.remove(directory);
+            Set<FileProgressTracker> trackers = directoryTrackers.remove(directory);
+            if (trackers == null)
+                return;
+
+            for (FileProgressTracker tracker : trackers) {
+                tracker.polledDirectories.add(directory);
+                tracker.checkDirectory(directory);
+            }
+        }
+    }
+}
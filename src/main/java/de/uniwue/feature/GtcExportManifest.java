@@ -0,0 +1,185 @@
+package de.uniwue.feature;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.springframework.util.DigestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.uniwue.config.ProjectConfiguration;
+import de.uniwue.model.GtcManifest;
+import de.uniwue.model.GtcManifestEntry;
+
+/**
+ * Class to track the files that were shipped by the GTC exports of a project
+ * Files are compared by the hash of their content. The hash of the last export is reused as long as the
+ * size and modification time of a file are unchanged, so that only new or modified files need to be read.
+ * Incremental exports contain complete line pairs: if the line image or the ground truth of a line
+ * changed, all exported files of this line are shipped.
+ */
+public class GtcExportManifest {
+    /**
+     * Name of the archive entry that lists the files that were deleted since the last export
+     */
+    public static final String DELETED_ENTRY = "deleted_files.txt";
+
+    /**
+     * Constructor
+     */
+    private GtcExportManifest() { }
+
+    /**
+     * Loads the export manifest of a project
+     *
+     * @param projConf Project configuration object
+     * @return Export manifest (empty manifest if nothing was exported yet or the file is invalid)
+     */
+    public static GtcManifest load(ProjectConfiguration projConf) {
+        File manifestFile = new File(projConf.GTC_MANIFEST);
+        if (!manifestFile.isFile())
+            return new GtcManifest();
+
+        try {
+            return new ObjectMapper().readValue(manifestFile, GtcManifest.class);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new GtcManifest();
+        }
+    }
+
+    /**
+     * Persists the export manifest of a project
+     *
+     * @param projConf Project configuration object
+     * @param manifest Export manifest
+     * @throws IOException
+     */
+    public static void save(ProjectConfiguration projConf, GtcManifest manifest) throws IOException {
+        File manifestFile = new File(projConf.GTC_MANIFEST);
+        File tmpFile = new File(manifestFile.getAbsolutePath() + ".tmp");
+        new ObjectMapper().writeValue(tmpFile, manifest);
+        Files.move(tmpFile.toPath(), manifestFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Determines the current state of the files of an export
+     * Files are hashed in parallel, unchanged files reuse the hash of the manifest
+     *
+     * @param sources Entries of the export
+     * @param manifest Export manifest of the last export
+     * @return Current state of the files (entry name : file state)
+     * @throws IOException
+     */
+    public static TreeMap<String, GtcManifestEntry> index(List<ParallelZipWriter.Source> sources,
+            GtcManifest manifest) throws IOException {
+        try {
+            return sources.parallelStream()
+                .filter(source -> source.getFile() != null && source.getFile().isFile())
+                .collect(Collectors.toMap(ParallelZipWriter.Source::getName,
+                    source -> getState(source.getFile(), manifest.getEntries().get(source.getName())),
+                    (first, second) -> first, TreeMap::new));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Selects the entries of an incremental export
+     * Contains every line pair with a new or changed file and the directories of these files
+     *
+     * @param sources Entries of the complete export
+     * @param current Current state of the files
+     * @param manifest Export manifest of the last export
+     * @return Entries of the incremental export (in the order of the complete export)
+     */
+    public static List<ParallelZipWriter.Source> selectChanged(List<ParallelZipWriter.Source> sources,
+            Map<String, GtcManifestEntry> current, GtcManifest manifest) {
+        Set<String> changedPairs = new HashSet<String>();
+        for (Map.Entry<String, GtcManifestEntry> entry : current.entrySet()) {
+            GtcManifestEntry previous = manifest.getEntries().get(entry.getKey());
+            if (previous == null || !previous.getHash().equals(entry.getValue().getHash()))
+                changedPairs.add(getPairKey(entry.getKey()));
+        }
+
+        Set<String> selectedDirs = new HashSet<String>();
+        Set<ParallelZipWriter.Source> selectedFiles = new HashSet<ParallelZipWriter.Source>();
+        for (ParallelZipWriter.Source source : sources) {
+            if (!current.containsKey(source.getName()) || !changedPairs.contains(getPairKey(source.getName())))
+                continue;
+
+            selectedFiles.add(source);
+            for (int separator = source.getName().indexOf('/'); separator > -1;
+                    separator = source.getName().indexOf('/', separator + 1))
+                selectedDirs.add(source.getName().substring(0, separator + 1));
+        }
+
+        List<ParallelZipWriter.Source> selected = new ArrayList<ParallelZipWriter.Source>();
+        for (ParallelZipWriter.Source source : sources) {
+            if (selectedDirs.contains(source.getName()) || selectedFiles.contains(source))
+                selected.add(source);
+        }
+        return selected;
+    }
+
+    /**
+     * Lists the exported files that no longer exist
+     *
+     * @param manifest Export manifest of the last export
+     * @param baseDir Directory the entry names are relative to
+     * @return Entry names of the deleted files
+     */
+    public static List<String> getDeleted(GtcManifest manifest, File baseDir) {
+        List<String> deleted = new ArrayList<String>();
+        for (String name : manifest.getEntries().keySet()) {
+            if (!new File(baseDir, name).isFile())
+                deleted.add(name);
+        }
+        return deleted;
+    }
+
+    /**
+     * Determines the state of a file
+     *
+     * @param file File to check
+     * @param previous State of the file in the manifest (can be null)
+     * @return Current state of the file
+     */
+    private static GtcManifestEntry getState(File file, GtcManifestEntry previous) {
+        long size = file.length();
+        long lastModified = file.lastModified();
+        if (previous != null && previous.getSize() == size && previous.getLastModified() == lastModified)
+            return new GtcManifestEntry(size, lastModified, previous.getHash());
+
+        try (InputStream in = new FileInputStream(file)) {
+            return new GtcManifestEntry(size, lastModified, DigestUtils.md5DigestAsHex(in));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the line pair an entry belongs to
+     * Files of a line share the name up to the first dot (e.g. 0001/00010001.bin.png and 0001/00010001.gt.txt)
+     *
+     * @param name Entry name
+     * @return Key of the line pair
+     */
+    private static String getPairKey(String name) {
+        int nameStart = name.lastIndexOf('/') + 1;
+        int extStart = name.indexOf('.', nameStart);
+        return (extStart > -1) ? name.substring(0, extStart) : name;
+    }
+}
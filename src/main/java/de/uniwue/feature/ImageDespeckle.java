@@ -3,15 +3,25 @@ package de.uniwue.feature;
 import java.util.ArrayList;
 
 import org.opencv.core.Core;
+import org.opencv.core.CvType;
 import org.opencv.core.Mat;
 import org.opencv.core.MatOfPoint;
+import org.opencv.core.Point;
 import org.opencv.core.Scalar;
 import org.opencv.imgproc.Imgproc;
 
 /**
  * Class to despeckle images
+ * Contours are removed if their area (as calculated by contourArea) is smaller than the given size.
+ * The areas of small components are bounded with connected component statistics, so that only the
+ * contours of components that could exceed the size need to be traced.
  */
 public class ImageDespeckle {
+    /**
+     * Value to mark the background that is connected to the outside of the image
+     */
+    private static final int OUTSIDE = 128;
+
     /**
      * Constructor
      */
@@ -22,7 +32,7 @@ public class ImageDespeckle {
      *
      * @param binary Mat of the binary image
      * @param maxContourRemovalSize Maximum size of the contours to be removed
-     * @param illustrationType Standard: the result image shows the resulting binary image | 
+     * @param illustrationType Standard: the result image shows the resulting binary image |
      *                         Marked:  the result image shows the resulting binary image and additionally represents the removed contours
      * @return Resulting binary image (new mat)
      */
@@ -31,40 +41,168 @@ public class ImageDespeckle {
         final Mat result = new Mat();
         Imgproc.cvtColor(binary, result, Imgproc.COLOR_RGB2GRAY);
 
-        final Mat inverted = new Mat();
-        Core.bitwise_not(result, inverted);
-
-        final ArrayList<MatOfPoint> contours = new ArrayList<MatOfPoint>();
-        final Mat hierarchy = new Mat();
-        Imgproc.findContours(inverted, contours, hierarchy, Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE);
-        inverted.release();
-        hierarchy.release();
-
-        if (contours.size() > 1) {
-            final ArrayList<MatOfPoint> toRemove = new ArrayList<MatOfPoint>();
-            for (final MatOfPoint contour : contours) {
-                double area = Imgproc.contourArea(contour);
-                if (area < maxContourRemovalSize) {
-                    toRemove.add(contour);
+        // Temporary images are taken from the pool, since pages of a project mostly share their dimensions
+        final int rows = result.rows();
+        final int cols = result.cols();
+        try (MatPool.PooledMat inverted = MatPool.acquire(rows, cols, CvType.CV_8UC1);
+             MatPool.PooledMat labels = MatPool.acquire(rows, cols, CvType.CV_32S)) {
+            Core.bitwise_not(result, inverted.mat());
+
+            final Mat stats = new Mat();
+            final Mat centroids = new Mat();
+            final int componentCount = Imgproc.connectedComponentsWithStats(inverted.mat(), labels.mat(), stats, centroids,
+                8, CvType.CV_32S) - 1;
+            centroids.release();
+
+            // Only components that are not nested in the holes of other components have an external contour
+            final boolean[] external = new boolean[componentCount + 1];
+            final int externalCount = findExternalComponents(inverted.mat(), labels.mat(), external);
+            if (externalCount <= 1) {
+                stats.release();
+                return result;
+            }
+
+            final int[] componentStats = new int[(componentCount + 1) * Imgproc.CC_STAT_MAX];
+            stats.get(0, 0, componentStats);
+            stats.release();
+
+            // The contour runs through the centers of the border pixels, its area is bounded by the bounding box
+            // Components whose bounding box is too small are removed without tracing their contour
+            final boolean[] remove = new boolean[componentCount + 1];
+            final boolean[] uncertain = new boolean[componentCount + 1];
+            boolean anyUncertain = false;
+            for (int label = 1; label <= componentCount; label++) {
+                if (!external[label])
+                    continue;
+
+                int offset = label * Imgproc.CC_STAT_MAX;
+                double boundingArea = (double) (componentStats[offset + Imgproc.CC_STAT_WIDTH] - 1)
+                    * (componentStats[offset + Imgproc.CC_STAT_HEIGHT] - 1);
+                if (boundingArea < maxContourRemovalSize) {
+                    remove[label] = true;
                 } else {
+                    uncertain[label] = true;
+                    anyUncertain = true;
+                }
+            }
+
+            // Trace the contours of the remaining components to determine their exact area
+            if (anyUncertain) {
+                // The inverted image is not needed anymore and is reused as mask
+                createMask(labels.mat(), uncertain, inverted.mat());
+                final ArrayList<MatOfPoint> contours = new ArrayList<MatOfPoint>();
+                final Mat hierarchy = new Mat();
+                Imgproc.findContours(inverted.mat(), contours, hierarchy, Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE);
+                hierarchy.release();
+
+                final int[] start = new int[2];
+                final int[] label = new int[1];
+                for (final MatOfPoint contour : contours) {
+                    // The first point of a contour belongs to its component
+                    contour.get(0, 0, start);
+                    labels.mat().get(start[1], start[0], label);
+                    if (Imgproc.contourArea(contour) < maxContourRemovalSize)
+                        remove[label[0]] = true;
                     contour.release();
                 }
             }
 
+            // Filled contours cover the holes of the components (and the components nested in them) as well
+            try (MatPool.PooledMat padded = MatPool.acquire(rows + 2, cols + 2, CvType.CV_8UC1)) {
+                padded.mat().setTo(new Scalar(0));
+                createMask(labels.mat(), remove, padded.mat().submat(1, rows + 1, 1, cols + 1));
+                // The inverted image is reused as the resulting mask
+                fillHoles(padded.mat(), inverted.mat());
+            }
+
             if (illustrationType.equals("marked")) {
                 // Convert to BGR image to be able to draw contours in red
                 Imgproc.cvtColor(result, result, Imgproc.COLOR_GRAY2BGR);
-                Imgproc.drawContours(result, toRemove, -1, new Scalar(0, 0, 255), -1);
+                result.setTo(new Scalar(0, 0, 255), inverted.mat());
             }
             else {
-                Imgproc.drawContours(result, toRemove, -1, new Scalar(255), -1);
+                result.setTo(new Scalar(255), inverted.mat());
             }
+        }
 
-            for(final MatOfPoint contour: toRemove){
-                contour.release();
+        return result;
+    }
+
+    /**
+     * Determines the components that are not nested in the holes of other components
+     * A component is external if the pixel above its topmost row belongs to the background around the image
+     *
+     * @param foreground Image with nonzero foreground pixels
+     * @param labels Label image of the components (CV_32S)
+     * @param external Array to store the external state of every label
+     * @return Number of external components
+     */
+    private static int findExternalComponents(final Mat foreground, final Mat labels, final boolean[] external) {
+        try (MatPool.PooledMat padded = MatPool.acquire(foreground.rows() + 2, foreground.cols() + 2, CvType.CV_8UC1)) {
+            // Mark the background that is 4-connected to the outside of the image
+            Core.copyMakeBorder(foreground, padded.mat(), 1, 1, 1, 1, Core.BORDER_CONSTANT, new Scalar(0));
+            Imgproc.threshold(padded.mat(), padded.mat(), 0, 255, Imgproc.THRESH_BINARY);
+            floodFillOutside(padded.mat());
+
+            int externalCount = 0;
+            final int[] labelRow = new int[labels.cols()];
+            final byte[] aboveRow = new byte[padded.mat().cols()];
+            for (int y = 0; y < labels.rows(); y++) {
+                labels.get(y, 0, labelRow);
+                // Row y of the padded image lies above row y of the labels
+                padded.mat().get(y, 0, aboveRow);
+                for (int x = 0; x < labelRow.length; x++) {
+                    int label = labelRow[x];
+                    if (label != 0 && !external[label] && (aboveRow[x + 1] & 0xFF) == OUTSIDE) {
+                        external[label] = true;
+                        externalCount++;
+                    }
+                }
             }
+            return externalCount;
         }
+    }
 
-        return result;
+    /**
+     * Writes a mask of the selected components
+     *
+     * @param labels Label image of the components (CV_32S)
+     * @param selected Selection state of every label
+     * @param mask Mat of the size of the labels to write 255 for pixels of selected components and 0 otherwise (CV_8UC1)
+     */
+    private static void createMask(final Mat labels, final boolean[] selected, final Mat mask) {
+        final int[] labelRow = new int[labels.cols()];
+        final byte[] maskRow = new byte[labels.cols()];
+        for (int y = 0; y < labels.rows(); y++) {
+            labels.get(y, 0, labelRow);
+            for (int x = 0; x < labelRow.length; x++)
+                maskRow[x] = selected[labelRow[x]] ? (byte) 255 : 0;
+            mask.put(y, 0, maskRow);
+        }
+    }
+
+    /**
+     * Fills the holes of the components in a mask
+     * Holes are background regions that are not 4-connected to the outside of the image
+     *
+     * @param padded Mask of the components with a border of 1 background pixel (modified by this function)
+     * @param filled Mat of the size of the unpadded mask to write the mask with filled holes to
+     */
+    private static void fillHoles(final Mat padded, final Mat filled) {
+        floodFillOutside(padded);
+        Core.compare(padded.submat(1, padded.rows() - 1, 1, padded.cols() - 1), new Scalar(OUTSIDE), filled, Core.CMP_NE);
+    }
+
+    /**
+     * Marks the background that is 4-connected to the top left pixel with the value OUTSIDE
+     *
+     * @param padded Mask with a border of background pixels (modified by this function)
+     */
+    private static void floodFillOutside(final Mat padded) {
+        try (MatPool.PooledMat floodMask = MatPool.acquire(padded.rows() + 2, padded.cols() + 2, CvType.CV_8UC1)) {
+            floodMask.mat().setTo(new Scalar(0));
+            Imgproc.floodFill(padded, floodMask.mat(), new Point(0, 0), new Scalar(OUTSIDE), null,
+                new Scalar(0), new Scalar(0), 4);
+        }
     }
 }
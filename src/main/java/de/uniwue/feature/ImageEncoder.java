@@ -0,0 +1,210 @@
+package de.uniwue.feature;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.pdfbox.tools.imageio.ImageIOUtil;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.core.MatOfInt;
+import org.opencv.core.Scalar;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.uniwue.config.ProjectConfiguration;
+import de.uniwue.model.ImageEncodingBenchmark;
+import de.uniwue.model.ImageEncodingProfile;
+
+/**
+ * Class to write the images of a project with the encoding profile of the project
+ * Bitonal images can be stored with a bit depth of 1, which is lossless for images with the values 0 and 255
+ */
+public class ImageEncoder {
+    /**
+     * Constructor
+     */
+    private ImageEncoder() { }
+
+    /**
+     * Loads the encoding profile of a project
+     *
+     * @param projConf Project configuration object
+     * @return Encoding profile (default profile if none is set or the file is invalid)
+     */
+    public static ImageEncodingProfile getProfile(ProjectConfiguration projConf) {
+        File profileFile = new File(projConf.ENCODING_PROFILE);
+        if (!profileFile.isFile())
+            return new ImageEncodingProfile();
+
+        try {
+            return new ObjectMapper().readValue(profileFile, ImageEncodingProfile.class);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new ImageEncodingProfile();
+        }
+    }
+
+    /**
+     * Persists the encoding profile of a project
+     *
+     * @param projConf Project configuration object
+     * @param profile Encoding profile
+     * @throws IOException
+     */
+    public static void saveProfile(ProjectConfiguration projConf, ImageEncodingProfile profile) throws IOException {
+        File profileFile = new File(projConf.ENCODING_PROFILE);
+        File tmpFile = new File(profileFile.getAbsolutePath() + ".tmp");
+        new ObjectMapper().writeValue(tmpFile, profile);
+        Files.move(tmpFile.toPath(), profileFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Writes an image as PNG with the given profile
+     *
+     * @param path Path of the image file
+     * @param img Mat of the image
+     * @param profile Encoding profile
+     * @return True if the image was written
+     */
+    public static boolean write(String path, final Mat img, ImageEncodingProfile profile) {
+        final MatOfInt params = getParams(img, profile);
+        boolean written = Imgcodecs.imwrite(path, img, params);
+        params.release();
+        return written;
+    }
+
+    /**
+     * Writes an image that was rendered by PDFBox as PNG with the given profile
+     * The compression level of a chosen profile is passed as quality to ImageIO, the DPI are stored in the metadata
+     *
+     * @param img Rendered image
+     * @param path Path of the image file
+     * @param dpi Resolution of the rendered image
+     * @param profile Encoding profile
+     * @return True if the image was written
+     * @throws IOException
+     */
+    public static boolean write(BufferedImage img, String path, int dpi, ImageEncodingProfile profile) throws IOException {
+        if (!profile.isCustomized())
+            return ImageIOUtil.writeImage(img, path, dpi);
+        return ImageIOUtil.writeImage(img, path, dpi, 1.0f - profile.getCompressionLevel() / 9.0f);
+    }
+
+    /**
+     * Encodes an existing image file again with the given profile
+     * Used for images that are written by external tools
+     *
+     * @param imageFile Image file
+     * @param profile Encoding profile
+     * @throws IOException
+     */
+    public static void recompress(File imageFile, ImageEncodingProfile profile) throws IOException {
+        final Mat img = Imgcodecs.imread(imageFile.getAbsolutePath(), Imgcodecs.IMREAD_UNCHANGED);
+        if (img.empty())
+            return;
+
+        try {
+            // Write to a temporary file first, so that the image is never incomplete
+            File tmpFile = new File(imageFile.getParentFile(), "." + imageFile.getName() + ".tmp.png");
+            if (!write(tmpFile.getAbsolutePath(), img, profile))
+                throw new IOException("Could not encode " + imageFile.getName());
+            Files.move(tmpFile.toPath(), imageFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            img.release();
+        }
+    }
+
+    /**
+     * Encodes an image with every predefined profile and the given profile
+     *
+     * @param imageFile Image file
+     * @param imageType Type of the image (e.g. Binary)
+     * @param projectProfile Encoding profile of the project
+     * @return Encoded size and encoding time of every profile
+     */
+    public static List<ImageEncodingBenchmark> benchmark(File imageFile, String imageType, ImageEncodingProfile projectProfile) {
+        List<ImageEncodingBenchmark> results = new ArrayList<ImageEncodingBenchmark>();
+        final Mat img = Imgcodecs.imread(imageFile.getAbsolutePath(), Imgcodecs.IMREAD_UNCHANGED);
+        if (img.empty())
+            return results;
+
+        List<ImageEncodingProfile> profiles = new ArrayList<ImageEncodingProfile>(ImageEncodingProfile.getPresets());
+        if (ImageEncodingProfile.getPreset(projectProfile.getName()) == null)
+            profiles.add(projectProfile);
+
+        for (ImageEncodingProfile profile : profiles) {
+            final MatOfInt params = getParams(img, profile);
+            final MatOfByte encoded = new MatOfByte();
+            long start = System.nanoTime();
+            Imgcodecs.imencode(".png", img, encoded, params);
+            double milliseconds = (System.nanoTime() - start) / 1e6;
+            results.add(new ImageEncodingBenchmark(profile.getName(), imageType, encoded.total(), milliseconds));
+            encoded.release();
+            params.release();
+        }
+        img.release();
+        return results;
+    }
+
+    /**
+     * Builds the imwrite parameters of a profile
+     * The default profile uses no parameters, as OpenCV only applies its own defaults (level 1, SUB filter and
+     * rle strategy) if no compression parameter is passed
+     *
+     * @param img Mat of the image
+     * @param profile Encoding profile
+     * @return Imwrite parameters
+     */
+    private static MatOfInt getParams(final Mat img, ImageEncodingProfile profile) {
+        if (!profile.isCustomized())
+            return new MatOfInt();
+
+        boolean bilevel = profile.isBilevel() && isBitonal(img);
+        return new MatOfInt(
+            Imgcodecs.IMWRITE_PNG_COMPRESSION, profile.getCompressionLevel(),
+            Imgcodecs.IMWRITE_PNG_STRATEGY, getStrategy(profile.getStrategy()),
+            Imgcodecs.IMWRITE_PNG_BILEVEL, bilevel ? 1 : 0
+        );
+    }
+
+    /**
+     * Checks if an image is a single channel image with the values 0 and 255 only
+     *
+     * @param img Mat of the image
+     * @return True if the image can be stored with a bit depth of 1 without loss
+     */
+    public static boolean isBitonal(final Mat img) {
+        if (img.channels() != 1 || img.depth() != CvType.CV_8U)
+            return false;
+
+        final Mat gray = new Mat();
+        Core.inRange(img, new Scalar(1), new Scalar(254), gray);
+        boolean bitonal = Core.countNonZero(gray) == 0;
+        gray.release();
+        return bitonal;
+    }
+
+    /**
+     * Converts the name of a zlib strategy to its imwrite value
+     *
+     * @param strategy Name of the strategy
+     * @return Imwrite value of the strategy
+     */
+    private static int getStrategy(String strategy) {
+        switch (strategy) {
+            case "filtered": return Imgcodecs.IMWRITE_PNG_STRATEGY_FILTERED;
+            case "huffman":  return Imgcodecs.IMWRITE_PNG_STRATEGY_HUFFMAN_ONLY;
+            case "rle":      return Imgcodecs.IMWRITE_PNG_STRATEGY_RLE;
+            case "fixed":    return Imgcodecs.IMWRITE_PNG_STRATEGY_FIXED;
+            default:         return Imgcodecs.IMWRITE_PNG_STRATEGY_DEFAULT;
+        }
+    }
+}
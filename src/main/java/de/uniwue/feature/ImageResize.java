@@ -1,7 +1,13 @@
 package de.uniwue.feature;
 
 import java.awt.Dimension;
+import java.io.File;
 import java.io.IOException;
+import java.util.Iterator;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 
 import org.opencv.core.Mat;
 import org.opencv.core.Size;
@@ -30,6 +36,33 @@ public class ImageResize {
         this.resizeHeight = resizeHeight == null ? -1 : resizeHeight;
     }
 
+    /**
+     * Gets the width to which images are resized
+     *
+     * @return Width in pixels (-1 if scaled by height)
+     */
+    public int getResizeWidth() {
+        return resizeWidth;
+    }
+
+    /**
+     * Gets the height to which images are resized
+     *
+     * @return Height in pixels (-1 if scaled by width)
+     */
+    public int getResizeHeight() {
+        return resizeHeight;
+    }
+
+    /**
+     * Checks if a width or height to resize to is set
+     *
+     * @return True if images are scaled, false if they keep their size
+     */
+    public boolean isResizing() {
+        return resizeWidth != -1 || resizeHeight != -1;
+    }
+
     /**
      * Resizes an image file
      *
@@ -38,33 +71,136 @@ public class ImageResize {
      * @throws IOException 
      */
     public Mat getScaledImage(final Mat img) throws IOException {
-        Dimension dimension = getDimension(img);
+        Dimension dimension = getDimension(img.cols(), img.rows());
         if (dimension != null) {
-            Imgproc.resize(img, img, new Size(dimension.width, dimension.height) );
+            Imgproc.resize(img, img, new Size(dimension.width, dimension.height), 0, 0,
+                getInterpolation(img, dimension));
         }
 
         return img;
     }
 
     /**
-     * Calculates the dimension of the image if only height or width is handed over
+     * Resizes an image into a buffer of the MatPool
+     * The given image stays unchanged, which avoids a new native allocation for every scaled image
+     *
+     * @param img Mat of the img
+     * @return Buffer with the scaled image (a copy if no scaling is required), needs to be closed after usage
+     */
+    public MatPool.PooledMat getPooledScaledImage(final Mat img) {
+        return getPooledScaledImage(img, new Dimension(img.cols(), img.rows()));
+    }
+
+    /**
+     * Resizes an image that was decoded with a reduced resolution into a buffer of the MatPool
+     * The size of the result is calculated from the size of the source, so that it matches the size
+     * of a scaled image that was decoded with the full resolution
+     *
+     * @param img Mat of the img
+     * @param sourceSize Size of the source image
+     * @return Buffer with the scaled image (a copy if no scaling is required), needs to be closed after usage
+     */
+    public MatPool.PooledMat getPooledScaledImage(final Mat img, Dimension sourceSize) {
+        Dimension dimension = getDimension(sourceSize.width, sourceSize.height);
+        if (dimension == null) {
+            MatPool.PooledMat copy = MatPool.acquire(img.rows(), img.cols(), img.type());
+            img.copyTo(copy.mat());
+            return copy;
+        }
+
+        MatPool.PooledMat scaled = MatPool.acquire(dimension.height, dimension.width, img.type());
+        Imgproc.resize(img, scaled.mat(), new Size(dimension.width, dimension.height), 0, 0,
+            getInterpolation(img, dimension));
+        return scaled;
+    }
+
+    /**
+     * Determines the factor by which an image can be reduced while decoding
+     * The reduced image keeps at least twice the target size, so that the final INTER_AREA
+     * downscaling works on a larger image than the result.
+     * Only JPEG images are reduced by the decoder itself (DCT scaling). Other formats are decoded
+     * with the full resolution and then shrunk with INTER_LINEAR, which skips source pixels for
+     * larger factors, so their reduction is limited to 2.
+     *
+     * @param sourceSize Size of the source image
+     * @param jpeg True if the source is a JPEG image
+     * @return Reduction factor (1, 2, 4 or 8)
+     */
+    public int getDecodeReduction(Dimension sourceSize, boolean jpeg) {
+        Dimension dimension = getDimension(sourceSize.width, sourceSize.height);
+        if (dimension == null || dimension.width <= 0 || dimension.height <= 0)
+            return 1;
+
+        double factor = Math.min((double) sourceSize.width / dimension.width,
+            (double) sourceSize.height / dimension.height) / 2;
+        int maxReduction = jpeg ? 8 : 2;
+        int reduction = 1;
+        while (reduction < maxReduction && reduction * 2 <= factor)
+            reduction *= 2;
+        return reduction;
+    }
+
+    /**
+     * Reads the size of an image file from its header without decoding the image
+     *
+     * @param imageFile Image file
+     * @return Size of the image (null if the format cannot be read by ImageIO)
+     */
+    public static Dimension readImageSize(File imageFile) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(imageFile)) {
+            if (input == null)
+                return null;
+
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext())
+                return null;
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                return new Dimension(reader.getWidth(0), reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Determines the interpolation for resizing an image
+     * INTER_AREA avoids aliasing when shrinking, but is blocky when enlarging
      *
      * @param img The image to be scaled
+     * @param dimension Target dimension
+     * @return OpenCV interpolation flag
+     */
+    private int getInterpolation(final Mat img, Dimension dimension) {
+        if (dimension.width < img.cols() && dimension.height < img.rows())
+            return Imgproc.INTER_AREA;
+        return Imgproc.INTER_LINEAR;
+    }
+
+    /**
+     * Calculates the dimension of the image if only height or width is handed over
+     *
+     * @param cols Width of the image to be scaled
+     * @param rows Height of the image to be scaled
      * @return Calculated dimension
      */
-    private Dimension getDimension(final Mat img) {
+    private Dimension getDimension(int cols, int rows) {
         Dimension dimension = null;
         if (resizeHeight != -1 || resizeWidth != -1) {
             if (resizeHeight != -1 && resizeWidth != -1) {
                 return new Dimension(resizeWidth,resizeHeight);
             }
             else if (resizeHeight == -1) {
-                double factor = (double) img.cols() / resizeWidth;
-                return new Dimension(resizeWidth, (int) (img.rows() / factor));
+                double factor = (double) cols / resizeWidth;
+                return new Dimension(resizeWidth, (int) (rows / factor));
             }
             else {
-                double factor = (double) img.rows() / resizeHeight;
-                return new Dimension((int) (img.cols() / factor), resizeHeight);
+                double factor = (double) rows / resizeHeight;
+                return new Dimension((int) (cols / factor), resizeHeight);
             }
         }
         return dimension;
@@ -0,0 +1,339 @@
+package de.uniwue.feature;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+import de.uniwue.model.JobStatus;
+
+/**
+ * Class to execute processes as jobs outside of the request threads
+ * The request that submits a job returns its identifier immediately. The process is executed by a bounded
+ * pool of workers and reports its result through a JobResponse. Jobs belong to the session that submitted
+ * them and are kept for a limited time after they ended, so that their state can still be requested.
+ */
+public class JobManager {
+    /**
+     * Default number of jobs that are executed at the same time
+     * The resources of the executed processes are limited by the JobScheduler, workers that exceed them wait
+     */
+    public static final int DEFAULT_MAX_RUNNING_JOBS = 32;
+
+    /**
+     * Time in milliseconds that ended jobs are kept
+     */
+    private static final long ENDED_JOB_RETENTION = 24L * 60 * 60 * 1000;
+
+    /**
+     * Maximum number of ended jobs that are kept
+     */
+    private static final int MAX_ENDED_JOBS = 100;
+
+    /**
+     * Number of the next worker thread
+     */
+    private static final AtomicInteger workerNumber = new AtomicInteger(1);
+
+    /**
+     * Workers that execute the jobs (idle workers are terminated)
+     */
+    private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+        DEFAULT_MAX_RUNNING_JOBS, DEFAULT_MAX_RUNNING_JOBS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+        // Terminated workers release the buffers that the jobs pooled on them
+        MatPool.releasingThreadFactory(runnable -> {
+            Thread thread = new Thread(runnable, "process-job-" + workerNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        })
+    );
+    static {
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * All known jobs in order of submission (job id : job)
+     */
+    private static final Map<String, Job> jobs = new LinkedHashMap<String, Job>();
+
+    /**
+     * Class for a process that is executed as a job
+     */
+    public static class Job {
+        /**
+         * Identifier of the job
+         */
+        private final String jobId = UUID.randomUUID().toString();
+
+        /**
+         * Name of the executed process
+         */
+        private final String process;
+
+        /**
+         * Session that submitted the job
+         */
+        private final HttpSession session;
+
+        /**
+         * Response that records the status of the process
+         */
+        private final JobResponse response = new JobResponse();
+
+        /**
+         * State of the job
+         */
+        private volatile String state = JobStatus.QUEUED;
+
+        /**
+         * Indicates that the job should be cancelled
+         */
+        private volatile boolean cancelRequested = false;
+
+        /**
+         * Time of submission in milliseconds
+         */
+        private final long submitted = System.currentTimeMillis();
+
+        /**
+         * Time when the execution started in milliseconds
+         */
+        private volatile long started = 0;
+
+        /**
+         * Time when the execution ended in milliseconds
+         */
+        private volatile long finished = 0;
+
+        /**
+         * Future of the execution
+         */
+        private volatile Future<?> future;
+
+        /**
+         * Worker that executes the job
+         */
+        private volatile Thread worker;
+
+        /**
+         * Constructor
+         *
+         * @param process Name of the executed process
+         * @param session Session that submitted the job
+         */
+        private Job(String process, HttpSession session) {
+            this.process = process;
+            this.session = session;
+        }
+
+        /**
+         * Executes the process (called by the workers)
+         *
+         * @param work Process execution
+         */
+        private void run(Consumer<HttpServletResponse> work) {
+            if (cancelRequested) {
+                finished = System.currentTimeMillis();
+                state = JobStatus.CANCELLED;
+                return;
+            }
+
+            started = System.currentTimeMillis();
+            state = JobStatus.RUNNING;
+            worker = Thread.currentThread();
+            try {
+                work.accept(response);
+            } catch (RuntimeException e) {
+                response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                e.printStackTrace();
+            }
+            worker = null;
+            finished = System.currentTimeMillis();
+
+            if (cancelRequested)
+                state = JobStatus.CANCELLED;
+            else if (response.getStatus() == HttpServletResponse.SC_OK)
+                state = JobStatus.FINISHED;
+            else
+                state = JobStatus.FAILED;
+        }
+
+        /**
+         * Gets the identifier of the job
+         *
+         * @return Identifier of the job
+         */
+        public String getJobId() {
+            return jobId;
+        }
+
+        /**
+         * Gets the name of the executed process
+         *
+         * @return Name of the process
+         */
+        public String getProcess() {
+            return process;
+        }
+
+        /**
+         * Gets the session that submitted the job
+         *
+         * @return Session of the user
+         */
+        public HttpSession getSession() {
+            return session;
+        }
+
+        /**
+         * Checks if the job is still queued or running
+         *
+         * @return True if the job did not end yet
+         */
+        public boolean isActive() {
+            return state.equals(JobStatus.QUEUED) || state.equals(JobStatus.RUNNING);
+        }
+
+        /**
+         * Marks the job to be cancelled
+         * Queued jobs are removed from the queue, running processes need to be cancelled by their controller
+         *
+         * @return True if the job is running and its process needs to be cancelled
+         */
+        public boolean requestCancel() {
+            if (!isActive())
+                return false;
+
+            cancelRequested = true;
+            if (future.cancel(false)) {
+                finished = System.currentTimeMillis();
+                state = JobStatus.CANCELLED;
+                return false;
+            }
+            return state.equals(JobStatus.RUNNING);
+        }
+
+        /**
+         * Returns the current state of the job
+         * Running jobs whose process waits for resources of the server are reported as queued
+         *
+         * @return State of the job
+         */
+        public JobStatus getStatus() {
+            String currentState = state;
+            Thread currentWorker = worker;
+            if (currentState.equals(JobStatus.RUNNING) && currentWorker != null && JobScheduler.isWaiting(currentWorker))
+                currentState = JobStatus.QUEUED;
+            return new JobStatus(jobId, process, currentState, response.getStatus(), submitted, started, finished);
+        }
+    }
+
+    /**
+     * Constructor
+     */
+    private JobManager() { }
+
+    /**
+     * Submits a process to be executed as a job
+     *
+     * @param process Name of the executed process
+     * @param session Session of the user
+     * @param work Process execution (reports errors with the status of the given response)
+     * @return Submitted job
+     */
+    public static Job submit(String process, HttpSession session, Consumer<HttpServletResponse> work) {
+        Job job = new Job(process, session);
+        synchronized (jobs) {
+            removeEndedJobs();
+            jobs.put(job.getJobId(), job);
+            job.future = executor.submit(() -> job.run(work));
+        }
+        return job;
+    }
+
+    /**
+     * Gets a job of a session
+     *
+     * @param jobId Identifier of the job
+     * @param session Session of the user
+     * @return Job or null if the session has no job with this identifier
+     */
+    public static Job getJob(String jobId, HttpSession session) {
+        synchronized (jobs) {
+            Job job = jobs.get(jobId);
+            if (job == null || !job.getSession().getId().equals(session.getId()))
+                return null;
+            return job;
+        }
+    }
+
+    /**
+     * Returns the states of all jobs of a session
+     *
+     * @param session Session of the user
+     * @return States of the jobs in order of submission
+     */
+    public static List<JobStatus> getJobs(HttpSession session) {
+        List<JobStatus> states = new ArrayList<JobStatus>();
+        synchronized (jobs) {
+            for (Job job : jobs.values()) {
+                if (job.getSession().getId().equals(session.getId()))
+                    states.add(job.getStatus());
+            }
+        }
+        return states;
+    }
+
+    /**
+     * Sets the number of jobs that are executed at the same time
+     *
+     * @param maxRunningJobs Number of jobs
+     */
+    public static void setMaxRunningJobs(int maxRunningJobs) {
+        maxRunningJobs = Math.max(1, maxRunningJobs);
+        // The maximum size must never be smaller than the core size
+        if (maxRunningJobs > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(maxRunningJobs);
+            executor.setCorePoolSize(maxRunningJobs);
+        } else {
+            executor.setCorePoolSize(maxRunningJobs);
+            executor.setMaximumPoolSize(maxRunningJobs);
+        }
+    }
+
+    /**
+     * Removes jobs that ended before the retention time or exceed the number of kept jobs
+     * Needs to be called with the lock of the jobs
+     */
+    private static void removeEndedJobs() {
+        long now = System.currentTimeMillis();
+        int endedCount = 0;
+        for (Job job : jobs.values()) {
+            if (!job.isActive())
+                endedCount++;
+        }
+
+        Iterator<Job> iterator = jobs.values().iterator();
+        while (iterator.hasNext()) {
+            Job job = iterator.next();
+            if (job.isActive())
+                continue;
+
+            if (endedCount > MAX_ENDED_JOBS || now - job.finished > ENDED_JOB_RETENTION) {
+                iterator.remove();
+                endedCount--;
+            }
+        }
+    }
+}
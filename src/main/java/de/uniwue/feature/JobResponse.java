@@ -0,0 +1,197 @@
+package de.uniwue.feature;
+
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Locale;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Response that is passed to the controllers when a process is executed as a job
+ * The process outlives the request that submitted it, so the controllers cannot use the response of the
+ * request. Only the status is recorded (the controllers report errors with response.setStatus), any
+ * content is discarded.
+ */
+public class JobResponse implements HttpServletResponse {
+    /**
+     * Status that was set by the process
+     */
+    private volatile int status = SC_OK;
+
+    /**
+     * Stream that discards all content
+     */
+    private final ServletOutputStream outputStream = new ServletOutputStream() {
+        @Override
+        public void write(int b) { }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) { }
+    };
+
+    @Override
+    public void setStatus(int sc) {
+        status = sc;
+    }
+
+    @Override
+    @Deprecated
+    public void setStatus(int sc, String sm) {
+        status = sc;
+    }
+
+    @Override
+    public int getStatus() {
+        return status;
+    }
+
+    @Override
+    public void sendError(int sc, String msg) {
+        status = sc;
+    }
+
+    @Override
+    public void sendError(int sc) {
+        status = sc;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() {
+        return new PrintWriter((OutputStream) outputStream);
+    }
+
+    @Override
+    public void addCookie(Cookie cookie) { }
+
+    @Override
+    public boolean containsHeader(String name) {
+        return false;
+    }
+
+    @Override
+    public String encodeURL(String url) {
+        return url;
+    }
+
+    @Override
+    public String encodeRedirectURL(String url) {
+        return url;
+    }
+
+    @Override
+    @Deprecated
+    public String encodeUrl(String url) {
+        return url;
+    }
+
+    @Override
+    @Deprecated
+    public String encodeRedirectUrl(String url) {
+        return url;
+    }
+
+    @Override
+    public void sendRedirect(String location) { }
+
+    @Override
+    public void setDateHeader(String name, long date) { }
+
+    @Override
+    public void addDateHeader(String name, long date) { }
+
+    @Override
+    public void setHeader(String name, String value) { }
+
+    @Override
+    public void addHeader(String name, String value) { }
+
+    @Override
+    public void setIntHeader(String name, int value) { }
+
+    @Override
+    public void addIntHeader(String name, int value) { }
+
+    @Override
+    public String getHeader(String name) {
+        return null;
+    }
+
+    @Override
+    public Collection<String> getHeaders(String name) {
+        return new ArrayList<String>();
+    }
+
+    @Override
+    public Collection<String> getHeaderNames() {
+        return new ArrayList<String>();
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        return "UTF-8";
+    }
+
+    @Override
+    public String getContentType() {
+        return null;
+    }
+
+    @Override
+    public void setCharacterEncoding(String charset) { }
+
+    @Override
+    public void setContentLength(int len) { }
+
+    @Override
+    public void setContentLengthLong(long len) { }
+
+    @Override
+    public void setContentType(String type) { }
+
+    @Override
+    public void setBufferSize(int size) { }
+
+    @Override
+    public int getBufferSize() {
+        return 0;
+    }
+
+    @Override
+    public void flushBuffer() { }
+
+    @Override
+    public void resetBuffer() { }
+
+    @Override
+    public boolean isCommitted() {
+        return false;
+    }
+
+    @Override
+    public void reset() {
+        status = SC_OK;
+    }
+
+    @Override
+    public void setLocale(Locale loc) { }
+
+    @Override
+    public Locale getLocale() {
+        return Locale.getDefault();
+    }
+}
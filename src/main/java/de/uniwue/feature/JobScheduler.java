@@ -0,0 +1,369 @@
+package de.uniwue.feature;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.servlet.http.HttpSession;
+
+import de.uniwue.helper.GenericHelper;
+import de.uniwue.model.ResourceBudget;
+import de.uniwue.model.SchedulerMetrics;
+
+/**
+ * Class to admit the processes of all sessions against the resources of the server
+ * Every process type has a budget of CPU cores and memory that a single program instance needs. The demand of
+ * an execution is derived from the number of program instances (e.g. shards) and their threads. A process is
+ * only started if its budget fits into the free capacity of the server, otherwise it waits in a server-wide
+ * queue. Waiting processes of the project with the fewest running processes are admitted first (in order of
+ * arrival within a project), so that a single project cannot occupy the server. The next process is never
+ * skipped in favor of smaller ones, which prevents large processes from starving.
+ */
+public class JobScheduler {
+    /**
+     * Budget of process types without a configured budget
+     */
+    private static final ResourceBudget DEFAULT_BUDGET = new ResourceBudget(1, 512);
+
+    /**
+     * Share of the physical memory that can be assigned to processes
+     */
+    private static final double MEMORY_SHARE = 0.8;
+
+    /**
+     * Lock of the scheduler state
+     */
+    private static final Object lock = new Object();
+
+    /**
+     * Resources of the server that can be assigned to processes
+     */
+    private static ResourceBudget capacity = detectCapacity();
+
+    /**
+     * Budgets of the process types (process : demand of a single program instance with its default threads)
+     * Resident programs like the RecognitionWorker keep memory between executions that is not covered by the budgets
+     */
+    private static final Map<String, ResourceBudget> budgets = new TreeMap<String, ResourceBudget>();
+    static {
+        budgets.put("preprocessing",               new ResourceBudget(1, 1024));
+        budgets.put("despeckling",                 new ResourceBudget(1, 1024));
+        budgets.put("segmentationDummy",           new ResourceBudget(1, 256));
+        budgets.put("segmentationPixelClassifier", new ResourceBudget(2, 2048));
+        budgets.put("lineSegmentation",            new ResourceBudget(1, 1024));
+        budgets.put("recognition",                 new ResourceBudget(2, 3072));
+        budgets.put("training",                    new ResourceBudget(4, 4096));
+        budgets.put("evaluation",                  new ResourceBudget(1, 512));
+        budgets.put("resultGeneration",            new ResourceBudget(1, 512));
+    }
+
+    /**
+     * Processes that wait for resources in order of arrival
+     */
+    private static final List<Ticket> waiting = new ArrayList<Ticket>();
+
+    /**
+     * Processes that are running
+     */
+    private static final List<Ticket> running = new ArrayList<Ticket>();
+
+    /**
+     * Cores and memory that are assigned to running processes
+     */
+    private static int usedCores = 0;
+    private static long usedMemoryMb = 0;
+
+    /**
+     * Number of admitted processes and their summed up waiting time
+     */
+    private static long admittedCount = 0;
+    private static long totalWaitMillis = 0;
+
+    /**
+     * Class for a process that waits for or holds resources
+     */
+    private static class Ticket {
+        final String process;
+        final String project;
+        final String sessionId;
+        final Thread thread = Thread.currentThread();
+        final ResourceBudget demand;
+        final long queuedAt = System.currentTimeMillis();
+        boolean cancelled = false;
+
+        Ticket(String process, String project, String sessionId, ResourceBudget demand) {
+            this.process = process;
+            this.project = project;
+            this.sessionId = sessionId;
+            this.demand = demand;
+        }
+    }
+
+    /**
+     * Class for the resources that are assigned to a running process
+     * Needs to be closed when the process ended
+     */
+    public static class Admission implements AutoCloseable {
+        /**
+         * Ticket of the admitted process (null after the resources were released)
+         */
+        private Ticket ticket;
+
+        /**
+         * Constructor
+         *
+         * @param ticket Ticket of the admitted process
+         */
+        private Admission(Ticket ticket) {
+            this.ticket = ticket;
+        }
+
+        /**
+         * Releases the resources of the process and admits waiting processes
+         */
+        @Override
+        public void close() {
+            synchronized (lock) {
+                if (ticket == null)
+                    return;
+
+                running.remove(ticket);
+                usedCores -= ticket.demand.getCores();
+                usedMemoryMb -= ticket.demand.getMemoryMb();
+                ticket = null;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Constructor
+     */
+    private JobScheduler() { }
+
+    /**
+     * Waits until the resources of a process with a single program instance are available
+     *
+     * @param process Name of the process (e.g. recognition)
+     * @param session Session of the user that executes the process
+     * @return Admission that releases the resources when it is closed
+     * @throws IOException If the process was cancelled or interrupted while waiting
+     */
+    public static Admission admit(String process, HttpSession session) throws IOException {
+        return admit(process, 1, 0, session);
+    }
+
+    /**
+     * Waits until the resources of a process are available and assigns them to the process
+     *
+     * @param process Name of the process (e.g. recognition)
+     * @param instances Number of parallel program instances (e.g. shards)
+     * @param threadsPerInstance Number of threads of every instance (0 uses the cores of the budget)
+     * @param session Session of the user that executes the process
+     * @return Admission that releases the resources when it is closed
+     * @throws IOException If the process was cancelled or interrupted while waiting
+     */
+    public static Admission admit(String process, int instances, int threadsPerInstance, HttpSession session)
+            throws IOException {
+        String project = String.valueOf(session.getAttribute("projectDir"));
+        synchronized (lock) {
+            Ticket ticket = new Ticket(process, project, session.getId(),
+                getDemand(process, instances, threadsPerInstance));
+            waiting.add(ticket);
+            try {
+                while (!ticket.cancelled && !(getNext() == ticket && fits(ticket.demand)))
+                    lock.wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                ticket.cancelled = true;
+            }
+
+            waiting.remove(ticket);
+            if (ticket.cancelled) {
+                // The next process might fit now
+                lock.notifyAll();
+                throw new IOException("Process " + process + " was cancelled while waiting for resources");
+            }
+
+            running.add(ticket);
+            usedCores += ticket.demand.getCores();
+            usedMemoryMb += ticket.demand.getMemoryMb();
+            admittedCount++;
+            totalWaitMillis += System.currentTimeMillis() - ticket.queuedAt;
+            lock.notifyAll();
+            return new Admission(ticket);
+        }
+    }
+
+    /**
+     * Cancels the waiting processes of a session
+     *
+     * @param session Session of the user
+     * @param process Name of the process
+     */
+    public static void cancelWaiting(HttpSession session, String process) {
+        synchronized (lock) {
+            for (Ticket ticket : waiting) {
+                if (ticket.sessionId.equals(session.getId()) && ticket.process.equals(process))
+                    ticket.cancelled = true;
+            }
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Checks if a thread waits for the resources of its process
+     *
+     * @param thread Thread that executes the process
+     * @return True if the thread waits in the queue
+     */
+    public static boolean isWaiting(Thread thread) {
+        synchronized (lock) {
+            for (Ticket ticket : waiting) {
+                if (ticket.thread == thread)
+                    return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Sets the budget of a process type
+     *
+     * @param process Name of the process
+     * @param budget Cores and memory that a single program instance needs
+     */
+    public static void setBudget(String process, ResourceBudget budget) {
+        synchronized (lock) {
+            budgets.put(process, new ResourceBudget(Math.max(1, budget.getCores()), Math.max(1, budget.getMemoryMb())));
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Sets the resources of the server that can be assigned to processes
+     *
+     * @param newCapacity Cores and memory of the server
+     */
+    public static void setCapacity(ResourceBudget newCapacity) {
+        synchronized (lock) {
+            capacity = new ResourceBudget(Math.max(1, newCapacity.getCores()), Math.max(1, newCapacity.getMemoryMb()));
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Returns the current state of the scheduler
+     *
+     * @return Queue depth, waiting times, used resources and budgets
+     */
+    public static SchedulerMetrics getMetrics() {
+        synchronized (lock) {
+            long now = System.currentTimeMillis();
+            long longestWait = 0;
+            Map<String, Integer> waitingByProject = new TreeMap<String, Integer>();
+            for (Ticket ticket : waiting) {
+                longestWait = Math.max(longestWait, now - ticket.queuedAt);
+                waitingByProject.merge(ticket.project, 1, Integer::sum);
+            }
+
+            Map<String, Integer> runningByProject = new TreeMap<String, Integer>();
+            for (Ticket ticket : running)
+                runningByProject.merge(ticket.project, 1, Integer::sum);
+
+            Map<String, ResourceBudget> budgetCopy = new TreeMap<String, ResourceBudget>();
+            for (Map.Entry<String, ResourceBudget> budget : budgets.entrySet())
+                budgetCopy.put(budget.getKey(), new ResourceBudget(budget.getValue().getCores(), budget.getValue().getMemoryMb()));
+
+            return new SchedulerMetrics(
+                new ResourceBudget(capacity.getCores(), capacity.getMemoryMb()),
+                new ResourceBudget(usedCores, usedMemoryMb), budgetCopy,
+                waiting.size(), running.size(), waitingByProject, runningByProject, longestWait,
+                (admittedCount > 0) ? totalWaitMillis / admittedCount : 0, admittedCount
+            );
+        }
+    }
+
+    /**
+     * Returns the waiting process that is admitted next
+     * Prefers the project with the fewest running processes, then the order of arrival
+     * Needs to be called with the lock of the scheduler
+     *
+     * @return Next process or null if no process waits
+     */
+    private static Ticket getNext() {
+        Map<String, Integer> runningByProject = new HashMap<String, Integer>();
+        for (Ticket ticket : running)
+            runningByProject.merge(ticket.project, 1, Integer::sum);
+
+        Ticket next = null;
+        int nextRunning = Integer.MAX_VALUE;
+        for (Ticket ticket : waiting) {
+            if (ticket.cancelled)
+                continue;
+
+            int projectRunning = runningByProject.getOrDefault(ticket.project, 0);
+            if (projectRunning < nextRunning) {
+                next = ticket;
+                nextRunning = projectRunning;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Checks if a demand fits into the free resources
+     * Demands that exceed the capacity are admitted as soon as the server is idle
+     * Needs to be called with the lock of the scheduler
+     *
+     * @param demand Cores and memory of the process
+     * @return True if the process can be started
+     */
+    private static boolean fits(ResourceBudget demand) {
+        if (running.isEmpty())
+            return true;
+
+        return usedCores + demand.getCores() <= capacity.getCores()
+            && usedMemoryMb + demand.getMemoryMb() <= capacity.getMemoryMb();
+    }
+
+    /**
+     * Returns the demand of an execution
+     * Every program instance needs the memory of the budget and one core per thread
+     * Needs to be called with the lock of the scheduler
+     *
+     * @param process Name of the process
+     * @param instances Number of parallel program instances
+     * @param threadsPerInstance Number of threads of every instance (0 uses the cores of the budget)
+     * @return Cores and memory that the execution needs
+     */
+    private static ResourceBudget getDemand(String process, int instances, int threadsPerInstance) {
+        ResourceBudget budget = budgets.getOrDefault(process, DEFAULT_BUDGET);
+        instances = Math.max(1, instances);
+        int cores = (threadsPerInstance > 0) ? threadsPerInstance : budget.getCores();
+        return new ResourceBudget(instances * cores, instances * budget.getMemoryMb());
+    }
+
+    /**
+     * Determines the resources of the server
+     * Uses all logical cores and a share of the physical memory (maximum heap size if it is not available)
+     *
+     * @return Capacity of the server
+     */
+    @SuppressWarnings("deprecation")
+    private static ResourceBudget detectCapacity() {
+        // getTotalMemorySize replaces the deprecated method only since Java 14
+        long memoryBytes = Runtime.getRuntime().maxMemory();
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean)
+            memoryBytes = ((com.sun.management.OperatingSystemMXBean) os).getTotalPhysicalMemorySize();
+
+        long memoryMb = (long) (memoryBytes * MEMORY_SHARE / (1024 * 1024));
+        return new ResourceBudget(GenericHelper.getLogicalThreadCount(), Math.max(1, memoryMb));
+    }
+}
@@ -0,0 +1,250 @@
+package de.uniwue.feature;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.opencv.core.Mat;
+
+import de.uniwue.model.MatPoolMetrics;
+
+/**
+ * Class to reuse native Mat buffers of temporary images
+ * Buffers are pooled per thread and keyed by size and type, so that repeated operations on images of the
+ * same dimensions (e.g. previews of the pages of a project) do not allocate new native memory every time.
+ * The amount of idle pooled memory is limited for all threads together.
+ *
+ * Usage:
+ * try (MatPool.PooledMat buffer = MatPool.acquire(rows, cols, type)) {
+ *     Mat mat = buffer.mat();
+ *     ...
+ * }
+ */
+public class MatPool {
+    /**
+     * Default maximum amount of idle pooled memory of all threads in bytes
+     */
+    public static final long DEFAULT_MAX_POOLED_BYTES = 256L * 1024 * 1024;
+
+    /**
+     * Maximum number of idle buffers per key and thread
+     */
+    private static final int MAX_BUFFERS_PER_KEY = 4;
+
+    /**
+     * Maximum amount of idle pooled memory of all threads in bytes
+     */
+    private static volatile long maxPooledBytes = DEFAULT_MAX_POOLED_BYTES;
+
+    /**
+     * Idle buffers of the current thread (key : buffers)
+     */
+    private static final ThreadLocal<Map<String, Deque<Mat>>> pools =
+        ThreadLocal.withInitial(() -> new HashMap<String, Deque<Mat>>());
+
+    /**
+     * Native bytes of all buffers allocated by the pool and not released yet (in use and idle)
+     */
+    private static final AtomicLong liveBytes = new AtomicLong(0);
+
+    /**
+     * Native bytes of the idle buffers of all threads
+     */
+    private static final AtomicLong pooledBytes = new AtomicLong(0);
+
+    /**
+     * Number of requests served by an idle buffer
+     */
+    private static final AtomicLong hits = new AtomicLong(0);
+
+    /**
+     * Number of requests that needed a new allocation
+     */
+    private static final AtomicLong misses = new AtomicLong(0);
+
+    /**
+     * Class for a buffer that is returned to the pool when it is closed
+     */
+    public static class PooledMat implements AutoCloseable {
+        /**
+         * Buffer of the pool
+         */
+        private Mat mat;
+
+        /**
+         * Native bytes of the buffer when it was handed out
+         */
+        private final long bytes;
+
+        /**
+         * Constructor
+         *
+         * @param mat Buffer of the pool
+         */
+        private PooledMat(Mat mat) {
+            this.mat = mat;
+            this.bytes = byteCount(mat);
+        }
+
+        /**
+         * Gets the buffer
+         * The content of a reused buffer is undefined and the buffer must not be used after closing
+         *
+         * @return Mat of the buffer
+         */
+        public Mat mat() {
+            return mat;
+        }
+
+        /**
+         * Returns the buffer to the pool of the current thread
+         * Buffers that were reallocated by OpenCV are pooled with their new size and type
+         */
+        @Override
+        public void close() {
+            if (mat == null)
+                return;
+
+            liveBytes.addAndGet(byteCount(mat) - bytes);
+            release(mat);
+            mat = null;
+        }
+    }
+
+    /**
+     * Constructor
+     */
+    private MatPool() { }
+
+    /**
+     * Acquires a buffer with the given size and type
+     *
+     * @param rows Number of rows
+     * @param cols Number of columns
+     * @param type OpenCV type of the buffer (e.g. CvType.CV_8UC1)
+     * @return Buffer that needs to be closed after usage
+     */
+    public static PooledMat acquire(int rows, int cols, int type) {
+        Deque<Mat> buffers = pools.get().get(key(rows, cols, type));
+        Mat mat = (buffers != null) ? buffers.pollFirst() : null;
+        if (mat != null) {
+            pooledBytes.addAndGet(-byteCount(mat));
+            hits.incrementAndGet();
+        }
+        else {
+            mat = new Mat(rows, cols, type);
+            liveBytes.addAndGet(byteCount(mat));
+            misses.incrementAndGet();
+        }
+        return new PooledMat(mat);
+    }
+
+    /**
+     * Puts a buffer into the pool of the current thread or releases it if the pool is full
+     *
+     * @param mat Buffer to return
+     */
+    private static void release(Mat mat) {
+        long bytes = byteCount(mat);
+        if (!mat.empty() && mat.isContinuous()) {
+            Deque<Mat> buffers = pools.get().computeIfAbsent(key(mat.rows(), mat.cols(), mat.type()),
+                key -> new ArrayDeque<Mat>());
+            if (buffers.size() < MAX_BUFFERS_PER_KEY) {
+                if (pooledBytes.addAndGet(bytes) <= maxPooledBytes) {
+                    buffers.addFirst(mat);
+                    return;
+                }
+                pooledBytes.addAndGet(-bytes);
+            }
+        }
+
+        liveBytes.addAndGet(-bytes);
+        mat.release();
+    }
+
+    /**
+     * Releases all idle buffers of the current thread
+     */
+    public static void clear() {
+        for (Deque<Mat> buffers : pools.get().values()) {
+            for (Mat mat : buffers) {
+                long bytes = byteCount(mat);
+                pooledBytes.addAndGet(-bytes);
+                liveBytes.addAndGet(-bytes);
+                mat.release();
+            }
+        }
+        pools.remove();
+    }
+
+    /**
+     * Returns a thread factory whose threads release their idle buffers when they terminate
+     * Executors whose threads end (shutdown or idle timeout) need to use it, as the buffers of a terminated
+     * thread would otherwise stay allocated and count towards the limit of the pool.
+     *
+     * @param threadFactory Factory that creates the threads (e.g. for their names)
+     * @return Releasing thread factory
+     */
+    public static ThreadFactory releasingThreadFactory(ThreadFactory threadFactory) {
+        return runnable -> threadFactory.newThread(() -> {
+            try {
+                runnable.run();
+            } finally {
+                clear();
+            }
+        });
+    }
+
+    /**
+     * Returns a thread factory whose threads release their idle buffers when they terminate
+     *
+     * @return Releasing thread factory based on the default thread factory
+     */
+    public static ThreadFactory releasingThreadFactory() {
+        return releasingThreadFactory(Executors.defaultThreadFactory());
+    }
+
+    /**
+     * Sets the maximum amount of idle pooled memory of all threads
+     *
+     * @param maxBytes Maximum amount in bytes (0 disables pooling)
+     */
+    public static void setMaxPooledBytes(long maxBytes) {
+        maxPooledBytes = Math.max(0, maxBytes);
+    }
+
+    /**
+     * Returns the metrics of the pool
+     *
+     * @return Current metrics
+     */
+    public static MatPoolMetrics getMetrics() {
+        return new MatPoolMetrics(liveBytes.get(), pooledBytes.get(), hits.get(), misses.get());
+    }
+
+    /**
+     * Builds the key of a buffer
+     *
+     * @param rows Number of rows
+     * @param cols Number of columns
+     * @param type OpenCV type
+     * @return Key of the buffer
+     */
+    private static String key(int rows, int cols, int type) {
+        return rows + "x" + cols + ":" + type;
+    }
+
+    /**
+     * Calculates the native bytes of a buffer
+     *
+     * @param mat Buffer
+     * @return Number of bytes
+     */
+    private static long byteCount(Mat mat) {
+        return mat.total() * mat.elemSize();
+    }
+}
@@ -0,0 +1,33 @@
+package de.uniwue.feature;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Progress parser for the console output of pagelineseg
+ * Pagelineseg prefixes the messages of a page with its name (e.g. "[0001] Finished")
+ * A page is counted as completed as soon as its final message is printed
+ */
+public class PageLineSegProgressParser implements ProgressLineParser {
+    /**
+     * Pattern of the final message of a page (page name)
+     */
+    private static final Pattern PAGE_COMPLETED = Pattern.compile("^\\[(.+?)\\]\\s+(?:Finished|Done)", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Pages that are already counted
+     */
+    private final Set<String> completedPages = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public boolean parseLine(String line, ProcessProgress progress) {
+        Matcher matcher = PAGE_COMPLETED.matcher(line);
+        if (matcher.find() && completedPages.add(matcher.group(1)))
+            progress.completeUnit();
+
+        // Messages of pagelineseg are log output and remain in the console
+        return false;
+    }
+}
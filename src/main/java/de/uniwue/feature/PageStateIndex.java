@@ -0,0 +1,159 @@
+package de.uniwue.feature;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.uniwue.config.ProjectConfiguration;
+import de.uniwue.feature.pageXML.PageXMLStateScanner;
+import de.uniwue.model.PageState;
+
+/**
+ * Persistent index of the PageXML based process states of all pages of a project
+ * Entries are keyed by modification time and size of the PageXML file, therefore only changed files are scanned again
+ */
+public class PageStateIndex {
+    /**
+     * Version of the persisted format
+     * Needs to be increased if the scanned states change, so that indices of older versions are scanned again
+     * Version 2: counts of regions, lines and ground truth lines
+     */
+    private static final int FORMAT_VERSION = 2;
+
+    /**
+     * Indices of all loaded projects (key = project directory)
+     */
+    private static final Map<String, PageStateIndex> indices = new ConcurrentHashMap<String, PageStateIndex>();
+
+    /**
+     * Object to access project configuration
+     */
+    private ProjectConfiguration projConf;
+
+    /**
+     * File the index is persisted in
+     */
+    private File indexFile;
+
+    /**
+     * States of all scanned pages (key = pageId)
+     */
+    private Map<String, PageState> states = new ConcurrentHashMap<String, PageState>();
+
+    /**
+     * Indicates if the index changed since it was loaded or saved
+     */
+    private volatile boolean modified = false;
+
+    /**
+     * Constructor
+     *
+     * @param projConf Project configuration object
+     */
+    private PageStateIndex(ProjectConfiguration projConf) {
+        this.projConf = projConf;
+        this.indexFile = new File(projConf.PAGE_STATE_INDEX);
+        load();
+    }
+
+    /**
+     * Returns the index of the given project (loads the persisted index on first access)
+     *
+     * @param projConf Project configuration object
+     * @return Page state index of the project
+     */
+    public static PageStateIndex getIndex(ProjectConfiguration projConf) {
+        return indices.computeIfAbsent(projConf.PROJECT_DIR, projectDir -> new PageStateIndex(projConf));
+    }
+
+    /**
+     * Returns the PageXML based states of a page
+     * The PageXML file is only scanned if it changed since the last scan
+     *
+     * @param pageId Identifier of the page (e.g 0002,0003)
+     * @return States of the page or null if no PageXML exists
+     */
+    public PageState getState(String pageId) {
+        File pageXML = new File(projConf.OCR_DIR + pageId + projConf.CONF_EXT);
+        // Determine modification time and size before scanning, so that a concurrent write triggers a rescan
+        long lastModified = pageXML.lastModified();
+        long size = pageXML.length();
+        if (lastModified == 0L && !pageXML.exists()) {
+            if (states.remove(pageId) != null)
+                modified = true;
+            return null;
+        }
+
+        PageState state = states.get(pageId);
+        if (state != null && state.getLastModified() == lastModified && state.getSize() == size)
+            return state;
+
+        try {
+            state = PageXMLStateScanner.scan(pageXML);
+        } catch (IOException e) {
+            // Do not cache states of files that could not be read
+            return new PageState();
+        }
+        state.setLastModified(lastModified);
+        state.setSize(size);
+        states.put(pageId, state);
+        modified = true;
+        return state;
+    }
+
+    /**
+     * Loads the persisted index of the project (if existing)
+     */
+    private void load() {
+        if (!indexFile.exists())
+            return;
+
+        try {
+            ObjectMapper mapper = new ObjectMapper();
+            JsonNode index = mapper.readTree(indexFile);
+            // Indices of other versions (older ones have no version) lack states and are replaced with the next save
+            if (index.path("version").asInt() != FORMAT_VERSION) {
+                modified = true;
+                return;
+            }
+
+            Map<String, PageState> persisted = mapper.convertValue(index.path("pages"),
+                new TypeReference<Map<String, PageState>>() {});
+            if (persisted != null)
+                states.putAll(persisted);
+        } catch (IOException e) {
+            // Invalid index files are ignored and replaced with the next save
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Persists the index if it changed since the last save
+     */
+    public synchronized void save() {
+        if (!modified || !indexFile.getParentFile().exists())
+            return;
+
+        modified = false;
+        try {
+            // Write to a temporary file first to never leave a partially written index behind
+            File tmpFile = new File(indexFile.getPath() + ".tmp");
+            Map<String, Object> index = new LinkedHashMap<String, Object>();
+            index.put("version", FORMAT_VERSION);
+            index.put("pages", states);
+            new ObjectMapper().writeValue(tmpFile, index);
+            Files.move(tmpFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            modified = true;
+            e.printStackTrace();
+        }
+    }
+}
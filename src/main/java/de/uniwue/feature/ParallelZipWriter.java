@@ -0,0 +1,467 @@
+package de.uniwue.feature;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Class to write ZIP archives whose entries are compressed in parallel
+ * Workers read and compress the files ahead of the writer, which writes the prepared entries in their
+ * original order to a stream. The archive is never buffered as a whole, so it can be written directly
+ * to an HTTP response. Files that are already compressed (e.g. PNG images) are stored without deflating.
+ * Large files are not held in memory: the workers only compute their checksum and the writer copies them
+ * to the stream without compression. ZIP64 records are written if the archive or an entry exceeds the
+ * limits of the classic format.
+ */
+public class ParallelZipWriter {
+    /**
+     * File extensions of entries that are stored without compression
+     */
+    private static final String[] STORED_EXTS = new String[] { ".png", ".jpg", ".jpeg", ".zip", ".gz" };
+
+    /**
+     * Limit of the 16 bit fields of the classic format
+     */
+    private static final int MAX_16 = 0xFFFF;
+
+    /**
+     * Limit of the 32 bit fields of the classic format
+     */
+    private static final long MAX_32 = 0xFFFFFFFFL;
+
+    /**
+     * General purpose flag for UTF-8 encoded names
+     */
+    private static final int UTF8_FLAG = 1 << 11;
+
+    /**
+     * Size from which files are streamed instead of being read into memory (limits the memory of the
+     * entries that are prepared ahead of the writer to 2 * threads * LARGE_FILE_SIZE)
+     */
+    private static final long LARGE_FILE_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * Class for a file or directory to add to the archive
+     */
+    public static class Source {
+        /**
+         * File or directory
+         */
+        private final File file;
+
+        /**
+         * Name of the entry within the archive ("/" as separator, directories end with "/")
+         */
+        private final String name;
+
+        /**
+         * Content of entries that are not read from a file
+         */
+        private final byte[] content;
+
+        /**
+         * Constructor
+         *
+         * @param file File or directory
+         * @param name Name of the entry within the archive
+         */
+        public Source(File file, String name) {
+            this.file = file;
+            this.name = name;
+            this.content = null;
+        }
+
+        /**
+         * Constructor for entries that are generated in memory
+         *
+         * @param name Name of the entry within the archive
+         * @param content Content of the entry
+         */
+        public Source(String name, byte[] content) {
+            this.file = null;
+            this.name = name;
+            this.content = content;
+        }
+
+        /**
+         * Gets the file or directory
+         *
+         * @return File or directory (null for entries generated in memory)
+         */
+        public File getFile() {
+            return file;
+        }
+
+        /**
+         * Gets the name of the entry within the archive
+         *
+         * @return Name of the entry
+         */
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * Class for an entry that is read and compressed
+     */
+    private static class PreparedEntry {
+        byte[] name;
+        boolean directory;
+        int method;
+        long crc;
+        long size;
+        long compressedSize;
+        byte[] data;
+        File streamedFile;
+        int dosTime;
+        int dosDate;
+        long offset;
+    }
+
+    /**
+     * Stream the archive is written to
+     */
+    private final OutputStream out;
+
+    /**
+     * Number of bytes written to the stream
+     */
+    private long written = 0;
+
+    /**
+     * Written entries (needed for the central directory)
+     */
+    private final List<PreparedEntry> entries = new ArrayList<PreparedEntry>();
+
+    /**
+     * Number of threads that read and compress entries
+     */
+    private final int threads;
+
+    /**
+     * Constructor
+     *
+     * @param out Stream to write the archive to (not closed by the writer)
+     * @param threads Number of threads that read and compress entries
+     */
+    public ParallelZipWriter(OutputStream out, int threads) {
+        this.out = new BufferedOutputStream(out, 64 * 1024);
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Adds files and directories to the archive in the given order
+     * The number of entries that are prepared ahead of the writer is bounded to limit the memory usage
+     *
+     * @param sources Files and directories to add
+     * @param onEntryWritten Called after every written entry (e.g. to report progress, can be null)
+     * @throws IOException
+     */
+    public void addAll(List<Source> sources, Runnable onEntryWritten) throws IOException {
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        Deque<Future<PreparedEntry>> pending = new ArrayDeque<Future<PreparedEntry>>();
+        int next = 0;
+        try {
+            while (next < sources.size() || !pending.isEmpty()) {
+                while (next < sources.size() && pending.size() < 2 * threads) {
+                    final Source source = sources.get(next++);
+                    pending.add(workers.submit(() -> prepare(source)));
+                }
+
+                writeEntry(pending.poll().get());
+                if (onEntryWritten != null)
+                    onEntryWritten.run();
+            }
+        } catch (ExecutionException e) {
+            throw new IOException("Could not add entry to archive", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Archive creation was interrupted", e);
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Writes the central directory and flushes the stream
+     *
+     * @throws IOException
+     */
+    public void finish() throws IOException {
+        long centralOffset = written;
+        for (PreparedEntry entry : entries)
+            writeCentralHeader(entry);
+        long centralSize = written - centralOffset;
+
+        boolean zip64 = entries.size() >= MAX_16 || centralOffset >= MAX_32 || centralSize >= MAX_32;
+        if (zip64) {
+            long zip64EndOffset = written;
+            ByteBuffer end64 = buffer(56);
+            end64.putInt(0x06064b50).putLong(44).putShort((short) 45).putShort((short) 45)
+                .putInt(0).putInt(0).putLong(entries.size()).putLong(entries.size())
+                .putLong(centralSize).putLong(centralOffset);
+            write(end64);
+
+            ByteBuffer locator = buffer(20);
+            locator.putInt(0x07064b50).putInt(0).putLong(zip64EndOffset).putInt(1);
+            write(locator);
+        }
+
+        ByteBuffer end = buffer(22);
+        short entryCount = (short) Math.min(entries.size(), MAX_16);
+        end.putInt(0x06054b50).putShort((short) 0).putShort((short) 0).putShort(entryCount).putShort(entryCount)
+            .putInt((int) Math.min(centralSize, MAX_32)).putInt((int) Math.min(centralOffset, MAX_32)).putShort((short) 0);
+        write(end);
+        out.flush();
+    }
+
+    /**
+     * Reads and compresses a file (executed by the workers)
+     *
+     * @param source File or directory to prepare
+     * @return Prepared entry
+     * @throws IOException
+     */
+    private static PreparedEntry prepare(Source source) throws IOException {
+        PreparedEntry entry = new PreparedEntry();
+        entry.name = source.getName().getBytes(StandardCharsets.UTF_8);
+        setDosTime(entry, (source.getFile() != null) ? source.getFile().lastModified() : System.currentTimeMillis());
+
+        if (source.getFile() != null && source.getFile().isDirectory()) {
+            entry.directory = true;
+            entry.method = 0;
+            entry.data = new byte[0];
+            return entry;
+        }
+
+        if (source.getFile() != null && source.getFile().length() >= LARGE_FILE_SIZE) {
+            // Large files are stored and copied by the writer, only their checksum is computed ahead
+            CRC32 crc = new CRC32();
+            long size = 0;
+            try (InputStream in = Files.newInputStream(source.getFile().toPath())) {
+                byte[] buffer = new byte[64 * 1024];
+                int length;
+                while ((length = in.read(buffer)) > 0) {
+                    crc.update(buffer, 0, length);
+                    size += length;
+                }
+            }
+            entry.crc = crc.getValue();
+            entry.size = size;
+            entry.compressedSize = size;
+            entry.method = 0;
+            entry.streamedFile = source.getFile();
+            return entry;
+        }
+
+        byte[] content = (source.getFile() != null) ? Files.readAllBytes(source.getFile().toPath()) : source.content;
+        CRC32 crc = new CRC32();
+        crc.update(content, 0, content.length);
+        entry.crc = crc.getValue();
+        entry.size = content.length;
+
+        if (!isStored(source.getName())) {
+            byte[] deflated = deflate(content);
+            // Incompressible content is stored
+            if (deflated.length < content.length) {
+                entry.method = 8;
+                entry.data = deflated;
+                entry.compressedSize = deflated.length;
+                return entry;
+            }
+        }
+
+        entry.method = 0;
+        entry.data = content;
+        entry.compressedSize = content.length;
+        return entry;
+    }
+
+    /**
+     * Compresses data with raw deflate (as used within ZIP archives)
+     *
+     * @param content Data to compress
+     * @return Compressed data
+     */
+    private static byte[] deflate(byte[] content) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(content);
+            deflater.finish();
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, content.length / 2));
+            byte[] buffer = new byte[64 * 1024];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                compressed.write(buffer, 0, length);
+            }
+            return compressed.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Writes the local header and the data of an entry
+     *
+     * @param entry Prepared entry
+     * @throws IOException
+     */
+    private void writeEntry(PreparedEntry entry) throws IOException {
+        entry.offset = written;
+        boolean zip64 = entry.size >= MAX_32 || entry.compressedSize >= MAX_32;
+
+        ByteBuffer header = buffer(30 + entry.name.length + (zip64 ? 20 : 0));
+        header.putInt(0x04034b50).putShort((short) (zip64 ? 45 : 20)).putShort((short) UTF8_FLAG)
+            .putShort((short) entry.method).putShort((short) entry.dosTime).putShort((short) entry.dosDate)
+            .putInt((int) entry.crc)
+            .putInt((int) (zip64 ? MAX_32 : entry.compressedSize)).putInt((int) (zip64 ? MAX_32 : entry.size))
+            .putShort((short) entry.name.length).putShort((short) (zip64 ? 20 : 0))
+            .put(entry.name);
+        if (zip64)
+            header.putShort((short) 0x0001).putShort((short) 16).putLong(entry.size).putLong(entry.compressedSize);
+        write(header);
+
+        if (entry.streamedFile != null) {
+            copyFile(entry.streamedFile, entry.size);
+            entry.streamedFile = null;
+        } else {
+            out.write(entry.data);
+            written += entry.data.length;
+            // The data is not needed for the central directory
+            entry.data = null;
+        }
+        entries.add(entry);
+    }
+
+    /**
+     * Copies the content of a streamed file to the stream
+     *
+     * @param file File to copy
+     * @param size Size of the file when its checksum was computed
+     * @throws IOException If the file changed its size in the meantime
+     */
+    private void copyFile(File file, long size) throws IOException {
+        long remaining = size;
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            byte[] buffer = new byte[64 * 1024];
+            while (remaining > 0) {
+                int length = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (length < 0)
+                    break;
+                out.write(buffer, 0, length);
+                written += length;
+                remaining -= length;
+            }
+            if (remaining > 0 || in.read() >= 0)
+                throw new IOException("File changed while it was added to the archive: " + file);
+        }
+    }
+
+    /**
+     * Writes the central directory header of an entry
+     *
+     * @param entry Written entry
+     * @throws IOException
+     */
+    private void writeCentralHeader(PreparedEntry entry) throws IOException {
+        boolean sizeZip64 = entry.size >= MAX_32;
+        boolean compressedZip64 = entry.compressedSize >= MAX_32;
+        boolean offsetZip64 = entry.offset >= MAX_32;
+        int extraLength = (sizeZip64 || compressedZip64 || offsetZip64)
+            ? 4 + (sizeZip64 ? 8 : 0) + (compressedZip64 ? 8 : 0) + (offsetZip64 ? 8 : 0) : 0;
+        short version = (short) (extraLength > 0 ? 45 : 20);
+
+        ByteBuffer header = buffer(46 + entry.name.length + extraLength);
+        header.putInt(0x02014b50).putShort(version).putShort(version).putShort((short) UTF8_FLAG)
+            .putShort((short) entry.method).putShort((short) entry.dosTime).putShort((short) entry.dosDate)
+            .putInt((int) entry.crc)
+            .putInt((int) (compressedZip64 ? MAX_32 : entry.compressedSize)).putInt((int) (sizeZip64 ? MAX_32 : entry.size))
+            .putShort((short) entry.name.length).putShort((short) extraLength).putShort((short) 0)
+            .putShort((short) 0).putShort((short) 0)
+            // MS-DOS directory attribute
+            .putInt(entry.directory ? 0x10 : 0)
+            .putInt((int) (offsetZip64 ? MAX_32 : entry.offset))
+            .put(entry.name);
+        if (extraLength > 0) {
+            header.putShort((short) 0x0001).putShort((short) (extraLength - 4));
+            if (sizeZip64)
+                header.putLong(entry.size);
+            if (compressedZip64)
+                header.putLong(entry.compressedSize);
+            if (offsetZip64)
+                header.putLong(entry.offset);
+        }
+        write(header);
+    }
+
+    /**
+     * Checks if an entry is stored without compression
+     *
+     * @param name Name of the entry
+     * @return True if the content is already compressed
+     */
+    private static boolean isStored(String name) {
+        String lowerName = name.toLowerCase();
+        for (String ext : STORED_EXTS) {
+            if (lowerName.endsWith(ext))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Sets the modification time of an entry in MS-DOS format
+     *
+     * @param entry Prepared entry
+     * @param lastModified Modification time in milliseconds
+     */
+    private static void setDosTime(PreparedEntry entry, long lastModified) {
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(lastModified), ZoneId.systemDefault());
+        if (time.getYear() < 1980)
+            time = LocalDateTime.of(1980, 1, 1, 0, 0);
+        entry.dosTime = (time.getHour() << 11) | (time.getMinute() << 5) | (time.getSecond() >> 1);
+        entry.dosDate = ((time.getYear() - 1980) << 9) | (time.getMonthValue() << 5) | time.getDayOfMonth();
+    }
+
+    /**
+     * Creates a little endian buffer for a record
+     *
+     * @param size Size of the record
+     * @return Buffer
+     */
+    private static ByteBuffer buffer(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Writes a record to the stream
+     *
+     * @param record Filled buffer of the record
+     * @throws IOException
+     */
+    private void write(ByteBuffer record) throws IOException {
+        out.write(record.array(), 0, record.position());
+        written += record.position();
+    }
+}
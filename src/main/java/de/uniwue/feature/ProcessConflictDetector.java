@@ -50,6 +50,10 @@ public class ProcessConflictDetector {
         if (currentProcesses.contains("processFlow") && !inProcessFlow)
             return PROCESS_FLOW;
 
+        // The process flow orders its processes per page itself (they run at the same time when pipelined)
+        if (inProcessFlow)
+            return NO_CONFLICT;
+
         if (currentProcesses.contains("despeckling"))
             return PREV_PROCESS;
 
@@ -77,6 +81,10 @@ public class ProcessConflictDetector {
         if (currentProcesses.contains("processFlow") && !inProcessFlow)
             return PROCESS_FLOW;
 
+        // The process flow orders its processes per page itself (they run at the same time when pipelined)
+        if (inProcessFlow)
+            return NO_CONFLICT;
+
         int segmentationConflictType = segmentationConflict(currentProcesses, true);
         if (segmentationConflictType != NO_CONFLICT)
             return segmentationConflictType;
@@ -131,6 +139,10 @@ public class ProcessConflictDetector {
         if (currentProcesses.contains("processFlow") && !inProcessFlow)
             return PROCESS_FLOW;
 
+        // The process flow orders its processes per page itself (they run at the same time when pipelined)
+        if (inProcessFlow)
+            return NO_CONFLICT;
+
         int segmentationConflictType = segmentationConflict(currentProcesses, true);
         if (segmentationConflictType != NO_CONFLICT)
             return segmentationConflictType;
@@ -219,6 +231,10 @@ public class ProcessConflictDetector {
         if (currentProcesses.contains("processFlow") && !inProcessFlow)
             return PROCESS_FLOW;
 
+        // The process flow orders its processes per page itself (they run at the same time when pipelined)
+        if (inProcessFlow)
+            return NO_CONFLICT;
+
         if (currentProcesses.contains("recognition")
                 || currentProcesses.contains("evaluation")
                 || currentProcesses.contains("result"))
@@ -244,6 +260,10 @@ public class ProcessConflictDetector {
         if (currentProcesses.contains("processFlow") && !inProcessFlow)
             return PROCESS_FLOW;
 
+        // The process flow orders its processes per page itself (they run at the same time when pipelined)
+        if (inProcessFlow)
+            return NO_CONFLICT;
+
         if (currentProcesses.contains("evaluation")
                 || currentProcesses.contains("result"))
             return PREV_PROCESS;
@@ -0,0 +1,322 @@
+package de.uniwue.feature;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+import javax.servlet.http.HttpServletResponse;
+
+import de.uniwue.model.ProcessFlowStageState;
+
+/**
+ * Class to execute the processes of the process flow as a pipeline of pages
+ * The pages are split into batches. Every process (stage) has its own worker that executes one batch
+ * at a time and passes the successfully processed pages to the next process as soon as the batch is
+ * finished. Therefore all processes run at the same time on different pages instead of waiting for
+ * the previous process to finish all pages.
+ */
+public class ProcessFlowPipeline {
+    /**
+     * Default number of pages that are passed through the pipeline together
+     * Every batch starts the external programs of a process again (e.g. loading the models of the recognition)
+     * and is split into the shards of the process, so small batches spend most of their time with the startup
+     * and leave shards idle. Large batches delay the start of the following processes and the first results.
+     * Eight pages amortize the startup and give every shard of the default configurations work, while a
+     * project of a few dozen pages still overlaps its processes.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 8;
+
+    /**
+     * Marks the end of the pages in the queue of a stage
+     */
+    private static final String[] END_OF_PAGES = new String[0];
+
+    /**
+     * Class for a process of the pipeline
+     */
+    public static class Stage {
+        /**
+         * Name of the process
+         */
+        private final String process;
+
+        /**
+         * Selects the pages of a batch that can be processed (null to process all)
+         */
+        private final UnaryOperator<String[]> pageFilter;
+
+        /**
+         * Execution of the process for the given pages (reports errors with the status of the response)
+         */
+        private final BiConsumer<String[], HttpServletResponse> execution;
+
+        /**
+         * Batches that wait for the process
+         */
+        private final LinkedBlockingQueue<String[]> queue = new LinkedBlockingQueue<String[]>();
+
+        /**
+         * Page counts of the stage (guarded by the lock of the pipeline)
+         */
+        private int queuedPages = 0;
+        private int runningPages = 0;
+        private int finishedPages = 0;
+        private int skippedPages = 0;
+        private long firstPageFinished = 0;
+
+        /**
+         * Constructor
+         *
+         * @param process Name of the process
+         * @param pageFilter Selects the pages of a batch that can be processed (null to process all)
+         * @param execution Execution of the process for the given pages
+         */
+        public Stage(String process, UnaryOperator<String[]> pageFilter,
+                BiConsumer<String[], HttpServletResponse> execution) {
+            this.process = process;
+            this.pageFilter = pageFilter;
+            this.execution = execution;
+        }
+    }
+
+    /**
+     * Processes of the pipeline in order of execution
+     */
+    private final List<Stage> stages;
+
+    /**
+     * Is informed about the most advanced process that has pages to process ("" if there is none)
+     */
+    private final Consumer<String> activeProcessListener;
+
+    /**
+     * Status of the first failed execution (200 if no execution failed)
+     */
+    private volatile int failedStatus = HttpServletResponse.SC_OK;
+
+    /**
+     * Indicates that the execution should stop (checked before every batch)
+     */
+    private volatile BooleanSupplier cancelled = () -> false;
+
+    /**
+     * Indicates that the pipeline is executed
+     */
+    private volatile boolean running = false;
+
+    /**
+     * Constructor
+     *
+     * @param stages Processes of the pipeline in order of execution
+     * @param activeProcessListener Is informed about the most advanced process that has pages to process
+     */
+    public ProcessFlowPipeline(List<Stage> stages, Consumer<String> activeProcessListener) {
+        this.stages = new ArrayList<Stage>(stages);
+        this.activeProcessListener = activeProcessListener;
+    }
+
+    /**
+     * Executes all processes of the pipeline and waits until they are finished
+     * The pipeline stops passing on pages after the first failed execution or if it is cancelled
+     *
+     * @param pageIds Identifiers of the pages (e.g 0002,0003)
+     * @param batchSize Number of pages that are passed through the pipeline together
+     * @param cancelled Indicates that the execution should stop
+     */
+    public void execute(String[] pageIds, int batchSize, BooleanSupplier cancelled) {
+        if (stages.isEmpty())
+            return;
+
+        this.cancelled = cancelled;
+        running = true;
+        batchSize = Math.max(1, batchSize);
+
+        ExecutorService executor = Executors.newFixedThreadPool(stages.size());
+        List<Future<?>> workers = new ArrayList<Future<?>>();
+        for (int i = 0; i < stages.size(); i++) {
+            Stage stage = stages.get(i);
+            Stage nextStage = (i + 1 < stages.size()) ? stages.get(i + 1) : null;
+            workers.add(executor.submit(() -> runStage(stage, nextStage)));
+        }
+        executor.shutdown();
+
+        for (int from = 0; from < pageIds.length; from += batchSize)
+            enqueue(stages.get(0), Arrays.copyOfRange(pageIds, from, Math.min(pageIds.length, from + batchSize)));
+        stages.get(0).queue.add(END_OF_PAGES);
+
+        try {
+            for (Future<?> worker : workers)
+                worker.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+            fail(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        } catch (ExecutionException e) {
+            executor.shutdownNow();
+            fail(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            e.printStackTrace();
+        }
+        running = false;
+        updateActiveProcess();
+    }
+
+    /**
+     * Processes the batches of a stage until the end of the pages is reached
+     *
+     * @param stage Process of the pipeline
+     * @param nextStage Following process (null for the last process)
+     */
+    private void runStage(Stage stage, Stage nextStage) {
+        while (true) {
+            String[] batch;
+            try {
+                batch = stage.queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            if (batch == END_OF_PAGES) {
+                if (nextStage != null)
+                    nextStage.queue.add(END_OF_PAGES);
+                return;
+            }
+
+            String[] pageIds = (stage.pageFilter == null || isStopped()) ? batch : stage.pageFilter.apply(batch);
+            synchronized (this) {
+                stage.queuedPages -= batch.length;
+                if (isStopped()) {
+                    stage.skippedPages += batch.length;
+                    pageIds = END_OF_PAGES;
+                } else {
+                    stage.skippedPages += batch.length - pageIds.length;
+                    stage.runningPages = pageIds.length;
+                }
+            }
+            updateActiveProcess();
+            if (pageIds.length == 0)
+                continue;
+
+            JobResponse stageResponse = new JobResponse();
+            try {
+                stage.execution.accept(pageIds, stageResponse);
+            } catch (RuntimeException e) {
+                stageResponse.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                e.printStackTrace();
+            }
+
+            synchronized (this) {
+                stage.runningPages = 0;
+                if (stageResponse.getStatus() == HttpServletResponse.SC_OK) {
+                    stage.finishedPages += pageIds.length;
+                    if (stage.firstPageFinished == 0)
+                        stage.firstPageFinished = System.currentTimeMillis();
+                    if (nextStage != null)
+                        enqueue(nextStage, pageIds);
+                } else {
+                    stage.skippedPages += pageIds.length;
+                    fail(stageResponse.getStatus());
+                }
+            }
+            updateActiveProcess();
+        }
+    }
+
+    /**
+     * Adds a batch to the queue of a stage
+     *
+     * @param stage Process of the pipeline
+     * @param pageIds Identifiers of the pages
+     */
+    private synchronized void enqueue(Stage stage, String[] pageIds) {
+        stage.queuedPages += pageIds.length;
+        stage.queue.add(pageIds);
+    }
+
+    /**
+     * Records a failed execution (only the first one is kept)
+     *
+     * @param status Status of the failed execution
+     */
+    private synchronized void fail(int status) {
+        if (failedStatus == HttpServletResponse.SC_OK)
+            failedStatus = status;
+    }
+
+    /**
+     * Checks if the pipeline stops passing on pages
+     *
+     * @return True if an execution failed or the pipeline was cancelled
+     */
+    private boolean isStopped() {
+        return failedStatus != HttpServletResponse.SC_OK || cancelled.getAsBoolean();
+    }
+
+    /**
+     * Informs the listener about the most advanced process that has pages to process
+     */
+    private synchronized void updateActiveProcess() {
+        String activeProcess = "";
+        if (running) {
+            for (Stage stage : stages) {
+                if (stage.queuedPages > 0 || stage.runningPages > 0)
+                    activeProcess = stage.process;
+            }
+        }
+        activeProcessListener.accept(activeProcess);
+    }
+
+    /**
+     * Gets the status of the first failed execution
+     *
+     * @return Status code (200 if no execution failed)
+     */
+    public int getFailedStatus() {
+        return failedStatus;
+    }
+
+    /**
+     * Checks if the pipeline is executed
+     *
+     * @return True if the pipeline did not finish yet
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Returns the processes that currently process pages
+     *
+     * @return Names of the processes
+     */
+    public synchronized List<String> getRunningProcesses() {
+        List<String> runningProcesses = new ArrayList<String>();
+        for (Stage stage : stages) {
+            if (stage.runningPages > 0)
+                runningProcesses.add(stage.process);
+        }
+        return runningProcesses;
+    }
+
+    /**
+     * Returns the current state of all processes of the pipeline
+     *
+     * @return States in order of execution
+     */
+    public synchronized List<ProcessFlowStageState> getStates() {
+        List<ProcessFlowStageState> states = new ArrayList<ProcessFlowStageState>();
+        for (Stage stage : stages) {
+            states.add(new ProcessFlowStageState(stage.process, stage.queuedPages, stage.runningPages,
+                stage.finishedPages, stage.skippedPages, stage.firstPageFinished));
+        }
+        return states;
+    }
+}
@@ -6,10 +6,13 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
 
+import de.uniwue.model.ConsoleSegment;
+
 /**
  * Class for process management
  */
@@ -99,22 +102,51 @@ public class ProcessHandler {
     /**
      * Holds the console std.out of the process
      */
-    private String consoleOut = "";
+    private final ConsoleBuffer consoleOut;
 
     /**
      * Holds the console std.err of the process
      */
-    private String consoleErr = "";
+    private final ConsoleBuffer consoleErr;
 
     /**
      * Determines if the process is completed or not
      */
     private boolean processCompleted = false;
 
+    /**
+     * Parser to extract the progress from the console of the process (may be null)
+     */
+    private ProgressLineParser progressParser = null;
+
+    /**
+     * Progress of the process as reported on its console (null if no parser is set)
+     */
+    private ProcessProgress processProgress = null;
+
+    /**
+     * Additional environment variables of the process
+     */
+    private final Map<String, String> environment = new HashMap<String, String>();
+
     /**
      * Constructor
      */
-    public ProcessHandler() {}
+    public ProcessHandler() {
+        consoleOut = new ConsoleBuffer();
+        consoleErr = new ConsoleBuffer();
+    }
+
+    /**
+     * Constructor for processes that write to the console of another handler
+     * Used to show the output of processes that run in parallel in a single console
+     *
+     * @param consoleHandler Handler whose console buffers are shared
+     */
+    public ProcessHandler(ProcessHandler consoleHandler) {
+        consoleOut = consoleHandler.consoleOut;
+        consoleErr = consoleHandler.consoleErr;
+    }
 
     /**
      * Sets the state to determine the reading setting of the process std.out/std.err
@@ -125,13 +157,55 @@ public class ProcessHandler {
         this.fetchProcessConsole = fetchProcessConsole;
     }
 
+    /**
+     * Sets the parser to extract the progress from the console of the process
+     * Only used if the console of the process is fetched
+     *
+     * @param progressParser Parser for the console lines of the program (null to disable progress parsing)
+     * @param totalUnits Number of units the process has to handle (0 if reported by the program itself)
+     */
+    public void setProgressParser(ProgressLineParser progressParser, int totalUnits) {
+        setProgressParser(progressParser, (progressParser != null) ? new ProcessProgress(totalUnits) : null);
+    }
+
+    /**
+     * Sets the parser to extract the progress from the console of the process
+     * Allows to aggregate the progress of multiple processes in a single progress object
+     *
+     * @param progressParser Parser for the console lines of the program (null to disable progress parsing)
+     * @param processProgress Progress object to update
+     */
+    public void setProgressParser(ProgressLineParser progressParser, ProcessProgress processProgress) {
+        this.progressParser = progressParser;
+        this.processProgress = processProgress;
+    }
+
+    /**
+     * Sets an additional environment variable of the process
+     *
+     * @param name Name of the variable
+     * @param value Value of the variable
+     */
+    public void setEnvironmentVariable(String name, String value) {
+        environment.put(name, value);
+    }
+
+    /**
+     * Returns the progress of the process as reported on its console
+     *
+     * @return Progress object (null if no parser is set)
+     */
+    public ProcessProgress getProcessProgress() {
+        return processProgress;
+    }
+
     /**
      * Returns the console std.out of the process
      *
      * @return Console output
      */
     public String getConsoleOut() {
-        return consoleOut;
+        return consoleOut.getContent();
     }
 
     /**
@@ -140,27 +214,59 @@ public class ProcessHandler {
      * @return Console error
      */
     public String getConsoleErr() {
-        return consoleErr;
+        return consoleErr.getContent();
+    }
+
+    /**
+     * Returns the lines of the console std.out after the given offset
+     *
+     * @param offset Sequence number of the first requested line
+     * @return Segment of the console output
+     */
+    public ConsoleSegment getConsoleOut(long offset) {
+        return consoleOut.getSince(offset);
+    }
+
+    /**
+     * Returns the lines of the console std.err after the given offset
+     *
+     * @param offset Sequence number of the first requested line
+     * @return Segment of the console error
+     */
+    public ConsoleSegment getConsoleErr(long offset) {
+        return consoleErr.getSince(offset);
+    }
+
+    /**
+     * Passes a console line to the progress parser
+     *
+     * @param line Console line of the process
+     * @return TRUE if the line only contains progress information
+     */
+    private boolean parseProgress(String line) {
+        if (progressParser == null)
+            return false;
+        return progressParser.parseLine(line, processProgress);
     }
 
     /**
      * Extends existing console std.out with new content
-     * Will be used as consumer by the StreamHandler 
+     * Will be used as consumer by the StreamHandler and by long-lived workers that execute the process
      *
      * @param consoleOut New std.out content of the process
      */
-    private void appendConsoleOutput(String consoleOut) {
-        this.consoleOut += consoleOut + System.lineSeparator();
+    public void appendConsoleOutput(String consoleOut) {
+        this.consoleOut.append(consoleOut);
     }
 
     /**
      * Extends existing console std.err with new content
-     * Will be used as consumer by the StreamHandler 
+     * Will be used as consumer by the StreamHandler and by long-lived workers that execute the process
      *
      * @param consoleOut New std.err content of the process
      */
-    private void appendConsoleError(String consoleErr) {
-        this.consoleErr += consoleErr + System.lineSeparator();
+    public void appendConsoleError(String consoleErr) {
+        this.consoleErr.append(consoleErr);
     }
 
     /**
@@ -189,6 +295,26 @@ public class ProcessHandler {
         this.processCompleted = true;
     }
 
+    /**
+     * Gets the exit value of the started process
+     *
+     * @return Exit value (-1 if no process was started or it is still running)
+     */
+    public int getExitValue() {
+        if (process == null || process.isAlive())
+            return -1;
+        return process.exitValue();
+    }
+
+    /**
+     * Waits for the completion of the started process
+     * Used to wait for a process that was started in background
+     */
+    public void waitForProcessCompletion() {
+        if (process != null)
+            waitForProcessCompletion(process);
+    }
+
     /**
      * Starts the process
      *
@@ -220,14 +346,22 @@ public class ProcessHandler {
         env.put("TF_CPP_MIN_LOG_LEVEL", "3");
         // SET PYTHONWARNINGS to ignore to stop e.g. scipy rounding warnings from showing up in the UI.
         env.put("PYTHONWARNINGS", "ignore");
+        env.putAll(environment);
 
         process = processBuilder.start();
 
         if (fetchProcessConsole == true) {
             // Execute stream handlers in new threads to be able to fetch stream contents continuously
             // Use Consumers to redirect stream contents to appropriate appending method
-            new Thread(new StreamHandler(process.getInputStream(), (out) -> appendConsoleOutput(out))).start();
-            new Thread(new StreamHandler(process.getErrorStream(), (err) -> appendConsoleError(err))).start();
+            // Lines that only contain progress information are not added to the console
+            new Thread(new StreamHandler(process.getInputStream(), (out) -> {
+                if (!parseProgress(out))
+                    appendConsoleOutput(out);
+            })).start();
+            new Thread(new StreamHandler(process.getErrorStream(), (err) -> {
+                if (!parseProgress(err))
+                    appendConsoleError(err);
+            })).start();
         }
 
         if (runInBackground) {
@@ -244,6 +378,7 @@ public class ProcessHandler {
      * Stops the process
      */
     public void stopProcess() {
-        process.destroy();
+        if (process != null)
+            process.destroy();
     }
 }
@@ -0,0 +1,162 @@
+package de.uniwue.feature;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class to hold the progress of an external process as reported on its console
+ * Values are updated by a ProgressLineParser while the process is running and can be read from any thread
+ */
+public class ProcessProgress {
+    /**
+     * Number of units (lines, pages, ...) the process has to handle (0 if not known yet)
+     */
+    private final AtomicInteger totalUnits;
+
+    /**
+     * Number of units the process completed
+     */
+    private final AtomicInteger completedUnits = new AtomicInteger(0);
+
+    /**
+     * Time of the first reported progress in milliseconds (0 if nothing was reported yet)
+     */
+    private volatile long startTime = 0;
+
+    /**
+     * Number of completed units at the time of the first reported progress
+     */
+    private volatile int startUnits = 0;
+
+    /**
+     * Time of the latest reported progress in milliseconds
+     */
+    private volatile long lastUpdateTime = 0;
+
+    /**
+     * Constructor
+     *
+     * @param totalUnits Number of units the process has to handle (0 if not known yet)
+     */
+    public ProcessProgress(int totalUnits) {
+        this.totalUnits = new AtomicInteger(totalUnits);
+    }
+
+    /**
+     * Sets the number of units the process has to handle
+     *
+     * @param totalUnits Number of units
+     */
+    public void setTotalUnits(int totalUnits) {
+        this.totalUnits.set(totalUnits);
+    }
+
+    /**
+     * Sets the number of completed units (used if the process reports absolute values)
+     *
+     * @param completedUnits Number of completed units
+     */
+    public void setCompletedUnits(int completedUnits) {
+        this.completedUnits.set(completedUnits);
+        update(completedUnits);
+    }
+
+    /**
+     * Adds units to the number of units the process has to handle
+     * Used if multiple processes report to the same progress object
+     *
+     * @param units Number of additional units
+     */
+    public void addTotalUnits(int units) {
+        this.totalUnits.addAndGet(units);
+    }
+
+    /**
+     * Adds units to the number of completed units
+     * Used if multiple processes report to the same progress object
+     *
+     * @param units Number of additionally completed units
+     */
+    public void addCompletedUnits(int units) {
+        update(this.completedUnits.addAndGet(units));
+    }
+
+    /**
+     * Increments the number of completed units (used if the process reports single completions)
+     */
+    public void completeUnit() {
+        update(this.completedUnits.incrementAndGet());
+    }
+
+    /**
+     * Stores the time of a reported progress
+     * The first report is used as reference, which excludes the startup time of the process from the throughput
+     *
+     * @param completedUnits Number of completed units at the time of the report
+     */
+    private synchronized void update(int completedUnits) {
+        long now = System.currentTimeMillis();
+        if (startTime == 0) {
+            startUnits = completedUnits;
+            startTime = now;
+        }
+        lastUpdateTime = now;
+    }
+
+    /**
+     * Returns the number of units the process has to handle
+     *
+     * @return Number of units (0 if not known yet)
+     */
+    public int getTotalUnits() {
+        return totalUnits.get();
+    }
+
+    /**
+     * Returns the number of completed units
+     *
+     * @return Number of completed units
+     */
+    public int getCompletedUnits() {
+        return completedUnits.get();
+    }
+
+    /**
+     * Returns the progress of the process
+     *
+     * @return Progress percentage (0 if the number of units is not known yet)
+     */
+    public int getProgress() {
+        int total = totalUnits.get();
+        if (total <= 0)
+            return 0;
+        return (int) Math.min(100, (long) completedUnits.get() * 100 / total);
+    }
+
+    /**
+     * Returns the throughput of the process
+     *
+     * @return Completed units per second (0 if it cannot be determined yet)
+     */
+    public double getThroughput() {
+        long duration = lastUpdateTime - startTime;
+        int units = completedUnits.get() - startUnits;
+        if (startTime == 0 || duration <= 0 || units <= 0)
+            return 0;
+        return units * 1000.0 / duration;
+    }
+
+    /**
+     * Returns the estimated remaining time of the process
+     *
+     * @return Remaining time in seconds (-1 if it cannot be estimated yet)
+     */
+    public long getEstimatedTimeRemaining() {
+        double throughput = getThroughput();
+        int total = totalUnits.get();
+        if (throughput <= 0 || total <= 0)
+            return -1;
+
+        int remaining = Math.max(0, total - completedUnits.get());
+        return (long) Math.ceil(remaining / throughput);
+    }
+}
@@ -1,16 +1,9 @@
 package de.uniwue.feature;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.IOException;
-import java.io.UnsupportedEncodingException;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
-import org.apache.commons.io.FilenameUtils;
 
 import de.uniwue.config.ProjectConfiguration;
+import de.uniwue.model.PageState;
 
 /**
  * Class to collect the current state of processes
@@ -27,6 +20,11 @@ public class ProcessStateCollector {
      */
     private String imageType;
 
+    /**
+     * Index of the PageXML based states of all pages of the project
+     */
+    private PageStateIndex pageStateIndex;
+
     /**
      * Constructor
      *
@@ -37,6 +35,7 @@ public class ProcessStateCollector {
     public ProcessStateCollector(ProjectConfiguration projConf, String imageType) {
         this.projConf = projConf;
         this.imageType = imageType;
+        this.pageStateIndex = PageStateIndex.getIndex(projConf);
     }
 
     /**
@@ -91,30 +90,14 @@ public class ProcessStateCollector {
             return false;
 
         // Check if the images of the lines exist
-		String imageFile = projConf.getImageDirectoryByType(imageType) + pageId + projConf.getImageExtensionByType(imageType);
-		if (!new File(imageFile).exists()) {
-			return false;
-		}
-
-        // Easy and fast check if an end tag of a TextLine exists 
-        // Does not check if the xml is valid
-        try (FileInputStream fis = new FileInputStream(pageXML)) {
-			byte[] data = new byte[(int) pageXML.length()];
-			fis.read(data);
-			fis.close();
-			String pageXMLContent = new String(data, "UTF-8");
-			
-			Pattern p = Pattern.compile("\\</TextLine\\>");
-			Matcher matcher = p.matcher(pageXMLContent);
-
-			return matcher.find();
-		} catch (UnsupportedEncodingException e) {
-			return false;
-		} catch (FileNotFoundException e) {
-			return false;
-		} catch (IOException e) {
-			return false;
-		}
+        String imageFile = projConf.getImageDirectoryByType(imageType) + pageId + projConf.getImageExtensionByType(imageType);
+        if (!new File(imageFile).exists()) {
+            return false;
+        }
+
+        // Check if an end tag of a TextLine exists (scan results are cached in the page state index)
+        PageState state = pageStateIndex.getState(pageId);
+        return state != null && state.isLines();
     }
 
     /**
@@ -135,30 +118,9 @@ public class ProcessStateCollector {
      * @return "Recognition" state of the page
      */
     public boolean recognitionState(String pageId) {
-        // Check pagexml for TextEquivs
-        File pageXML = new File(projConf.OCR_DIR + pageId + projConf.CONF_EXT);
-        if (!pageXML.exists())
-            return false;
-
-        // Easy and fast check if an end tag of a TextLine exists 
-        // Does not check if the xml is valid
-        try (FileInputStream fis = new FileInputStream(pageXML)){
-            byte[] data = new byte[(int) pageXML.length()];
-            fis.read(data);
-            fis.close();
-            String pageXMLContent = new String(data, "UTF-8");
-            // Test for TextEquiv with index higher 0 (GT)
-            Pattern p = Pattern.compile("\\<TextEquiv[^>]+?index=\"[^0]\"[^>]*?\\>");
-            Matcher matcher = p.matcher(pageXMLContent);
-
-            return matcher.find();
-        } catch (UnsupportedEncodingException e) {
-            return false;
-        } catch (FileNotFoundException e) {
-            return false;
-        } catch (IOException e) {
-            return false;
-        }
+        // Check pagexml for TextEquivs with index higher 0 (scan results are cached in the page state index)
+        PageState state = pageStateIndex.getState(pageId);
+        return state != null && state.isRecognition();
     }
 
     /**
@@ -168,33 +130,19 @@ public class ProcessStateCollector {
      * @return "result" state of the page
      */
     public boolean groundTruthState(String pageId) {
-        // Check pagexml for TextEquivs
-        File pageXML = new File(projConf.OCR_DIR + pageId + projConf.CONF_EXT);
-        if (!pageXML.exists())
-            return false;
+        // Check pagexml for TextEquivs with index 0 (scan results are cached in the page state index)
+        PageState state = pageStateIndex.getState(pageId);
+        return state != null && state.isGroundTruth();
+    }
 
-        // Easy and fast check if an end tag of a TextLine exists 
-        // Does not check if the xml is valid
-        try (FileInputStream fis = new FileInputStream(pageXML)){
-            byte[] data = new byte[(int) pageXML.length()];
-            fis.read(data);
-            fis.close();
-            String pageXMLContent = new String(data, "UTF-8");
-            
-            Pattern p = Pattern.compile("\\<TextEquiv[^>]+?index=\"0\"");
-            Matcher matcher = p.matcher(pageXMLContent);
-
-            if(matcher.find()) {
-                return true;
-            }
-        } catch (UnsupportedEncodingException e) {
-            return false;
-        } catch (FileNotFoundException e) {
-            return false;
-        } catch (IOException e) {
-            return false;
-        }
-        return false;
+    /**
+     * Returns all PageXML based states of a given page including its region and line counts
+     *
+     * @param pageId Identifier of the page (e.g 0002,0003)
+     * @return States of the page or null if no PageXML exists
+     */
+    public PageState pageXMLState(String pageId) {
+        return pageStateIndex.getState(pageId);
     }
 
     /**
@@ -0,0 +1,16 @@
+package de.uniwue.feature;
+
+/**
+ * Interface for parsers that extract progress information from the console output of an external program
+ * Parsers are called by the StreamHandlers of the ProcessHandler for every line of std.out and std.err
+ */
+public interface ProgressLineParser {
+    /**
+     * Parses a console line of the process
+     *
+     * @param line Console line (without line separator)
+     * @param progress Progress object to update
+     * @return TRUE if the line only contains progress information and should not be added to the console
+     */
+    boolean parseLine(String line, ProcessProgress progress);
+}
@@ -0,0 +1,368 @@
+package de.uniwue.feature;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Class to recognize pages with a long-lived worker process instead of starting calamari-predict for every execution
+ * The worker keeps the loaded models cached (by checkpoint path, least recently used models are evicted), so that
+ * small batches do not have to wait for the startup of TensorFlow and the loading of the checkpoints.
+ *
+ * Protocol: the worker reads one JSON request per line from stdin and writes one JSON message per line to stdout.
+ * Logs of the worker belong to stderr, as stdout is reserved for the protocol. The worker exits at the end of stdin.
+ * A worker that does not send a message of the current request within the timeout is terminated.
+ * The memory of the cached models stays allocated between recognitions and is not part of the budgets of the
+ * JobScheduler, which only covers the executions. The capacity of the scheduler (/ajax/job/scheduler/capacity)
+ * needs to be reduced by the memory of the worker if one is configured.
+ * Requests:
+ *     {"id": 1, "type": "predict", "checkpoints": [...], "files": [...], "args": [...], "dataset": "PAGEXML", "extension": ".xml"}
+ *     {"id": 2, "type": "ping"}
+ *     {"id": 3, "type": "shutdown"}
+ * Messages:
+ *     {"id": 1, "type": "progress", "processed": 3, "total": 10}
+ *     {"id": 1, "type": "log", "message": "..."}
+ *     {"id": 1, "type": "done", "models": [...], "loaded": [...]}
+ *     {"id": 2, "type": "pong", "models": [...]}
+ *     {"id": 1, "type": "error", "message": "..."}
+ */
+public class RecognitionWorker {
+    /**
+     * Environment variable with the command that starts the worker (e.g. "calamari-predict-worker --max-models 4")
+     * Recognition uses calamari-predict if it is not set
+     */
+    public static final String WORKER_COMMAND_VARIABLE = "OCR4ALL_RECOGNITION_WORKER";
+
+    /**
+     * Time in minutes that the worker may take for a single message (e.g. loading the models or a large page)
+     */
+    private static final long MESSAGE_TIMEOUT_MINUTES = 30;
+
+    /**
+     * Marks the end of the stdout of the worker in the message queue
+     */
+    private static final String END_OF_MESSAGES = new String();
+
+    /**
+     * Started workers (command : worker)
+     */
+    private static final Map<String, RecognitionWorker> workers = new HashMap<String, RecognitionWorker>();
+
+    /**
+     * Command that starts the worker
+     */
+    private final List<String> command;
+
+    /**
+     * Object to read and write the messages of the protocol
+     */
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * Worker process (null if not started yet)
+     */
+    private volatile Process process;
+
+    /**
+     * Stdin of the worker
+     */
+    private BufferedWriter requestWriter;
+
+    /**
+     * Lines of the stdout of the worker (read by a separate thread, so that waiting for them can time out)
+     */
+    private BlockingQueue<String> messageLines;
+
+    /**
+     * Identifier of the next request
+     */
+    private long nextRequestId = 1;
+
+    /**
+     * Objects that wait for the worker (owner : cancelled while waiting)
+     */
+    private final Map<Object, Boolean> waitingOwners = new ConcurrentHashMap<Object, Boolean>();
+
+    /**
+     * Object that submitted the current request (null if the worker is idle)
+     */
+    private volatile Object currentOwner;
+
+    /**
+     * Indicates that the current request was cancelled
+     */
+    private volatile boolean currentCancelled = false;
+
+    /**
+     * Consumer of the stderr lines of the worker during the current request
+     */
+    private volatile Consumer<String> errorConsumer;
+
+    /**
+     * Constructor
+     *
+     * @param command Command that starts the worker
+     */
+    private RecognitionWorker(List<String> command) {
+        this.command = command;
+    }
+
+    /**
+     * Returns the worker that is configured with the environment variable
+     *
+     * @return Worker or null if no worker is configured
+     */
+    public static RecognitionWorker getConfiguredWorker() {
+        String command = System.getenv(WORKER_COMMAND_VARIABLE);
+        if (command == null || command.trim().isEmpty())
+            return null;
+
+        return getWorker(Arrays.asList(command.trim().split("\\s+")));
+    }
+
+    /**
+     * Returns the worker of a command (all sessions share the workers and therefore the cached models)
+     *
+     * @param command Command that starts the worker
+     * @return Worker (started with the first request)
+     */
+    public static synchronized RecognitionWorker getWorker(List<String> command) {
+        return workers.computeIfAbsent(String.join(" ", command), key -> new RecognitionWorker(command));
+    }
+
+    /**
+     * Recognizes the given files with the worker
+     * Requests are executed one after another, the worker is (re)started if it is not running
+     * Requests that are cancelled while waiting for the previous ones are not executed
+     *
+     * @param owner Object that submits the request (needed to cancel it)
+     * @param checkpoints Paths of the models (ensemble)
+     * @param files Paths of the page images
+     * @param arguments Further command line arguments of calamari-predict
+     * @param progress Progress object that is updated with the progress of the worker
+     * @param console Process handler whose console shows the output of the worker
+     * @throws IOException If the worker reports an error or terminates unexpectedly
+     */
+    public void predict(Object owner, List<String> checkpoints, List<String> files,
+            List<String> arguments, ProcessProgress progress, ProcessHandler console) throws IOException {
+        waitingOwners.put(owner, false);
+        try {
+            synchronized (this) {
+                predictCurrent(owner, checkpoints, files, arguments, progress, console);
+            }
+        } finally {
+            waitingOwners.remove(owner);
+        }
+    }
+
+    /**
+     * Recognizes the given files with the worker (needs to be called with the lock of the worker)
+     *
+     * @param owner Object that submits the request (needed to cancel it)
+     * @param checkpoints Paths of the models (ensemble)
+     * @param files Paths of the page images
+     * @param arguments Further command line arguments of calamari-predict
+     * @param progress Progress object that is updated with the progress of the worker
+     * @param console Process handler whose console shows the output of the worker
+     * @throws IOException If the worker reports an error or terminates unexpectedly
+     */
+    private void predictCurrent(Object owner, List<String> checkpoints, List<String> files,
+            List<String> arguments, ProcessProgress progress, ProcessHandler console) throws IOException {
+        currentOwner = owner;
+        currentCancelled = false;
+        errorConsumer = console::appendConsoleError;
+        try {
+            // The owner becomes the current one before the check, so that a cancel cannot be missed
+            if (Boolean.TRUE.equals(waitingOwners.remove(owner)))
+                return;
+
+            ensureStarted();
+
+            long requestId = nextRequestId++;
+            ObjectNode request = mapper.createObjectNode();
+            request.put("id", requestId);
+            request.put("type", "predict");
+            ArrayNode checkpointList = request.putArray("checkpoints");
+            checkpoints.forEach(checkpointList::add);
+            ArrayNode fileList = request.putArray("files");
+            files.forEach(fileList::add);
+            ArrayNode argumentList = request.putArray("args");
+            arguments.forEach(argumentList::add);
+            request.put("dataset", "PAGEXML");
+            // Overwrite the original PageXML files (like calamari-predict with --extension .xml)
+            request.put("extension", ".xml");
+            requestWriter.write(mapper.writeValueAsString(request));
+            requestWriter.newLine();
+            requestWriter.flush();
+
+            while (true) {
+                JsonNode message = readMessage(requestId, console);
+                switch (message.path("type").asText()) {
+                    case "progress":
+                        progress.setTotalUnits(message.path("total").asInt());
+                        progress.setCompletedUnits(message.path("processed").asInt());
+                        break;
+                    case "log":
+                        console.appendConsoleOutput(message.path("message").asText());
+                        break;
+                    case "done":
+                        console.appendConsoleOutput("Cached models: " + message.path("models").toString());
+                        return;
+                    case "error":
+                        throw new IOException("Recognition worker failed: " + message.path("message").asText());
+                    default:
+                        break;
+                }
+            }
+        } catch (IOException e) {
+            // The worker is terminated by cancelling the request
+            if (currentCancelled)
+                return;
+            throw e;
+        } finally {
+            currentOwner = null;
+            errorConsumer = null;
+        }
+    }
+
+    /**
+     * Terminates all started workers (e.g. on shutdown of the application)
+     */
+    public static synchronized void shutdownAll() {
+        for (RecognitionWorker worker : workers.values()) {
+            Process workerProcess = worker.process;
+            if (workerProcess != null)
+                workerProcess.destroy();
+        }
+    }
+
+    /**
+     * Cancels the request of an owner
+     * The worker is terminated (and loses its cached models) as it cannot be interrupted otherwise
+     *
+     * @param owner Object that submitted the request
+     */
+    public void cancel(Object owner) {
+        if (owner == null)
+            return;
+
+        // Requests that wait for the worker are skipped as soon as it is their turn
+        if (waitingOwners.replace(owner, false, true) || currentOwner != owner)
+            return;
+
+        currentCancelled = true;
+        Process workerProcess = process;
+        if (workerProcess != null)
+            workerProcess.destroy();
+    }
+
+    /**
+     * Reads the next message of a request from the worker
+     * Lines that do not belong to the protocol are shown on the console
+     *
+     * @param requestId Identifier of the request
+     * @param console Process handler whose console shows the output of the worker
+     * @return Message of the worker
+     * @throws IOException If the worker terminated or did not respond in time
+     */
+    private JsonNode readMessage(long requestId, ProcessHandler console) throws IOException {
+        while (true) {
+            String line;
+            try {
+                line = messageLines.poll(MESSAGE_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                process.destroy();
+                throw new IOException("Recognition was interrupted while waiting for the worker", e);
+            }
+
+            if (line == null) {
+                // A hanging worker would block all further requests
+                process.destroy();
+                throw new IOException("Recognition worker did not respond within " + MESSAGE_TIMEOUT_MINUTES + " minutes");
+            }
+            if (line == END_OF_MESSAGES)
+                throw new IOException("Recognition worker terminated unexpectedly");
+
+            if (!line.trim().startsWith("{")) {
+                console.appendConsoleOutput(line);
+                continue;
+            }
+
+            JsonNode message = mapper.readTree(line);
+            if (message.path("id").asLong() == requestId)
+                return message;
+        }
+    }
+
+    /**
+     * Starts the worker if it is not running
+     *
+     * @throws IOException If the worker cannot be started
+     */
+    private void ensureStarted() throws IOException {
+        if (process != null && process.isAlive())
+            return;
+
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
+        // Same Python settings as for the processes of the ProcessHandler
+        Map<String, String> env = processBuilder.environment();
+        env.put("PYTHONUNBUFFERED", "1");
+        env.put("PYTHONIOENCODING", "utf-8");
+        env.put("TF_CPP_MIN_LOG_LEVEL", "3");
+        env.put("PYTHONWARNINGS", "ignore");
+
+        Process workerProcess = processBuilder.start();
+        requestWriter = new BufferedWriter(new OutputStreamWriter(workerProcess.getOutputStream(), StandardCharsets.UTF_8));
+        BlockingQueue<String> lines = new LinkedBlockingQueue<String>();
+        messageLines = lines;
+
+        Thread outputThread = new Thread(() -> {
+            try (BufferedReader messageReader = new BufferedReader(
+                    new InputStreamReader(workerProcess.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = messageReader.readLine()) != null)
+                    lines.add(line);
+            } catch (IOException e) {
+                // Stream is closed by terminating the worker
+            }
+            lines.add(END_OF_MESSAGES);
+        }, "recognition-worker-stdout");
+        outputThread.setDaemon(true);
+        outputThread.start();
+
+        Thread errorThread = new Thread(() -> {
+            try (BufferedReader errorReader = new BufferedReader(
+                    new InputStreamReader(workerProcess.getErrorStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = errorReader.readLine()) != null) {
+                    Consumer<String> consumer = errorConsumer;
+                    if (consumer != null)
+                        consumer.accept(line);
+                }
+            } catch (IOException e) {
+                // Stream is closed by terminating the worker
+            }
+        }, "recognition-worker-stderr");
+        errorThread.setDaemon(true);
+        errorThread.start();
+        process = workerProcess;
+    }
+}
@@ -0,0 +1,17 @@
+package de.uniwue.feature;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+
+/**
+ * Class to terminate the recognition workers when the application is stopped
+ */
+public class RecognitionWorkerShutdown implements ServletContextListener {
+    @Override
+    public void contextDestroyed(ServletContextEvent arg0) {
+        RecognitionWorker.shutdownAll();
+    }
+
+    @Override
+    public void contextInitialized(ServletContextEvent arg0) { }
+}
@@ -0,0 +1,289 @@
+package de.uniwue.feature;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.util.DigestUtils;
+
+/**
+ * Class to cache scaled renditions of images on disk
+ * Entries are addressed by the source path, the modification time and size of the source and the target
+ * size and format. A changed source therefore never matches its old renditions, which are deleted as soon
+ * as a rendition of the new version is stored. The cache is bounded by size and evicts the least recently
+ * used renditions first.
+ */
+public class ScaledImageCache {
+    /**
+     * Default maximum size of all cached renditions in bytes
+     */
+    public static final long DEFAULT_MAX_BYTES = 512L * 1024 * 1024;
+
+    /**
+     * Widths of the standard thumbnails that can be pre-generated (as requested by the image list)
+     */
+    public static final List<Integer> THUMBNAIL_WIDTHS = Collections.unmodifiableList(Arrays.asList(150));
+
+    /**
+     * Directory of the cached renditions
+     */
+    private static final File CACHE_DIR = new File(System.getProperty("java.io.tmpdir"), "ocr4all-image-cache");
+
+    /**
+     * Extension of renditions that are not completely written yet
+     */
+    private static final String TMP_EXT = ".tmp";
+
+    /**
+     * Maximum size of all cached renditions in bytes
+     */
+    private static long maxBytes = DEFAULT_MAX_BYTES;
+
+    /**
+     * Cached renditions in access order (file name : size in bytes)
+     */
+    private static final LinkedHashMap<String, Long> entries = new LinkedHashMap<String, Long>(16, 0.75f, true);
+
+    /**
+     * Cached renditions of every source (source hash : file names)
+     */
+    private static final Map<String, Set<String>> sourceEntries = new HashMap<String, Set<String>>();
+
+    /**
+     * Size of all cached renditions in bytes
+     */
+    private static long totalBytes = 0;
+
+    /**
+     * Indicates if the existing renditions on disk were indexed
+     */
+    private static boolean initialized = false;
+
+    /**
+     * Constructor
+     */
+    private ScaledImageCache() { }
+
+    /**
+     * Gets a cached rendition of an image
+     *
+     * @param source Source image file
+     * @param width Width of the rendition (-1 if scaled by height)
+     * @param height Height of the rendition (-1 if scaled by width)
+     * @param format Image format of the rendition (e.g. png)
+     * @return Encoded rendition or null if it is not cached
+     */
+    public static byte[] get(File source, int width, int height, String format) {
+        String name = getEntryName(source, width, height, format);
+        File entryFile = new File(CACHE_DIR, name);
+        synchronized (entries) {
+            initialize();
+            // Access updates the LRU order
+            if (entries.get(name) == null)
+                return null;
+        }
+
+        try {
+            byte[] bytes = Files.readAllBytes(entryFile.toPath());
+            // Keeps the LRU order across restarts
+            entryFile.setLastModified(System.currentTimeMillis());
+            return bytes;
+        } catch (IOException e) {
+            // Entry was evicted or removed in the meantime
+            synchronized (entries) {
+                removeEntry(name);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Stores a rendition of an image
+     * Renditions of older versions of the source are removed
+     *
+     * @param source Source image file
+     * @param width Width of the rendition (-1 if scaled by height)
+     * @param height Height of the rendition (-1 if scaled by width)
+     * @param format Image format of the rendition (e.g. png)
+     * @param bytes Encoded rendition
+     */
+    public static void put(File source, int width, int height, String format, byte[] bytes) {
+        if (bytes.length > maxBytes)
+            return;
+
+        String name = getEntryName(source, width, height, format);
+        String versionPrefix = name.substring(0, name.lastIndexOf('_') + 1);
+        synchronized (entries) {
+            initialize();
+            if (!CACHE_DIR.isDirectory() && !CACHE_DIR.mkdirs())
+                return;
+
+            try {
+                // Write to a temporary file first, so that readers never see partial renditions
+                File tmpFile = new File(CACHE_DIR, name + TMP_EXT);
+                Files.write(tmpFile.toPath(), bytes);
+                Files.move(tmpFile.toPath(), new File(CACHE_DIR, name).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                e.printStackTrace();
+                return;
+            }
+
+            // Invalidate the renditions of older versions of the source
+            Set<String> names = sourceEntries.get(getSourceHash(name));
+            if (names != null) {
+                for (String oldName : new ArrayList<String>(names)) {
+                    if (!oldName.startsWith(versionPrefix))
+                        deleteEntry(oldName);
+                }
+            }
+
+            removeEntry(name);
+            addEntry(name, bytes.length);
+            evict();
+        }
+    }
+
+    /**
+     * Sets the maximum size of all cached renditions
+     *
+     * @param bytes Maximum size in bytes
+     */
+    public static void setMaxBytes(long bytes) {
+        synchronized (entries) {
+            maxBytes = Math.max(0, bytes);
+            evict();
+        }
+    }
+
+    /**
+     * Returns the size of all cached renditions
+     *
+     * @return Size in bytes
+     */
+    public static long getTotalBytes() {
+        synchronized (entries) {
+            initialize();
+            return totalBytes;
+        }
+    }
+
+    /**
+     * Indexes the renditions that already exist on disk (ordered by their last access)
+     * Needs to be called with the lock of the entries
+     */
+    private static void initialize() {
+        if (initialized)
+            return;
+        initialized = true;
+
+        File[] files = CACHE_DIR.listFiles();
+        if (files == null)
+            return;
+
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File file : files) {
+            if (!file.isFile())
+                continue;
+
+            // Remove renditions that were interrupted while writing
+            if (file.getName().endsWith(TMP_EXT))
+                file.delete();
+            else
+                addEntry(file.getName(), file.length());
+        }
+        evict();
+    }
+
+    /**
+     * Removes the least recently used renditions until the cache fits its maximum size
+     * Needs to be called with the lock of the entries
+     */
+    private static void evict() {
+        Iterator<String> iterator = new ArrayList<String>(entries.keySet()).iterator();
+        while (totalBytes > maxBytes && iterator.hasNext())
+            deleteEntry(iterator.next());
+    }
+
+    /**
+     * Adds a rendition to the index
+     *
+     * @param name File name of the rendition
+     * @param bytes Size of the rendition
+     */
+    private static void addEntry(String name, long bytes) {
+        entries.put(name, bytes);
+        totalBytes += bytes;
+        sourceEntries.computeIfAbsent(getSourceHash(name), hash -> new HashSet<String>()).add(name);
+    }
+
+    /**
+     * Removes a rendition from the index
+     *
+     * @param name File name of the rendition
+     */
+    private static void removeEntry(String name) {
+        Long bytes = entries.remove(name);
+        if (bytes == null)
+            return;
+
+        totalBytes -= bytes;
+        String sourceHash = getSourceHash(name);
+        Set<String> names = sourceEntries.get(sourceHash);
+        if (names != null) {
+            names.remove(name);
+            if (names.isEmpty())
+                sourceEntries.remove(sourceHash);
+        }
+    }
+
+    /**
+     * Removes a rendition from the index and the disk
+     *
+     * @param name File name of the rendition
+     */
+    private static void deleteEntry(String name) {
+        removeEntry(name);
+        new File(CACHE_DIR, name).delete();
+    }
+
+    /**
+     * Builds the file name of a rendition
+     * Format: {source hash}_{modification time}_{source size}_{width}x{height}.{format}
+     *
+     * @param source Source image file
+     * @param width Width of the rendition
+     * @param height Height of the rendition
+     * @param format Image format of the rendition
+     * @return File name of the rendition
+     */
+    private static String getEntryName(File source, int width, int height, String format) {
+        String sourceHash = DigestUtils.md5DigestAsHex(source.getAbsolutePath().getBytes(StandardCharsets.UTF_8));
+        return sourceHash + "_" + Long.toHexString(source.lastModified()) + "_" + Long.toHexString(source.length())
+            + "_" + width + "x" + height + "." + format;
+    }
+
+    /**
+     * Extracts the source hash of a rendition
+     *
+     * @param name File name of the rendition
+     * @return Hash of the source path
+     */
+    private static String getSourceHash(String name) {
+        int separator = name.indexOf('_');
+        return (separator > -1) ? name.substring(0, separator) : name;
+    }
+}
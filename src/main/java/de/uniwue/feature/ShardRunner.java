@@ -0,0 +1,174 @@
+package de.uniwue.feature;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Class to execute an external program as parallel processes (shards) that work on different pages
+ * All shards write to the console of a common process handler. If a shard fails (non-zero exit value),
+ * the remaining shards are stopped and the execution fails.
+ */
+public class ShardRunner {
+    /**
+     * Class for a single process of the execution
+     */
+    private static class Shard {
+        private final ProcessHandler handler;
+        private final String program;
+        private final List<String> arguments;
+
+        Shard(ProcessHandler handler, String program, List<String> arguments) {
+            this.handler = handler;
+            this.program = program;
+            this.arguments = arguments;
+        }
+    }
+
+    /**
+     * Handler whose console is shared by all shards
+     */
+    private final ProcessHandler consoleHandler;
+
+    /**
+     * Indicates if the execution is still running (false after it was cancelled)
+     */
+    private final BooleanSupplier running;
+
+    /**
+     * Shards of the execution
+     */
+    private final List<Shard> shards = new CopyOnWriteArrayList<Shard>();
+
+    /**
+     * Constructor
+     *
+     * @param consoleHandler Handler whose console is shared by all shards
+     * @param running Indicates if the execution is still running (false after it was cancelled)
+     */
+    public ShardRunner(ProcessHandler consoleHandler, BooleanSupplier running) {
+        this.consoleHandler = consoleHandler;
+        this.running = running;
+    }
+
+    /**
+     * Splits the pages into shards with a balanced weight
+     * Pages are assigned by descending weight to the shard with the least weight so far
+     *
+     * @param pageIds Identifiers of the pages (e.g 0002,0003)
+     * @param shardCount Number of shards
+     * @param weight Weight of a page (e.g. image size or number of text lines)
+     * @return Page identifiers of every shard (in page order)
+     */
+    public static List<List<String>> partition(List<String> pageIds, int shardCount, ToLongFunction<String> weight) {
+        Map<String, Long> weights = new HashMap<String, Long>();
+        for (String pageId : pageIds)
+            weights.put(pageId, weight.applyAsLong(pageId));
+
+        List<String> sortedPageIds = new ArrayList<String>(pageIds);
+        sortedPageIds.sort((a, b) -> Long.compare(weights.get(b), weights.get(a)));
+
+        List<List<String>> shards = new ArrayList<List<String>>();
+        long[] shardWeights = new long[shardCount];
+        for (int i = 0; i < shardCount; i++)
+            shards.add(new ArrayList<String>());
+        for (String pageId : sortedPageIds) {
+            int smallest = 0;
+            for (int i = 1; i < shardCount; i++) {
+                if (shardWeights[i] < shardWeights[smallest])
+                    smallest = i;
+            }
+            shards.get(smallest).add(pageId);
+            // Count pages without weight as well to distribute them evenly
+            shardWeights[smallest] += Math.max(1, weights.get(pageId));
+        }
+
+        for (List<String> shard : shards)
+            Collections.sort(shard);
+        return shards;
+    }
+
+    /**
+     * Adds a shard to the execution
+     *
+     * @param program Program to execute
+     * @param arguments Command line arguments of the program
+     * @return Process handler of the shard (for further settings like environment variables)
+     */
+    public ProcessHandler addShard(String program, List<String> arguments) {
+        ProcessHandler handler = new ProcessHandler(consoleHandler);
+        handler.setFetchProcessConsole(true);
+        shards.add(new Shard(handler, program, arguments));
+        return handler;
+    }
+
+    /**
+     * Executes all shards and waits for their completion
+     *
+     * @param processName Name of the process for error messages
+     * @throws IOException If a shard could not be started or exited with an error
+     */
+    public void run(String processName) throws IOException {
+        if (shards.isEmpty())
+            return;
+
+        ExecutorService executor = Executors.newFixedThreadPool(shards.size());
+        // Results are taken in order of completion, so that a failed shard stops the others immediately
+        CompletionService<Void> shardResults = new ExecutorCompletionService<Void>(executor);
+        try {
+            int started = 0;
+            for (Shard shard : shards) {
+                // Do not start further shards if the process was cancelled in the meantime
+                if (running.getAsBoolean() == false)
+                    break;
+
+                started++;
+                shardResults.submit(() -> {
+                    shard.handler.startProcess(shard.program, shard.arguments, true);
+                    // Stop shards that were started while the process was cancelled
+                    if (running.getAsBoolean() == false)
+                        shard.handler.stopProcess();
+                    shard.handler.waitForProcessCompletion();
+
+                    // Stopped shards exit with an error as well
+                    int exitValue = shard.handler.getExitValue();
+                    if (exitValue != 0 && running.getAsBoolean())
+                        throw new IOException(shard.program + " exited with value " + exitValue);
+                    return null;
+                });
+            }
+
+            for (int i = 0; i < started; i++)
+                shardResults.take().get();
+        } catch (ExecutionException e) {
+            stop();
+            throw new IOException(processName + " of a shard failed", e.getCause());
+        } catch (InterruptedException e) {
+            stop();
+            Thread.currentThread().interrupt();
+            throw new IOException(processName + " was interrupted", e);
+        } finally {
+            // Stopped shards end by themselves, interrupting them would only abort waiting for them
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Stops all started shards
+     */
+    public void stop() {
+        for (Shard shard : shards)
+            shard.handler.stopProcess();
+    }
+}
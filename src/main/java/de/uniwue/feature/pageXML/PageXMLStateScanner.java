@@ -0,0 +1,92 @@
+package de.uniwue.feature.pageXML;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import de.uniwue.model.PageState;
+
+/**
+ * Class to determine the process states of a page with a single streaming pass over its PageXML file
+ * Only the path of the current element is kept in memory, independent of the size of the file
+ */
+public class PageXMLStateScanner {
+    /**
+     * Factory for the StAX readers (thread-safe after configuration)
+     */
+    private static final XMLInputFactory factory = XMLInputFactory.newInstance();
+    static {
+        // PageXML files do not need DTDs, do not resolve external entities
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+    }
+
+    /**
+     * Scans the PageXML file for all process states and element counts at once
+     * Files that are not well-formed (e.g. while being written) are scanned up to the first error
+     *
+     * @param pageXML PageXML file
+     * @return States of the page
+     * @throws IOException
+     */
+    public static PageState scan(File pageXML) throws IOException {
+        PageState state = new PageState();
+        try (InputStream in = new FileInputStream(pageXML)) {
+            XMLStreamReader reader = factory.createXMLStreamReader(in);
+            // Names of the currently open elements (depth of the PageXML structure)
+            Deque<String> elements = new ArrayDeque<String>();
+            // Indicates if the currently open TextLine has a TextEquiv with index 0
+            boolean lineHasGroundTruth = false;
+            try {
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        String name = reader.getLocalName();
+                        if (name.equals("TextLine")) {
+                            state.setLineCount(state.getLineCount() + 1);
+                            lineHasGroundTruth = false;
+                        }
+                        else if (name.endsWith("Region")) {
+                            state.setRegionCount(state.getRegionCount() + 1);
+                        }
+                        else if (name.equals("TextEquiv")) {
+                            String index = reader.getAttributeValue(null, "index");
+                            if (index != null && !index.isEmpty()) {
+                                if (index.equals("0")) {
+                                    state.setGroundTruth(true);
+                                    // Only TextEquivs of the line itself count (not of its words or glyphs)
+                                    if ("TextLine".equals(elements.peek()) && !lineHasGroundTruth) {
+                                        lineHasGroundTruth = true;
+                                        state.setGroundTruthLineCount(state.getGroundTruthLineCount() + 1);
+                                    }
+                                }
+                                else {
+                                    state.setRecognition(true);
+                                }
+                            }
+                        }
+                        elements.push(name);
+                    }
+                    else if (event == XMLStreamConstants.END_ELEMENT) {
+                        elements.pop();
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            // Keep the states that were found until the error occurred
+        }
+        state.setLines(state.getLineCount() > 0);
+        return state;
+    }
+}
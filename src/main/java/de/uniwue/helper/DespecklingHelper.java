@@ -2,15 +2,25 @@ package de.uniwue.helper;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.opencv.core.Mat;
 import org.opencv.imgcodecs.Imgcodecs;
 
 import de.uniwue.config.ProjectConfiguration;
 import de.uniwue.feature.ImageDespeckle;
+import de.uniwue.feature.ImageEncoder;
+import de.uniwue.feature.MatPool;
 import de.uniwue.feature.ProcessConflictDetector;
 import de.uniwue.feature.ProcessStateCollector;
+import de.uniwue.model.ImageEncodingProfile;
 
 /**
  * Helper class for despeckling module
@@ -34,7 +44,12 @@ public class DespecklingHelper {
     /**
      * Indicates if the process should be cancelled
      */
-    private boolean stop = false;
+    private volatile boolean stop = false;
+
+    /**
+     * Number of threads that despeckle pages at the same time
+     */
+    private int despecklingThreads = GenericHelper.getLogicalThreadCount();
 
     /**
      * Constructor
@@ -65,28 +80,114 @@ public class DespecklingHelper {
 
         deleteOldFiles(pageIds);
 
-        double i = 1;
-        int totalPages = pageIds.size();
-        for (String pageId : pageIds) {
-            if (stop == true) 
-                break;
+        final ImageEncodingProfile encodingProfile = ImageEncoder.getProfile(projConf);
+
+        // Pipeline: decoding (read-ahead), despeckling and encoding (write-behind) of different pages overlap
+        // The number of pages in the pipeline is bounded to limit the memory of the decoded images
+        final int totalPages = pageIds.size();
+        final AtomicInteger despeckledPages = new AtomicInteger(0);
+        final Semaphore pagesInPipeline = new Semaphore(2 * despecklingThreads);
+        // The executors end with every execution, so their threads have to release their pooled buffers
+        ExecutorService readExecutor = Executors.newSingleThreadExecutor(MatPool.releasingThreadFactory());
+        ExecutorService despeckleExecutor = Executors.newFixedThreadPool(despecklingThreads, MatPool.releasingThreadFactory());
+        ExecutorService writeExecutor = Executors.newSingleThreadExecutor(MatPool.releasingThreadFactory());
+        List<CompletableFuture<Void>> pages = new ArrayList<CompletableFuture<Void>>();
+        try {
+            for (String pageId : pageIds) {
+                if (stop == true)
+                    break;
+
+                pagesInPipeline.acquire();
+                CompletableFuture<Void> page = CompletableFuture
+                    .supplyAsync(() -> readPage(pageId), readExecutor)
+                    .thenApplyAsync(mat -> despecklePage(mat, maxContourRemovalSize), despeckleExecutor)
+                    .thenAcceptAsync(despeckled -> {
+                        try {
+                            // Save if process is not stopped
+                            // (despeckling can take a while, since the last stop test)
+                            if (despeckled != null && stop == false) {
+                                ImageEncoder.write(projConf.DESP_IMG_DIR + File.separator + pageId + projConf.DESP_IMG_EXT,
+                                    despeckled, encodingProfile);
+                                progress = (int) ((double) despeckledPages.incrementAndGet() / totalPages * 100);
+                            }
+                        } finally {
+                            if (despeckled != null)
+                                despeckled.release();
+                        }
+                    }, writeExecutor);
+                page.whenComplete((result, error) -> pagesInPipeline.release());
+                pages.add(page);
+            }
+
+            CompletableFuture.allOf(pages.toArray(new CompletableFuture<?>[0])).join();
+        } catch (InterruptedException e) {
+            stop = true;
+            Thread.currentThread().interrupt();
+            throw new IOException("Despeckling was interrupted", e);
+        } catch (CompletionException e) {
+            stop = true;
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IOException("Despeckling failed", e.getCause());
+        } finally {
+            readExecutor.shutdown();
+            despeckleExecutor.shutdown();
+            writeExecutor.shutdown();
+        }
+
+        progress = 100;
+    }
+
+    /**
+     * Reads the binary image of a page
+     *
+     * @param pageId Identifier of the page (e.g 0002)
+     * @return Mat of the image (null if the process is stopped)
+     */
+    private Mat readPage(String pageId) {
+        if (stop == true)
+            return null;
+        return Imgcodecs.imread(projConf.BINR_IMG_DIR + File.separator + pageId + projConf.BINR_IMG_EXT);
+    }
 
-            final Mat mat = Imgcodecs.imread(projConf.BINR_IMG_DIR + File.separator + pageId + projConf.BINR_IMG_EXT);
+    /**
+     * Despeckles the image of a page and releases it
+     *
+     * @param mat Mat of the binary image (may be null)
+     * @param maxContourRemovalSize Maximum size of the contours to be removed
+     * @return Mat of the despeckled image (null if the process is stopped)
+     */
+    private Mat despecklePage(Mat mat, double maxContourRemovalSize) {
+        if (mat == null)
+            return null;
+
+        try {
+            if (stop == true)
+                return null;
             // Only the "standard" parameter is needed when despeckling
             // "marked" is only used to highlight changes for the user
-            final Mat despeckled = ImageDespeckle.despeckle(mat, maxContourRemovalSize, "standard");
+            return ImageDespeckle.despeckle(mat, maxContourRemovalSize, "standard");
+        } finally {
             mat.release();
-            // Save if process is not stopped 
-            // (despeckling can take a while, since the last stop test)
-            if(stop == false) {
-				Imgcodecs.imwrite(projConf.DESP_IMG_DIR + File.separator + pageId + projConf.DESP_IMG_EXT, despeckled);
-				progress = (int) (i / totalPages * 100);
-				i = i + 1;
-            }
-            despeckled.release();
         }
+    }
 
-        progress = 100;
+    /**
+     * Getter for the number of threads that despeckle pages at the same time
+     *
+     * @return Number of threads
+     */
+    public int getDespecklingThreads() {
+        return despecklingThreads;
+    }
+
+    /**
+     * Setter for the number of threads that despeckle pages at the same time
+     *
+     * @param despecklingThreads Number of threads
+     */
+    public void setDespecklingThreads(int despecklingThreads) {
+        this.despecklingThreads = Math.max(1, despecklingThreads);
     }
 
     /**
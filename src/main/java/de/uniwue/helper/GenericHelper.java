@@ -6,6 +6,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.List;
 
 import de.uniwue.config.ProjectConfiguration;
 
@@ -100,4 +101,24 @@ public class GenericHelper {
     public static int getLogicalThreadCount() {
         return Runtime.getRuntime().availableProcessors();
     }
+
+    /**
+     * Gets the integer value of a command line argument
+     *
+     * @param cmdArgs Command line arguments
+     * @param name Name of the argument (e.g. --parallel)
+     * @param defaultValue Value if the argument is missing or not an integer
+     * @return Value of the argument
+     */
+    public static int getIntArgument(List<String> cmdArgs, String name, int defaultValue) {
+        int index = cmdArgs.indexOf(name);
+        if (index < 0 || index + 1 >= cmdArgs.size())
+            return defaultValue;
+
+        try {
+            return Integer.parseInt(cmdArgs.get(index + 1));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
 }
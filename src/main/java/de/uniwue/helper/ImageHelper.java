@@ -1,15 +1,22 @@
 package de.uniwue.helper;
 
+import java.awt.Dimension;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.opencv.core.Mat;
 import org.opencv.core.MatOfByte;
 import org.opencv.imgcodecs.Imgcodecs;
 import de.uniwue.config.ProjectConfiguration;
-import de.uniwue.feature.ImageDespeckle;
+import de.uniwue.feature.DespecklePreview;
 import de.uniwue.feature.ImageResize;
+import de.uniwue.feature.MatPool;
+import de.uniwue.feature.ScaledImageCache;
 
 /**
  * Helper class for image based functionality
@@ -25,6 +32,16 @@ public class ImageHelper {
      */
     private ImageResize imageResize = null;
 
+    /**
+     * Single background thread to pre-generate thumbnails without competing with the processes
+     */
+    private static final ExecutorService thumbnailExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "thumbnail-pregeneration");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
     /**
      * Constructor
      *
@@ -50,8 +67,19 @@ public class ImageHelper {
      * @return Byte array of the image
      */
     private byte[] convertImageMatToByte(final Mat img) {
+        return convertImageMatToByte(img, projConf.IMG_EXT.substring(1));
+    }
+
+    /**
+     * Converts the given Mat of an image to a byte array in the given format
+     *
+     * @param img Mat of the image
+     * @param format Image format of the result (png, jpg or webp)
+     * @return Byte array of the image
+     */
+    private byte[] convertImageMatToByte(final Mat img, String format) {
         final MatOfByte matOfByte = new MatOfByte();
-        Imgcodecs.imencode(projConf.IMG_EXT, img, matOfByte); 
+        Imgcodecs.imencode("." + format, img, matOfByte);
         final byte[] bytes = matOfByte.toArray();
         matOfByte.release();
         return bytes;
@@ -65,11 +93,15 @@ public class ImageHelper {
      * @throws IOException
      */
     private String getImageAsBase64(final Mat img) throws IOException {
-    	Mat workImage = (imageResize != null) ? imageResize.getScaledImage(img) : img;
-
-        byte[] returnBuff = convertImageMatToByte(workImage);
-        if(imageResize != null)
-        	workImage.release();
+        byte[] returnBuff;
+        if (imageResize != null) {
+            try (MatPool.PooledMat scaled = imageResize.getPooledScaledImage(img)) {
+                returnBuff = convertImageMatToByte(scaled.mat());
+            }
+        }
+        else {
+            returnBuff = convertImageMatToByte(img);
+        }
         if (returnBuff == null)
             return "";
 
@@ -84,6 +116,12 @@ public class ImageHelper {
      * @throws IOException
      */
     private String getImageAsBase64(String path) throws IOException {
+        // Scaled renditions are served from the cache
+        if (imageResize != null && imageResize.isResizing()) {
+            byte[] bytes = getImageBytes(new File(path), projConf.IMG_EXT.substring(1));
+            return (bytes == null) ? "" : Base64.getEncoder().encodeToString(bytes);
+        }
+
         final Mat img = Imgcodecs.imread(path);
         if (img.empty())
             return "";
@@ -134,22 +172,175 @@ public class ImageHelper {
     }
 
     /**
-     * Binary despeckling and base64 encoding
+     * Binary despeckling with an analyzed page and base64 encoding
      *
-     * @param pageId Identifier of the page (e.g 0002)
+     * @param preview Despeckling preview of the page
      * @param maxContourRemovalSize Maximum size of the contours to be removed
-     * @param illustrationType standard: the result image shows the resulting binary image | 
+     * @param illustrationType standard: the result image shows the resulting binary image |
      *                          marked:  the result image shows the resulting binary image and additionally represents the removed contours
      * @return Resulting binary image as base64 string
-     * @throws IOException 
+     * @throws IOException
      */
-    public String getPreviewDespeckleAsBase64(String pageId, double maxContourRemovalSize, String illustrationType) throws IOException {
-        final Mat binImage = Imgcodecs.imread(projConf.BINR_IMG_DIR + File.separator + pageId + projConf.BINR_IMG_EXT);
-        final Mat despImage = ImageDespeckle.despeckle(binImage, maxContourRemovalSize, illustrationType);
-        binImage.release();
+    public String getPreviewDespeckleAsBase64(DespecklePreview preview, double maxContourRemovalSize, String illustrationType) throws IOException {
+        final Mat despImage = preview.despeckle(maxContourRemovalSize, illustrationType);
+        if (despImage == null)
+            throw new IOException("Despeckling preview is not available anymore");
+
         String base64 = getImageAsBase64(despImage);
         despImage.release();
 
         return base64;
     }
+
+    /**
+     * Gets the despeckling preview of a page
+     * The given preview is reused if it belongs to the current version of the binary page image
+     *
+     * @param pageId Identifier of the page (e.g 0002)
+     * @param preview Previously used preview (can be null)
+     * @return Despeckling preview of the page
+     * @throws IOException
+     */
+    public DespecklePreview getDespecklePreview(String pageId, DespecklePreview preview) throws IOException {
+        File binFile = new File(projConf.BINR_IMG_DIR + pageId + projConf.BINR_IMG_EXT);
+        if (preview != null && preview.isValidFor(binFile))
+            return preview;
+
+        if (!binFile.isFile())
+            throw new IOException("Binary image of page " + pageId + " does not exist");
+        return new DespecklePreview(binFile);
+    }
+
+    /**
+     * Gets the file of the specified page image
+     *
+     * @param pageID Identifier of the page (e.g 0002)
+     * @param imageType Type of the image
+     * @return File of the image
+     */
+    public File getPageImageFile(String pageID, String imageType) {
+        return new File(projConf.getImageDirectoryByType(imageType) + pageID + projConf.getImageExtensionByType(imageType));
+    }
+
+    /**
+     * Gets the file of the specified page segment image
+     *
+     * @param pageID Identifier of the page (e.g 0002)
+     * @param segmentID Identifier of the segment (e.g 0002__000__paragraph)
+     * @return File of the image
+     */
+    public File getSegmentImageFile(String pageID, String segmentID) {
+        return new File(projConf.PAGE_DIR + pageID + File.separator + segmentID + projConf.IMG_EXT);
+    }
+
+    /**
+     * Gets the file of the specified page line image of a segment
+     *
+     * @param pageID Identifier of the page (e.g 0002)
+     * @param segmentID Identifier of the segment (e.g 0002__000__paragraph)
+     * @param lineID Identifier of the line (e.g 0002__000__paragraph__000)
+     * @param imageType Type of the image
+     * @return File of the image
+     */
+    public File getLineImageFile(String pageID, String segmentID, String lineID, String imageType) {
+        return new File(projConf.PAGE_DIR + pageID + File.separator + segmentID
+                + File.separator + lineID + projConf.getImageExtensionByType(imageType));
+    }
+
+    /**
+     * Gets the bytes of an image file in the given format
+     * Files that need neither scaling nor conversion are passed through without decoding
+     * Scaled renditions are taken from the ScaledImageCache and stored there after encoding
+     *
+     * @param imageFile File of the image
+     * @param format Image format of the result (png, jpg or webp)
+     * @return Encoded image (null if the image cannot be read)
+     * @throws IOException
+     */
+    public byte[] getImageBytes(File imageFile, String format) throws IOException {
+        boolean resizing = imageResize != null && imageResize.isResizing();
+        if (!resizing && imageFile.getName().toLowerCase().endsWith("." + format))
+            return Files.readAllBytes(imageFile.toPath());
+
+        if (resizing) {
+            byte[] cached = ScaledImageCache.get(imageFile, imageResize.getResizeWidth(),
+                imageResize.getResizeHeight(), format);
+            if (cached != null)
+                return cached;
+        }
+
+        byte[] bytes;
+        if (resizing) {
+            // Small renditions are decoded with a reduced resolution if the size of the source is known
+            Dimension sourceSize = ImageResize.readImageSize(imageFile);
+            String fileName = imageFile.getName().toLowerCase();
+            boolean jpeg = fileName.endsWith(".jpg") || fileName.endsWith(".jpeg");
+            int reduction = (sourceSize != null) ? imageResize.getDecodeReduction(sourceSize, jpeg) : 1;
+            final Mat img = Imgcodecs.imread(imageFile.getAbsolutePath(), getReducedReadFlag(reduction));
+            if (img.empty())
+                return null;
+
+            try (MatPool.PooledMat scaled = (sourceSize != null)
+                    ? imageResize.getPooledScaledImage(img, sourceSize) : imageResize.getPooledScaledImage(img)) {
+                bytes = convertImageMatToByte(scaled.mat(), format);
+            }
+            img.release();
+            ScaledImageCache.put(imageFile, imageResize.getResizeWidth(), imageResize.getResizeHeight(), format, bytes);
+        }
+        else {
+            final Mat img = Imgcodecs.imread(imageFile.getAbsolutePath());
+            if (img.empty())
+                return null;
+
+            bytes = convertImageMatToByte(img, format);
+            img.release();
+        }
+        return bytes;
+    }
+
+    /**
+     * Gets the imread flag to decode a color image with a reduced resolution
+     * JPEG images are decoded directly in the reduced size, other formats are decoded completely
+     * and then shrunk by OpenCV (see ImageResize.getDecodeReduction)
+     *
+     * @param reduction Reduction factor (1, 2, 4 or 8)
+     * @return Imread flag
+     */
+    private int getReducedReadFlag(int reduction) {
+        switch (reduction) {
+            case 2:  return Imgcodecs.IMREAD_REDUCED_COLOR_2;
+            case 4:  return Imgcodecs.IMREAD_REDUCED_COLOR_4;
+            case 8:  return Imgcodecs.IMREAD_REDUCED_COLOR_8;
+            default: return Imgcodecs.IMREAD_COLOR;
+        }
+    }
+
+    /**
+     * Generates the standard thumbnails of the given page images in the background
+     * Thumbnails that are already cached are skipped
+     *
+     * @param pageIds Identifiers of the pages (e.g 0002,0003)
+     * @param imageTypes Types of the images (e.g. Binary, Gray)
+     */
+    public void pregenerateThumbnails(List<String> pageIds, List<String> imageTypes) {
+        for (String imageType : imageTypes) {
+            for (String pageId : pageIds) {
+                final File imageFile = getPageImageFile(pageId, imageType);
+                for (final int width : ScaledImageCache.THUMBNAIL_WIDTHS) {
+                    thumbnailExecutor.execute(() -> {
+                        if (!imageFile.isFile())
+                            return;
+
+                        ImageHelper thumbnailHelper = new ImageHelper(projConf.PROJECT_DIR);
+                        thumbnailHelper.setImageResize(new ImageResize(width, null));
+                        try {
+                            thumbnailHelper.getImageBytes(imageFile, projConf.IMG_EXT.substring(1));
+                        } catch (IOException e) {
+                            e.printStackTrace();
+                        }
+                    });
+                }
+            }
+        }
+    }
 }
@@ -15,8 +15,11 @@ import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 
 import de.uniwue.config.ProjectConfiguration;
+import de.uniwue.feature.FileProgressTracker;
+import de.uniwue.feature.PageLineSegProgressParser;
 import de.uniwue.feature.ProcessConflictDetector;
 import de.uniwue.feature.ProcessHandler;
+import de.uniwue.feature.ProcessProgress;
 import de.uniwue.feature.ProcessStateCollector;
 
 /**
@@ -55,9 +58,9 @@ public class LineSegmentationHelper {
     private int progress = -1;
 
     /**
-     * Last time the images/pagexml are modified
+     * Tracks the modification of the pagexml files of the process
      */
-    private Map<String,Long> imagesLastModified;
+    private FileProgressTracker progressTracker;
 
     /**
      * Indicates if a Line Segmentation process is already running
@@ -94,12 +97,16 @@ public class LineSegmentationHelper {
      * @throws IOException
      */
     public void initializeProcessState(List<String> pageIds) throws IOException {
-        // Init the listener for image modification
-        imagesLastModified = new HashMap<>();
+        // Init the listener for pagexml modification
+        if (progressTracker != null)
+            progressTracker.close();
+
+        Map<String, List<String>> pageXMLs = new HashMap<String, List<String>>();
         for(String pageId: pageIds) {
-			final String pageXML = projConf.OCR_DIR + pageId + projConf.CONF_EXT;
-			imagesLastModified.put(pageXML,new File(pageXML).lastModified());
-		}
+            pageXMLs.put(pageId, Collections.singletonList(projConf.OCR_DIR + pageId + projConf.CONF_EXT));
+        }
+        progressTracker = new FileProgressTracker(pageXMLs, true, null);
+        progressTracker.start();
     }
 
     /**
@@ -109,21 +116,28 @@ public class LineSegmentationHelper {
      * @throws IOException 
      */
     public int getProgress() throws IOException {
-    	int modifiedCount = 0;
-    	if(imagesLastModified != null) {
-    		for(String pagexml : imagesLastModified.keySet()) {
-				if(imagesLastModified.get(pagexml) < new File(pagexml).lastModified()) {
-					modifiedCount++;
-				}
-    		}
-    		progress = (modifiedCount*100) / imagesLastModified.size();
-    	} else {
-    		progress = -1;
-    	}
-    	
+        if(progressTracker != null) {
+            progress = progressTracker.getProgress();
+        } else {
+            progress = -1;
+        }
+
+        // Pages are reported on the console before the tracker receives the file event
+        ProcessProgress consoleProgress = getProgressDetails();
+        if (consoleProgress != null)
+            progress = Math.max(progress, consoleProgress.getProgress());
         return progress;
     }
 
+    /**
+     * Returns the progress of the process as reported by pagelineseg
+     *
+     * @return Progress object with throughput and estimated remaining time (null if not available)
+     */
+    public ProcessProgress getProgressDetails() {
+        return processHandler.getProcessProgress();
+    }
+
 
     /**
      * Executes line segmentation of all pages
@@ -164,6 +178,7 @@ public class LineSegmentationHelper {
         command.add(segmentListFile.toString());
         command.addAll(cmdArgs);
         processHandler.setFetchProcessConsole(true);
+        processHandler.setProgressParser(new PageLineSegProgressParser(), pageIds.size());
         processHandler.startProcess("pagelineseg", command, false);
         
 
@@ -172,6 +187,7 @@ public class LineSegmentationHelper {
 
         progress = 100;
         lineSegmentationRunning = false;
+        progressTracker.close();
     }
 
     /**
@@ -180,6 +196,8 @@ public class LineSegmentationHelper {
     public void resetProgress() {
         lineSegmentationRunning = false;
         progress = -1;
+        if (progressTracker != null)
+            progressTracker.close();
     }
 
     /**
@@ -1,17 +1,19 @@
 package de.uniwue.helper;
 
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
+import java.awt.image.DataBufferInt;
 import java.io.File;
 import java.io.FileFilter;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.FilenameFilter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.text.DecimalFormat;
 import java.text.MessageFormat;
 import java.time.LocalDateTime;
@@ -19,34 +21,42 @@ import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
-
-import javax.imageio.ImageIO;
-
 import de.uniwue.feature.ProcessHandler;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.pdfbox.io.MemoryUsageSetting;
-import org.apache.pdfbox.multipdf.Splitter;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.rendering.ImageType;
 import org.apache.pdfbox.rendering.PDFRenderer;
-import org.apache.pdfbox.tools.imageio.ImageIOUtil;
-import org.opencv.core.Core;
-import org.opencv.core.CvType;
 import org.opencv.core.Mat;
-import org.opencv.core.MatOfByte;
 import org.opencv.imgcodecs.Imgcodecs;
-import org.opencv.imgproc.Imgproc;
 
 import de.uniwue.config.ProjectConfiguration;
+import de.uniwue.feature.FileProgressTracker;
+import de.uniwue.feature.GtcExportManifest;
+import de.uniwue.feature.ImageEncoder;
+import de.uniwue.feature.ParallelZipWriter;
+import de.uniwue.feature.PageStateIndex;
 import de.uniwue.feature.ProcessStateCollector;
+import de.uniwue.model.GtcManifest;
+import de.uniwue.model.GtcManifestEntry;
+import de.uniwue.model.ImageEncodingBenchmark;
+import de.uniwue.model.ImageEncodingProfile;
 import de.uniwue.model.PageOverview;
+import de.uniwue.model.PageState;
 import de.uniwue.feature.ProcessHandler;
 
 public class OverviewHelper {
@@ -101,7 +111,17 @@ public class OverviewHelper {
      *     ...
      * }
      */
-    private TreeMap<String, TreeMap<String, Boolean>> processState;
+    private Map<String, Map<String, Boolean>> processState;
+
+    /**
+     * Tracks the creation of the backup copies of the process
+     */
+    private FileProgressTracker backupTracker;
+
+    /**
+     * Tracks the creation of the converted PNG images of the process
+     */
+    private FileProgressTracker conversionTracker;
 
     /**
      * Progress of the overview process
@@ -116,22 +136,39 @@ public class OverviewHelper {
     /**
      * Indicates if the process should be cancelled
      */
-    private boolean stopProcess = false;
+    private volatile boolean stopProcess = false;
 
     /**
      * Default value to be used for PDF Rendering
      */
     private int pdfdpi = 300;
 
+    /**
+     * Number of worker threads used to render PDF pages in parallel
+     */
+    private int pdfWorkerThreads = GenericHelper.getLogicalThreadCount();
+
+    /**
+     * Number of worker threads used to back up and convert the images of the project
+     * A value of 1 uses the sequential backup copy and conversion
+     */
+    private int conversionThreads = GenericHelper.getLogicalThreadCount();
+
+    /**
+     * Upper limit in bytes for the raster memory of all PDF pages that are rendered at the same time
+     */
+    private long pdfMemoryLimit = Runtime.getRuntime().maxMemory() / 4;
+
     /**
      * Pages to be converted, used in calculation of conversion progression
      */
-    private int pagesToConvert = -1;
+    private volatile int pagesToConvert = -1;
 
     /**
      * Pages already converted,used in calculation of conversion progression
+     * Updated concurrently by the PDF rendering workers
      */
-    private int pagesConverted = 0;
+    private AtomicInteger pagesConverted = new AtomicInteger(0);
 
     /**
      * Flag to determine which process the Progress bar is currently showing
@@ -144,6 +181,16 @@ public class OverviewHelper {
      */
     private String zipName;
 
+    /**
+     * Number of entries of the current GTC export (-1 if no export was started)
+     */
+    private volatile int exportEntriesTotal = -1;
+
+    /**
+     * Number of entries of the current GTC export that are written
+     */
+    private AtomicInteger exportEntriesWritten = new AtomicInteger(0);
+
     /**
      * Constructor
      *
@@ -185,6 +232,14 @@ public class OverviewHelper {
             pOverview.setRecognition(procStateCol.recognitionState(pageId));
             pOverview.setGroundtruth(procStateCol.groundTruthState(pageId));
 
+            // Counts are collected by the same PageXML scan as the states above
+            PageState pageState = procStateCol.pageXMLState(pageId);
+            if (pageState != null) {
+                pOverview.setRegionCount(pageState.getRegionCount());
+                pOverview.setLineCount(pageState.getLineCount());
+                pOverview.setGroundtruthLineCount(pageState.getGroundTruthLineCount());
+            }
+
             overview.put(pageImg.getName(), pOverview);
         }
         else {
@@ -209,6 +264,8 @@ public class OverviewHelper {
                 String pageId = FilenameUtils.removeExtension(fileEntry.getName());
                 initialize(pageId);
             }
+            // Persist newly scanned page states, so that following loads only need to scan changed files
+            PageStateIndex.getIndex(projConf).save();
         }
         else {
             throw new IOException("Folder does not exist!");
@@ -478,6 +535,8 @@ public class OverviewHelper {
         for (String ext : projConf.CONVERT_IMG_EXTS) 
             allPredicates.add(fileEntry -> fileEntry.getName().endsWith(ext));
 
+        final ImageEncodingProfile encodingProfile = ImageEncoder.getProfile(projConf);
+
         // File depth of 1 -> no recursive (file)listing
         Files.walk(Paths.get(projConf.ORIG_IMG_DIR), 1)
         .map(Path::toFile)
@@ -491,7 +550,7 @@ public class OverviewHelper {
 
                 final Mat image = Imgcodecs.imread(fileEntry.getAbsolutePath());
                 // Convert and save as new image file
-                Imgcodecs.imwrite(FilenameUtils.removeExtension(fileEntry.getAbsolutePath()) + projConf.IMG_EXT, image);
+                ImageEncoder.write(FilenameUtils.removeExtension(fileEntry.getAbsolutePath()) + projConf.IMG_EXT, image, encodingProfile);
                 // Remove old image file (project needs to be valid for the loading process)
                 try {
                     Files.delete(Paths.get(fileEntry.getAbsolutePath()));
@@ -503,6 +562,98 @@ public class OverviewHelper {
         );
     }
 
+    /**
+     * Backs up and converts all images to PNG Extension with a pool of workers
+     * Every worker copies, decodes and encodes a single image, so that the disk access of some images
+     * overlaps with the decoding and encoding of others. Workers mark their images in the processState.
+     *
+     * @param backup Determines if the images are copied to the backup folder before the conversion
+     * @throws IOException
+     */
+    public void convertImagesParallel(boolean backup) throws IOException {
+        if (stopProcess == true)
+            return;
+
+        final ImageEncodingProfile encodingProfile = ImageEncoder.getProfile(projConf);
+        final Map<String, Map<String, Boolean>> state = processState;
+        final File backupDir = new File(projConf.BACKUP_IMG_DIR);
+
+        // Entries that are not part of the process are backed up like in the sequential backup copy
+        File[] entries = new File(projConf.ORIG_IMG_DIR).listFiles();
+        if (entries == null)
+            return;
+        if (backup) {
+            for (File entry : entries) {
+                if (state.containsKey(entry.getName()))
+                    continue;
+                if (entry.isDirectory())
+                    FileUtils.copyDirectoryToDirectory(entry, backupDir);
+                else
+                    FileUtils.copyFileToDirectory(entry, backupDir);
+            }
+        }
+
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, Math.min(conversionThreads, state.size())));
+        try {
+            List<Future<?>> results = new ArrayList<Future<?>>();
+            for (String fileName : state.keySet()) {
+                final File fileEntry = new File(projConf.ORIG_IMG_DIR + fileName);
+                final Map<String, Boolean> status = state.get(fileName);
+                results.add(workers.submit(() -> {
+                    if (stopProcess == true)
+                        return null;
+
+                    if (backup) {
+                        Files.copy(fileEntry.toPath(), new File(backupDir, fileName).toPath(),
+                            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+                        status.put("backup", true);
+                    }
+
+                    if (stopProcess == true)
+                        return null;
+
+                    if (!fileName.endsWith(projConf.IMG_EXT)) {
+                        final Mat image = Imgcodecs.imread(fileEntry.getAbsolutePath());
+                        try {
+                            // Convert and save as new image file
+                            if (!ImageEncoder.write(FilenameUtils.removeExtension(fileEntry.getAbsolutePath()) + projConf.IMG_EXT,
+                                    image, encodingProfile))
+                                throw new IOException("Could not convert " + fileName);
+                        } finally {
+                            image.release();
+                        }
+                        // Remove old image file (project needs to be valid for the loading process)
+                        Files.delete(fileEntry.toPath());
+                    }
+                    status.put("pngConversion", true);
+                    return null;
+                }));
+            }
+
+            for (Future<?> result : results)
+                result.get();
+        } catch (ExecutionException e) {
+            stopProcess = true;
+            throw new IOException("Conversion of the project images failed", e.getCause());
+        } catch (InterruptedException e) {
+            stopProcess = true;
+            Thread.currentThread().interrupt();
+            throw new IOException("Conversion of the project images was interrupted", e);
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Setter for the number of worker threads used to back up and convert the images of the project
+     * A value of 1 uses the sequential backup copy and conversion
+     *
+     * @param workerThreads number of worker threads
+     */
+    public void setConversionThreads(int workerThreads) {
+        conversionThreads = Math.max(1, workerThreads);
+    }
+
     /**
      * Renames all files in the 'original' folder to names that consists of an ascending number of digits (e.g 0001, 0002 ...)
      *
@@ -561,20 +712,32 @@ public class OverviewHelper {
         overviewRunning = true;
         progress = 0;
         pdfConversionFlag = convert;
-        initializeProcessState();
-        if(convert) {
-            try {
-                convertPDF(projConf.ORIG_IMG_DIR,backupDelete);
-            } catch (FileNotFoundException e) {
-                e.printStackTrace();
-            }
+        initializeProcessState(backupDelete && !convert, convert || conversionThreads <= 1);
+        try {
+            if(convert) {
+                try {
+                    convertPDF(projConf.ORIG_IMG_DIR,backupDelete);
+                } catch (FileNotFoundException e) {
+                    e.printStackTrace();
+                }
 
-        } else {
-            if (backupDelete)
-                FileUtils.copyDirectory(new File(projConf.ORIG_IMG_DIR), new File(projConf.BACKUP_IMG_DIR));
+            } else {
+                if (conversionThreads > 1) {
+                    convertImagesParallel(backupDelete);
+                }
+                else {
+                    if (backupDelete)
+                        FileUtils.copyDirectory(new File(projConf.ORIG_IMG_DIR), new File(projConf.BACKUP_IMG_DIR));
 
-            convertImagesToPNG();
-            renameFiles();
+                    convertImagesToPNG();
+                }
+                // The renamed files must not be tracked anymore
+                closeProgressTrackers();
+                renameFiles();
+            }
+        } finally {
+            // The trackers are also started for the PDF conversion and need to be stopped if a conversion fails
+            closeProgressTrackers();
         }
         getProgress();
         overviewRunning = false;
@@ -584,15 +747,21 @@ public class OverviewHelper {
     /**
      * Initializes the structure with which the progress of the process can be monitored
      *
+     * @param backup Determines if the backup of the images is part of the process
+     * @param trackFiles Determines if the states are marked by tracking the created files
+     *                   (false if the workers of the process mark the states themselves)
      * @throws IOException
      */
-    public void initializeProcessState() throws IOException {
+    public void initializeProcessState(boolean backup, boolean trackFiles) throws IOException {
         // Initialize the status structure
-        processState = new TreeMap<String, TreeMap<String, Boolean>>();
+        processState = new ConcurrentSkipListMap<String, Map<String, Boolean>>();
         ArrayList<Predicate<File>> allPredicates = new ArrayList<Predicate<File>>();
         for (String ext : projConf.CONVERT_IMG_EXTS) 
             allPredicates.add(fileEntry -> fileEntry.getName().endsWith(ext));
         allPredicates.add(fileEntry -> fileEntry.getName().endsWith(projConf.IMG_EXT));
+
+        Map<String, List<String>> backupFiles = new HashMap<String, List<String>>();
+        Map<String, List<String>> pngFiles = new HashMap<String, List<String>>();
         // File depth of 1 -> no recursive (file)listing
         Files.walk(Paths.get(projConf.ORIG_IMG_DIR), 1)
         .map(Path::toFile)
@@ -601,12 +770,42 @@ public class OverviewHelper {
         .sorted()
         .forEach(
             fileEntry -> { 
-                TreeMap<String, Boolean> status = new TreeMap<String, Boolean>();
-                status.put("backup", false);
+                Map<String, Boolean> status = new ConcurrentSkipListMap<String, Boolean>();
+                if (backup) {
+                    status.put("backup", false);
+                    backupFiles.put(fileEntry.getName(), Collections.singletonList(projConf.BACKUP_IMG_DIR + fileEntry.getName()));
+                }
                 status.put("pngConversion", false);
+                pngFiles.put(fileEntry.getName(), Collections.singletonList(
+                    projConf.ORIG_IMG_DIR + FilenameUtils.removeExtension(fileEntry.getName()) + projConf.IMG_EXT));
                 processState.put(fileEntry.getName(),status);
             }
         );
+
+        // Mark the process states as soon as the corresponding files are created
+        closeProgressTrackers();
+        if (backup)
+            new File(projConf.BACKUP_IMG_DIR).mkdirs();
+        if (!trackFiles)
+            return;
+
+        final Map<String, Map<String, Boolean>> state = processState;
+        backupTracker = new FileProgressTracker(backupFiles, false, fileName -> state.get(fileName).put("backup", true));
+        backupTracker.start();
+        conversionTracker = new FileProgressTracker(pngFiles, false, fileName -> state.get(fileName).put("pngConversion", true));
+        conversionTracker.start();
+    }
+
+    /**
+     * Stops tracking the files of the process
+     */
+    private void closeProgressTrackers() {
+        if (backupTracker != null)
+            backupTracker.close();
+        if (conversionTracker != null)
+            conversionTracker.close();
+        backupTracker = null;
+        conversionTracker = null;
     }
 
     /**
@@ -622,33 +821,25 @@ public class OverviewHelper {
             if (pagesToConvert < 0) {
                 return 0;
             } else {
-                return (int) ((double) pagesConverted / pagesToConvert * 100);
+                return (int) ((double) pagesConverted.get() / pagesToConvert * 100);
 
             }
         } else {
+            if (processState == null)
+                return 0;
+
+            // States are marked by the progress trackers or the conversion workers
             int files = 0;
             int processedFiles = 0;
-
-            for (String fileName : processState.keySet()) {
-                for (String processType : processState.get(fileName).keySet()) {
-                    files += 1;
-
-                    if (processState.get(fileName).get(processType) == true) {
-                        processedFiles += 1;
-                        continue;
-                    }
-
-                    if (processType == "backup") {
-                        if (new File(projConf.BACKUP_IMG_DIR + fileName).exists())
-                            processState.get(fileName).put(processType, true);
-                    }
-
-                    if (processType == "pngConversion") {
-                        if (new File(projConf.ORIG_IMG_DIR + FilenameUtils.removeExtension(fileName) + projConf.IMG_EXT).exists())
-                            processState.get(fileName).put(processType, true);
-                    }
+            for (Map<String, Boolean> status : processState.values()) {
+                for (boolean processed : status.values()) {
+                    files++;
+                    if (processed)
+                        processedFiles++;
                 }
             }
+            if (files == 0)
+                return 0;
 
             // Safe check, in case Files were not adjusted
             return (progress != 100) ? (int) ((double) processedFiles / files * 100) : 100;
@@ -668,6 +859,7 @@ public class OverviewHelper {
     public void resetProgress() {
         overviewRunning = false;
         progress = -1;
+        closeProgressTrackers();
     }
 
     /**
@@ -691,100 +883,288 @@ public class OverviewHelper {
 
     /**
      * Converts all PDF in folder to several PNG files
+     * The pages are rendered directly from the original documents and stored as soon as they are rendered
      * @param sourceDir data input directory
      * @param deleteBlank Determines if blank pages will not be rendered
      * @throws FileNotFoundException
      */
     public void convertPDF(String sourceDir, boolean deleteBlank) throws FileNotFoundException {
+        pagesToConvert = -1;
+        pagesConverted.set(0);
+
         File dir = new File(sourceDir);
+        if (!dir.exists())
+            throw new FileNotFoundException(dir.getName() + " Folder does not exist");
+
         //Listing all .pdf-Files in Folder
         File[] pdfInDir = dir.listFiles((d, name) -> name.endsWith("pdf"));
         List<File> sortedPDFs = Arrays.stream(pdfInDir)
                 .sorted((f1,f2) -> f1.getName().compareTo(f2.getName())).collect(Collectors.toList());
 
-        if (dir.exists()) {
-            Splitter splitter = new Splitter();
-            splitter.setMemoryUsageSetting(MemoryUsageSetting.setupTempFileOnly());
-            List<PDDocument> docs= new ArrayList<PDDocument>();
-            List<PDDocument> pages = new ArrayList<PDDocument>();
-            try {
-                for (File pdf : sortedPDFs) {
-                    //using temp files to conserve memory usage, at the cost of increasing processing time
-                    docs.add(PDDocument.load(pdf, MemoryUsageSetting.setupTempFileOnly()));
-                }
-                //splitting every pdf in single page pdf to conserve memory usage
-                for(PDDocument doc : docs) {
-                    pages.addAll(splitter.split(doc));
+        try {
+            renderPDFPages(sortedPDFs, dir, deleteBlank);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        sortedPDFs.clear();
+    }
+
+    /**
+     * Single page of a PDF file that needs to be rendered
+     */
+    private static class PdfPage {
+        /**
+         * PDF file that contains the page
+         */
+        private final File pdf;
+
+        /**
+         * Zero based index of the page inside the PDF file
+         */
+        private final int pageIndex;
+
+        /**
+         * Constructor
+         *
+         * @param pdf PDF file that contains the page
+         * @param pageIndex Zero based index of the page inside the PDF file
+         */
+        PdfPage(File pdf, int pageIndex) {
+            this.pdf = pdf;
+            this.pageIndex = pageIndex;
+        }
+    }
+
+    /**
+     * Assigns the final file names to rendered PDF pages in page order
+     * Pages are rendered to temporary files by the workers and renamed as soon as all previous pages are done
+     */
+    private class PdfPageCommitter {
+        /**
+         * Directory the final PNG files are stored in
+         */
+        private final File dir;
+
+        /**
+         * Rendered pages that wait for previous pages (index : temporary file or null if skipped)
+         */
+        private final TreeMap<Integer, File> pending = new TreeMap<Integer, File>();
+
+        /**
+         * Index of the next page that needs to be committed
+         */
+        private int nextIndex = 0;
+
+        /**
+         * Number of pages that were stored as PNG so far
+         */
+        private int pageCounter = 0;
+
+        /**
+         * Constructor
+         *
+         * @param dir Directory the final PNG files are stored in
+         */
+        PdfPageCommitter(File dir) {
+            this.dir = dir;
+        }
+
+        /**
+         * Commits a rendered page and renames all pages that are now in order
+         *
+         * @param index Global index of the page (over all PDF files)
+         * @param rendered Temporary file of the rendered page or null if the page is skipped
+         */
+        synchronized void commit(int index, File rendered) {
+            pending.put(index, rendered);
+            while (pending.containsKey(nextIndex)) {
+                File pageFile = pending.remove(nextIndex);
+                if (pageFile != null) {
+                    //suffix in filename will be used as file format
+                    File target = new File(dir, String.format("%04d", pageCounter + 1) + ".png");
+                    if (pageFile.renameTo(target)) {
+                        pageCounter++;
+                    } else {
+                        // Keep the numbering without gaps, the page is missing in the project
+                        new IOException("Could not store rendered PDF page as " + target).printStackTrace();
+                        pageFile.delete();
+                    }
                 }
-                pagesToConvert = pages.size();
-                int pageCounter = 0;
-
-                //rendering every page to png
-                for (PDDocument page : pages) {
-                    try {
-                        PDFRenderer renderer = new PDFRenderer(page);
-                        //page number parameter is zero based
-                        BufferedImage img = renderer.renderImageWithDPI(0, pdfdpi, ImageType.RGB);
-
-                        if (deleteBlank) {
-                            //check if image is blank page
-                            if (!isBlank(bufferedImageToMat(img), 0.99, 0.99)) {
-                                //suffix in filename will be used as file format
-                                ImageIOUtil.writeImage(img, dir.getPath() + File.separator + String.format("%04d", ++pageCounter) + ".png", pdfdpi);
+                nextIndex++;
+            }
+        }
+
+        /**
+         * Removes temporary files of pages that could not be committed (e.g. due to cancellation)
+         */
+        synchronized void discardPending() {
+            for (File pageFile : pending.values()) {
+                if (pageFile != null)
+                    pageFile.delete();
+            }
+            pending.clear();
+        }
+    }
+
+    /**
+     * Renders all pages of the given PDF files with a bounded pool of workers
+     * Every worker renders the pages straight from its own instance of the currently processed PDF document
+     * (PDFBox documents are not thread-safe), so no split page documents are created
+     * The rendered pages are written out in page order as soon as they are available
+     *
+     * @param sortedPDFs PDF files in the order their pages should be numbered
+     * @param dir Directory to store the PNG files in
+     * @param deleteBlank Determines if blank pages will not be saved
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    private void renderPDFPages(List<File> sortedPDFs, File dir, boolean deleteBlank)
+            throws IOException, InterruptedException {
+        // Only the page count is read up front, the pages themselves are loaded by the workers
+        final List<PdfPage> pdfPages = new ArrayList<PdfPage>();
+        for (File pdf : sortedPDFs) {
+            try (PDDocument doc = PDDocument.load(pdf, MemoryUsageSetting.setupTempFileOnly())) {
+                for (int i = 0; i < doc.getNumberOfPages(); i++)
+                    pdfPages.add(new PdfPage(pdf, i));
+            }
+        }
+        pagesToConvert = pdfPages.size();
+        final ImageEncodingProfile encodingProfile = ImageEncoder.getProfile(projConf);
+
+        // Memory ceiling of all pages that are rendered at the same time (in MB permits)
+        final int memoryPermits = (int) Math.max(1, Math.min(Integer.MAX_VALUE, pdfMemoryLimit >> 20));
+        final Semaphore memory = new Semaphore(memoryPermits);
+        final AtomicInteger nextPage = new AtomicInteger(0);
+        final PdfPageCommitter committer = new PdfPageCommitter(dir);
+
+        int workerCount = Math.max(1, Math.min(pdfWorkerThreads, pdfPages.size()));
+        ExecutorService workers = Executors.newFixedThreadPool(workerCount);
+        for (int w = 0; w < workerCount; w++) {
+            workers.submit(() -> {
+                PDDocument doc = null;
+                PDFRenderer renderer = null;
+                File docFile = null;
+                try {
+                    int index;
+                    while (stopProcess == false && !Thread.currentThread().isInterrupted()
+                            && (index = nextPage.getAndIncrement()) < pdfPages.size()) {
+                        PdfPage page = pdfPages.get(index);
+                        File rendered = null;
+                        try {
+                            if (!page.pdf.equals(docFile)) {
+                                if (doc != null) {
+                                    doc.close();
+                                    doc = null;
+                                    docFile = null;
+                                }
+                                //using temp files to conserve memory usage, at the cost of increasing processing time
+                                doc = PDDocument.load(page.pdf, MemoryUsageSetting.setupTempFileOnly());
+                                renderer = new PDFRenderer(doc);
+                                docFile = page.pdf;
                             }
-                        } else {
-                            ImageIOUtil.writeImage(img, dir.getPath() + File.separator + String.format("%04d", ++pageCounter) + ".png", pdfdpi);
+
+                            // Rendered as RGB image with four bytes per pixel (PDF user space unit is 1/72 inch)
+                            PDRectangle box = doc.getPage(page.pageIndex).getCropBox();
+                            long bytes = (long) Math.ceil(box.getWidth() / 72 * pdfdpi)
+                                       * (long) Math.ceil(box.getHeight() / 72 * pdfdpi) * 4;
+                            int rasterMB = (int) Math.min(memoryPermits, Math.max(1, bytes >> 20));
+
+                            memory.acquire(rasterMB);
+                            try {
+                                BufferedImage img = renderer.renderImageWithDPI(page.pageIndex, pdfdpi, ImageType.RGB);
+
+                                boolean blank = false;
+                                if (deleteBlank) {
+                                    //check if image is blank page
+                                    blank = isBlank(img, 0.99, 0.99);
+                                }
+                                if (!blank) {
+                                    rendered = new File(dir, ".pdf-page-" + index + ".png");
+                                    ImageEncoder.write(img, rendered.getPath(), pdfdpi, encodingProfile);
+                                }
+                            } finally {
+                                memory.release(rasterMB);
+                            }
+                        } catch (Exception e) {
+                            // A single broken page must not stop the commit of the following pages
+                            if (e instanceof InterruptedException)
+                                Thread.currentThread().interrupt();
+                            else
+                                e.printStackTrace();
+                            if (rendered != null)
+                                rendered.delete();
+                            rendered = null;
                         }
-                        page.close();
-                        pagesConverted = pageCounter;
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    } finally {
-                        page.close();
+                        committer.commit(index, rendered);
+                        pagesConverted.incrementAndGet();
                     }
-                }
-
-            } catch (Exception e) {
-                e.printStackTrace();
-            } finally {
-                for (PDDocument doc : docs) {
-                    try {
-                        doc.close();
-                    } catch (IOException e) {
-                        e.printStackTrace();
+                } finally {
+                    if (doc != null) {
+                        try {
+                            doc.close();
+                        } catch (IOException e) {
+                            e.printStackTrace();
+                        }
                     }
                 }
-            }
-        } else {
-            throw new FileNotFoundException(dir.getName() + " Folder does not exist");
+            });
         }
-        sortedPDFs.clear();
+        workers.shutdown();
+        workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+
+        committer.discardPending();
     }
 
     /**
      * Checks if rendered Image is blank white or light-gray
+     * The statistic is computed directly on the raster of the image (no conversion to Mat required)
+     * Uses the same fixed point grayscale conversion and threshold as Imgproc.cvtColor/Imgproc.threshold
      * @param img rendered Image from .pdf
      * @param areaFactor Percent of the area that is allowed to be blank [0,1]
      * @param whiteFactor Percent brightness a pixel has to have to be considered bland [0,1]
      * @return TRUE if Page is blank
      */
-    private boolean isBlank(final Mat img, double areaFactor, double whiteFactor) {
+    static boolean isBlank(final BufferedImage img, double areaFactor, double whiteFactor) {
         if (!(0 <= areaFactor && areaFactor <= 1) || !(0 <= whiteFactor && whiteFactor <= 1)) {
             throw new IllegalArgumentException("Percent factors are not in range of 0% and 100%");
         }
-        // Convert image to grayscale
-        final Mat gray = new Mat(img.size(), CvType.CV_8UC1);
-        Imgproc.cvtColor(img, gray, Imgproc.COLOR_BGR2GRAY);
-        /* Create a binary mask with all pixels that are considered blank as 1
-           and everything else as 0 */
-        final Mat blankMat = new Mat(img.size(), CvType.CV_8UC1);
-        Imgproc.threshold(gray, blankMat, 255 * whiteFactor, 1, Imgproc.THRESH_BINARY);
-        gray.release(); //Clear RAM
-
-        boolean blank = (img.size().height * img.size().width * areaFactor) <= Core.countNonZero(blankMat);
-        blankMat.release(); //Clear RAM
-
-        return blank;
+        final int width = img.getWidth();
+        final int height = img.getHeight();
+        // Pixels strictly brighter than the threshold are considered blank
+        final int minWhite = (int) Math.floor(255 * whiteFactor) + 1;
+
+        long blankPixels = 0;
+        if ((img.getType() == BufferedImage.TYPE_INT_RGB || img.getType() == BufferedImage.TYPE_INT_ARGB)
+                && img.getRaster().getParent() == null) {
+            // Rendered PDF pages: read the packed pixels without any copy
+            for (int pixel : ((DataBufferInt) img.getRaster().getDataBuffer()).getData()) {
+                if (grayValue(pixel) >= minWhite)
+                    blankPixels++;
+            }
+        } else {
+            final int[] row = new int[width];
+            for (int y = 0; y < height; y++) {
+                img.getRGB(0, y, width, 1, row, 0, width);
+                for (int pixel : row) {
+                    if (grayValue(pixel) >= minWhite)
+                        blankPixels++;
+                }
+            }
+        }
+
+        return ((double) height * width * areaFactor) <= blankPixels;
+    }
+
+    /**
+     * Calculates the gray value of a packed RGB pixel (equals Imgproc.COLOR_BGR2GRAY)
+     * @param rgb packed RGB pixel
+     * @return gray value [0,255]
+     */
+    private static int grayValue(int rgb) {
+        final int r = (rgb >> 16) & 0xFF;
+        final int g = (rgb >> 8) & 0xFF;
+        final int b = rgb & 0xFF;
+        return (b * 1868 + g * 9617 + r * 4899 + (1 << 13)) >> 14;
     }
 
     /**
@@ -795,29 +1175,43 @@ public class OverviewHelper {
         pdfdpi = newDPI;
     }
 
+    /**
+     * Setter for the number of worker threads used for PDF rendering
+     * A value of 1 renders all pages sequentially (one page in memory at a time)
+     * @param workerThreads number of worker threads
+     */
+    public void setPdfWorkerThreads(int workerThreads) {
+        pdfWorkerThreads = Math.max(1, workerThreads);
+    }
+
+    /**
+     * Setter for the memory ceiling of the parallel PDF rendering
+     * @param memoryLimit maximum raster memory in bytes of all pages rendered at the same time
+     */
+    public void setPdfMemoryLimit(long memoryLimit) {
+        pdfMemoryLimit = memoryLimit;
+    }
+
     /**
      * Zips processing Directory
      * @param binary    determines if binary image will be zipped
      * @param gray      determines if grayscale image will be zipped
      */
     public void zipDir(Boolean binary, Boolean gray) {
+        zipDir(binary, gray, false);
+    }
+
+    /**
+     * Zips processing Directory
+     * @param binary    determines if binary image will be zipped
+     * @param gray      determines if grayscale image will be zipped
+     * @param incremental determines if only the line pairs that changed since the last export will be zipped
+     */
+    public void zipDir(Boolean binary, Boolean gray, boolean incremental) {
         try {
             if(new File(projConf.PREPROC_DIR).exists()) {
-                LocalDateTime localTime = LocalDateTime.now();
-                DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd-HH-mm-ss")
-                        .withLocale( Locale.getDefault() )
-                        .withZone( ZoneId.systemDefault());
-                zipName = projConf.PROJECT_DIR + "GTC_" + localTime.format(timeFormatter) + ".zip";
-                FileOutputStream fos = new FileOutputStream(zipName);
-                ZipOutputStream zipOut = new ZipOutputStream(fos);
-                FilenameFilter nameFilter = (file, s) -> true;
-                File fileToZip = new File(projConf.PREPROC_DIR);
-                File[] pageFiles = fileToZip.listFiles(nameFilter);
-                for (File pageFile : pageFiles) {
-                    zipFile(pageFile,pageFile.getName(),zipOut, binary, gray);
-                }
-                zipOut.close();
-                fos.close();
+                zipName = projConf.PROJECT_DIR + getGtcArchiveName(incremental);
+                writeGtcArchive(null, binary, gray, incremental, zipName);
             }
         } catch(Exception e) {
             e.printStackTrace();
@@ -831,47 +1225,20 @@ public class OverviewHelper {
      * @param gray      determines if grayscale image will be zipped
      */
     public void zipPages(String pages, Boolean binary, Boolean gray) {
+        zipPages(pages, binary, gray, false);
+    }
 
-        List<String> pageIdSegments = new ArrayList<String>();
-        //splits page input on commas and semi-colons
-        try {
-            Scanner scanner = new Scanner(pages);
-            scanner.useDelimiter(",|;|\n");
-            while(scanner.hasNext()){
-                pageIdSegments.add(scanner.next());
-            }
-            scanner.close();
-        } catch(Exception e) {
-            e.printStackTrace();
-            return;
-        }
-
-        //splits every segment at hyphen and fills this range up with corresponding numbers
-        List<Integer> pageIds = new ArrayList<Integer>();
+    /**
+     * Zips specified pages from processing directory
+     * @param pages pages to zip
+     * @param binary    determines if binary image will be zipped
+     * @param gray      determines if grayscale image will be zipped
+     * @param incremental determines if only the line pairs that changed since the last export will be zipped
+     */
+    public void zipPages(String pages, Boolean binary, Boolean gray, boolean incremental) {
+        List<Integer> pageIds;
         try {
-            if(!pageIdSegments.isEmpty()) {
-                for (String segment : pageIdSegments) {
-                    if(segment.contains("-")) {
-                        Scanner scanner = new Scanner(segment);
-                        scanner.useDelimiter("-");
-                        List<String> pageRange = new ArrayList<String>();
-                        while(scanner.hasNext()){
-                            pageRange.add(scanner.next());
-                        }
-                        if(pageRange.size() == 2) {
-                            for(int i = Integer.parseInt(pageRange.get(0)); i <= Integer.parseInt(pageRange.get(1));i++) {
-                                pageIds.add(i);
-                            }
-                        } else {
-                            throw new IndexOutOfBoundsException("page range is negative or had more than one range");
-                        }
-                    } else {
-                        pageIds.add(Integer.parseInt(segment));
-                    }
-                }
-            } else {
-                throw new IllegalArgumentException("No pages selected");
-            }
+            pageIds = parsePageSelection(pages);
         } catch (Exception e) {
             e.printStackTrace();
             return;
@@ -881,26 +1248,8 @@ public class OverviewHelper {
         try {
             if(!pageIds.isEmpty()) {
                 if(new File(projConf.PREPROC_DIR).exists()) {
-                    LocalDateTime localTime = LocalDateTime.now();
-                    DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd-HH-mm-ss")
-                            .withLocale( Locale.getDefault() )
-                            .withZone( ZoneId.systemDefault());
-                    zipName = projConf.PROJECT_DIR + "GTC_" + localTime.format(timeFormatter) + ".zip";
-                    FileOutputStream fos = new FileOutputStream(zipName);
-                    ZipOutputStream zipOut = new ZipOutputStream(fos);
-                    for (int pageId : pageIds) {
-
-                        FilenameFilter nameFilter = (dir, s) -> s.startsWith(String.format("%04d", pageId));
-
-                        File fileToZip = new File(projConf.PREPROC_DIR);
-                        File[] pageFiles = fileToZip.listFiles(nameFilter);
-                        for (File pageFile : pageFiles) {
-                            zipFile(pageFile,pageFile.getName(),zipOut, binary, gray);
-                        }
-                    }
-
-                    zipOut.close();
-                    fos.close();
+                    zipName = projConf.PROJECT_DIR + getGtcArchiveName(incremental);
+                    writeGtcArchive(pageIds, binary, gray, incremental, zipName);
                 }
             } else{
                 throw new IllegalArgumentException("page list is empty");
@@ -911,57 +1260,250 @@ public class OverviewHelper {
         }
     }
 
-    /**Recursive function that zips files that are either GTC files or folders
+    /**
+     * Streams the GTC archive of the complete processing directory or of the specified pages
+     * The archive is not stored in the project folder
+     * Downloads of selected pages are ad-hoc exports and do not advance the baseline of the incremental exports
+     *
+     * @param pages pages to zip (null to zip the complete directory)
+     * @param binary    determines if binary image will be zipped
+     * @param gray      determines if grayscale image will be zipped
+     * @param incremental determines if only the line pairs that changed since the last export will be zipped
+     * @param archiveName name of the archive (recorded in the export manifest)
+     * @param out       stream to write the archive to (e.g. the output stream of a response)
+     * @throws IOException
+     */
+    public void streamGtc(String pages, Boolean binary, Boolean gray, boolean incremental,
+            String archiveName, OutputStream out) throws IOException {
+        List<Integer> pageIds = (pages == null) ? null : parsePageSelection(pages);
+        if (pageIds != null && pageIds.isEmpty())
+            throw new IllegalArgumentException("page list is empty");
+
+        GtcManifest manifest = writeGtcArchive(pageIds, binary, gray, incremental, archiveName, out);
+        // The archive is complete once it is flushed to the stream
+        out.flush();
+        if (manifest != null && pageIds == null)
+            GtcExportManifest.save(projConf, manifest);
+    }
+
+    /**
+     * Returns the name of a new GTC archive (contains the current timestamp)
+     *
+     * @param incremental determines if the archive only contains the changes since the last export
+     * @return name of the archive
+     */
+    public String getGtcArchiveName(boolean incremental) {
+        LocalDateTime localTime = LocalDateTime.now();
+        DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd-HH-mm-ss")
+                .withLocale( Locale.getDefault() )
+                .withZone( ZoneId.systemDefault());
+        return (incremental ? "GTC_delta_" : "GTC_") + localTime.format(timeFormatter) + ".zip";
+    }
+
+    /**
+     * Parses a page selection (e.g. "1-4,6")
+     * Segments are separated by commas, semi-colons or line breaks, ranges are separated by a hyphen
+     *
+     * @param pages page selection
+     * @return list of the selected page ids
+     */
+    public List<Integer> parsePageSelection(String pages) {
+        List<String> pageIdSegments = new ArrayList<String>();
+        //splits page input on commas and semi-colons
+        Scanner scanner = new Scanner(pages);
+        scanner.useDelimiter(",|;|\n");
+        while(scanner.hasNext()){
+            pageIdSegments.add(scanner.next());
+        }
+        scanner.close();
+
+        if(pageIdSegments.isEmpty())
+            throw new IllegalArgumentException("No pages selected");
+
+        //splits every segment at hyphen and fills this range up with corresponding numbers
+        List<Integer> pageIds = new ArrayList<Integer>();
+        for (String segment : pageIdSegments) {
+            if(segment.contains("-")) {
+                String[] pageRange = segment.split("-");
+                if(pageRange.length == 2) {
+                    for(int i = Integer.parseInt(pageRange[0].trim()); i <= Integer.parseInt(pageRange[1].trim());i++) {
+                        pageIds.add(i);
+                    }
+                } else {
+                    throw new IndexOutOfBoundsException("page range is negative or had more than one range");
+                }
+            } else {
+                pageIds.add(Integer.parseInt(segment.trim()));
+            }
+        }
+        return pageIds;
+    }
+
+    /**
+     * Lists the files and directories of the processing directory that belong to the given pages
+     *
+     * @param pageIds ids of the pages (null for all files)
+     * @return files and directories of the pages
+     */
+    private List<File> getGtcRoots(List<Integer> pageIds) {
+        List<File> roots = new ArrayList<File>();
+        File procDir = new File(projConf.PREPROC_DIR);
+        if (pageIds == null) {
+            File[] pageFiles = procDir.listFiles();
+            if (pageFiles != null)
+                roots.addAll(Arrays.asList(pageFiles));
+            return roots;
+        }
+
+        for (int pageId : pageIds) {
+            FilenameFilter nameFilter = (dir, s) -> s.startsWith(String.format("%04d", pageId));
+            File[] pageFiles = procDir.listFiles(nameFilter);
+            if (pageFiles != null)
+                roots.addAll(Arrays.asList(pageFiles));
+        }
+        return roots;
+    }
+
+    /**
+     * Writes the GTC archive of the given files to a file
+     * The archive is written to a temporary file first, so that an incomplete archive is never visible
+     * The export manifest is only updated once the archive is in place
+     *
+     * @param pageIds   ids of the pages to zip (null for the complete directory)
+     * @param binary    determines if binary image will be zipped
+     * @param gray      determines if grayscale image will be zipped
+     * @param incremental determines if only the line pairs that changed since the last export will be zipped
+     * @param archivePath path of the archive
+     * @throws IOException
+     */
+    private void writeGtcArchive(List<Integer> pageIds, Boolean binary, Boolean gray, boolean incremental,
+            String archivePath) throws IOException {
+        File archive = new File(archivePath);
+        File tmpArchive = new File(archive.getParentFile(), "." + archive.getName() + ".tmp");
+        GtcManifest manifest;
+        try (OutputStream out = new FileOutputStream(tmpArchive)) {
+            manifest = writeGtcArchive(pageIds, binary, gray, incremental, archive.getName(), out);
+        } catch (IOException e) {
+            tmpArchive.delete();
+            throw e;
+        }
+        Files.move(tmpArchive.toPath(), archive.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        if (manifest != null)
+            GtcExportManifest.save(projConf, manifest);
+    }
+
+    /**
+     * Writes the GTC archive of the given files to a stream
+     * Entries are compressed in parallel, PNG images are stored without compression.
+     * Incremental archives only contain the line pairs that changed since the last export and
+     * list the files that were deleted in the meantime.
+     * Only exports of the complete directory and incremental exports advance the baseline of the incremental
+     * exports, a full export of selected pages does not. The returned manifest needs to be saved by the caller
+     * after the archive is final.
+     *
+     * @param pageIds   ids of the pages to zip (null for the complete directory)
+     * @param binary    determines if binary image will be zipped
+     * @param gray      determines if grayscale image will be zipped
+     * @param incremental determines if only the line pairs that changed since the last export will be zipped
+     * @param archiveName name of the archive (recorded in the export manifest)
+     * @param out       stream to write the archive to (not closed)
+     * @return updated export manifest or null if the export does not advance the baseline
+     * @throws IOException
+     */
+    private GtcManifest writeGtcArchive(List<Integer> pageIds, Boolean binary, Boolean gray, boolean incremental,
+            String archiveName, OutputStream out) throws IOException {
+        List<ParallelZipWriter.Source> sources = new ArrayList<ParallelZipWriter.Source>();
+        for (File root : getGtcRoots(pageIds)) {
+            collectGtcFiles(root, root.getName(), sources, binary, gray);
+        }
+
+        // The files are only hashed if the export uses or advances the baseline of the incremental exports
+        boolean advancesBaseline = incremental || pageIds == null;
+        GtcManifest manifest = null;
+        TreeMap<String, GtcManifestEntry> current = null;
+        List<String> deleted = new ArrayList<String>();
+        if (advancesBaseline) {
+            manifest = GtcExportManifest.load(projConf);
+            current = GtcExportManifest.index(sources, manifest);
+        }
+        if (incremental) {
+            deleted = GtcExportManifest.getDeleted(manifest, new File(projConf.PREPROC_DIR));
+            sources = GtcExportManifest.selectChanged(sources, current, manifest);
+            if (!deleted.isEmpty()) {
+                String deletedList = String.join("\n", deleted) + "\n";
+                sources.add(new ParallelZipWriter.Source(GtcExportManifest.DELETED_ENTRY,
+                    deletedList.getBytes(StandardCharsets.UTF_8)));
+            }
+        }
+
+        exportEntriesWritten.set(0);
+        exportEntriesTotal = sources.size();
+        // Independent of the conversion threads of the project adjustment
+        ParallelZipWriter zipWriter = new ParallelZipWriter(out, GenericHelper.getLogicalThreadCount());
+        zipWriter.addAll(sources, exportEntriesWritten::incrementAndGet);
+        zipWriter.finish();
+
+        if (!advancesBaseline)
+            return null;
+
+        // A full export of the complete directory is the new baseline of the incremental exports
+        if (!incremental) {
+            manifest.setEntries(current);
+        } else {
+            manifest.getEntries().keySet().removeAll(deleted);
+            manifest.getEntries().putAll(current);
+        }
+        manifest.setArchive(archiveName);
+        manifest.setIncremental(incremental);
+        return manifest;
+    }
+
+    /**Recursive function that collects files that are either GTC files or folders
      *
      * @param fileToZip absolute path to file
-     * @param fileName  name of file
-     * @param zipOut    ZipOutputStream
+     * @param fileName  name of file within the archive
+     * @param sources   list of the collected archive entries
      * @param binary    determines if binary image will be zipped
      * @param gray      determines if grayscale image will be zipped
      * @throws IOException
      */
-    public void zipFile(File fileToZip, String fileName, ZipOutputStream zipOut, Boolean binary, Boolean gray) throws IOException{
+    private void collectGtcFiles(File fileToZip, String fileName, List<ParallelZipWriter.Source> sources,
+            Boolean binary, Boolean gray) throws IOException {
         //do not zip hidden file
         if (fileToZip.isHidden()) {
             return;
         }
         //if file is directory list all files in directory and check for GTC data
         if (fileToZip.isDirectory()) {
-            if (fileName.endsWith(File.separator)) {
-                zipOut.putNextEntry(new ZipEntry(fileName));
-                zipOut.closeEntry();
-            } else {
-                zipOut.putNextEntry(new ZipEntry(fileName + File.separator));
-                zipOut.closeEntry();
-            }
-            FilenameFilter nameFilter = (dir, s) -> {
-                try {
-                    return checkGTC(dir.toString() + File.separator + s, binary, gray);
-                } catch(IOException e) {
-                    return false;
-                }
-            };
+            sources.add(new ParallelZipWriter.Source(fileToZip, fileName.endsWith("/") ? fileName : fileName + "/"));
+            File[] children = fileToZip.listFiles();
+            if (children == null)
+                return;
 
-            File[] children = fileToZip.listFiles(nameFilter);
+            Arrays.sort(children);
             for (File childFile : children) {
-                zipFile(childFile, fileName + File.separator + childFile.getName(), zipOut, binary, gray);
+                collectGtcFiles(childFile, fileName + "/" + childFile.getName(), sources, binary, gray);
             }
             return;
         }
-        //additional check necessary for root folder
         if(checkGTC(fileName,binary,gray)) {
-            FileInputStream fis = new FileInputStream(fileToZip);
-            ZipEntry zipEntry = new ZipEntry(fileName);
-            zipOut.putNextEntry(zipEntry);
-            byte[] bytes = new byte[1024];
-            int length;
-            while ((length = fis.read(bytes)) >= 0) {
-                zipOut.write(bytes, 0, length);
-            }
-            fis.close();
+            sources.add(new ParallelZipWriter.Source(fileToZip, fileName));
         }
     }
 
+    /**
+     * Returns the progress of the current GTC export
+     *
+     * @return Current progress (range: 0 - 100, -1 if no export was started)
+     */
+    public int getExportProgress() {
+        if (exportEntriesTotal < 0)
+            return -1;
+        if (exportEntriesTotal == 0)
+            return 100;
+        return (int) (exportEntriesWritten.get() * 100L / exportEntriesTotal);
+    }
+
 
     /**
      * Checks if file belongs to Ground Truth Data
@@ -984,21 +1526,6 @@ public class OverviewHelper {
         }
     }
 
-    /**
-     * Converts BufferedImage to OpenCV.Mat
-     * @param bufferedimage buffered image
-     * @return matrix of the buffered image
-     */
-    public Mat bufferedImageToMat(BufferedImage bufferedimage) throws IOException {
-        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-        ImageIO.write(bufferedimage, "png", byteArrayOutputStream);
-        byteArrayOutputStream.flush();
-        final MatOfByte bytes = new MatOfByte(byteArrayOutputStream.toByteArray());
-        final Mat image = Imgcodecs.imdecode(bytes, Imgcodecs.CV_LOAD_IMAGE_UNCHANGED);
-        bytes.release();
-        return image;
-    }
-
     /**
      * Checks if there is any exportable Ground Truth Data in Project
      * @return true if GT data exist
@@ -1031,4 +1558,39 @@ public class OverviewHelper {
         return relZipName;
     }
 
+    /**
+     * Returns the image encoding profile of the project
+     *
+     * @return Encoding profile
+     */
+    public ImageEncodingProfile getEncodingProfile() {
+        return ImageEncoder.getProfile(projConf);
+    }
+
+    /**
+     * Sets the image encoding profile of the project
+     *
+     * @param profile Encoding profile
+     * @throws IOException
+     */
+    public void setEncodingProfile(ImageEncodingProfile profile) throws IOException {
+        ImageEncoder.saveProfile(projConf, profile);
+    }
+
+    /**
+     * Encodes the images of a page with every predefined profile and the profile of the project
+     *
+     * @param pageId Identifier of the page (e.g 0002)
+     * @return Encoded size and encoding time of every image type and profile
+     */
+    public List<ImageEncodingBenchmark> benchmarkEncoding(String pageId) {
+        ImageEncodingProfile projectProfile = ImageEncoder.getProfile(projConf);
+        List<ImageEncodingBenchmark> results = new ArrayList<ImageEncodingBenchmark>();
+        for (String imageType : new String[] { "Original", "Binary", "Gray", "Despeckled" }) {
+            File image = new File(projConf.getImageDirectoryByType(imageType) + pageId + projConf.getImageExtensionByType(imageType));
+            if (image.isFile())
+                results.addAll(ImageEncoder.benchmark(image, imageType, projectProfile));
+        }
+        return results;
+    }
 }
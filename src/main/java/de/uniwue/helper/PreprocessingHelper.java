@@ -3,13 +3,20 @@ package de.uniwue.helper;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
-import java.util.TreeMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 import de.uniwue.config.ProjectConfiguration;
+import de.uniwue.feature.FileProgressTracker;
+import de.uniwue.feature.ImageEncoder;
 import de.uniwue.feature.ProcessConflictDetector;
 import de.uniwue.feature.ProcessHandler;
 import de.uniwue.feature.ProcessStateCollector;
+import de.uniwue.feature.ShardRunner;
+import de.uniwue.model.ImageEncodingProfile;
 
 /**
  * Helper class for preprocessing pages, which also calls the ocrubus-nlbin program 
@@ -43,7 +50,22 @@ public class PreprocessingHelper {
     /**
      * Indicates if a Preprocessing process is already running
      */
-    private boolean preprocessingRunning = false;
+    private volatile boolean preprocessingRunning = false;
+
+    /**
+     * Number of parallel ocropus-nlbin processes (0 uses one process per available thread)
+     */
+    private int shardCount = 0;
+
+    /**
+     * Indicates if the standard thumbnails of the results are generated after the preprocessing
+     */
+    private boolean pregenerateThumbnails = false;
+
+    /**
+     * Parallel ocropus-nlbin processes of the current execution
+     */
+    private volatile ShardRunner shardRunner;
 
     /**
      * Structure to monitor the progress of the process
@@ -56,7 +78,12 @@ public class PreprocessingHelper {
      *     ...
      * }
      */
-    private TreeMap<String, Boolean> processState = new TreeMap<String, Boolean>();
+    private Map<String, Boolean> processState = new ConcurrentSkipListMap<String, Boolean>();
+
+    /**
+     * Tracks the creation of the binary and gray images of the process
+     */
+    private FileProgressTracker progressTracker;
 
     /**
      * Constructor
@@ -81,21 +108,9 @@ public class PreprocessingHelper {
         if (preprocessingRunning == false)
             return progress;
 
-        int imageCount = 0;
-        int processedImageCount = 0;
-        // Identify how many segments are already processed
-        for (String pageId : processState.keySet()) {
-            imageCount += 1;
-            if (processState.get(pageId) == true) {
-                processedImageCount += 1;
-                continue;
-            }
-            File binImage = new File(projConf.BINR_IMG_DIR + pageId + projConf.BINR_IMG_EXT);
-            File grayImage = new File(projConf.GRAY_IMG_DIR + pageId + projConf.GRAY_IMG_EXT);
-            if (binImage.exists() && grayImage.exists()) {
-                processState.put(pageId, true);
-            }
-        }
+        // Processed pages are counted by the progress tracker (pages are marked in the processState)
+        int imageCount = processState.size();
+        int processedImageCount = (progressTracker != null) ? progressTracker.getCompletedCount() : 0;
         return (progress != 100) ? (int) ((double) processedImageCount / imageCount * 100) : 100;
      }
 
@@ -133,10 +148,22 @@ public class PreprocessingHelper {
      */
     public void initializeProcessState(List<String> pageIds) throws IOException {
         // Initialize the status structure
-        processState = new TreeMap<String, Boolean>();
+        processState = new ConcurrentSkipListMap<String, Boolean>();
+        Map<String, List<String>> outputImages = new HashMap<String, List<String>>();
         for(String pageId : pageIds) {
             processState.put(pageId, false);
+            outputImages.put(pageId, Arrays.asList(
+                projConf.BINR_IMG_DIR + pageId + projConf.BINR_IMG_EXT,
+                projConf.GRAY_IMG_DIR + pageId + projConf.GRAY_IMG_EXT
+            ));
         }
+
+        // A page is processed as soon as both of its images are created
+        if (progressTracker != null)
+            progressTracker.close();
+        final Map<String, Boolean> state = processState;
+        progressTracker = new FileProgressTracker(outputImages, false, pageId -> state.put(pageId, true));
+        progressTracker.start();
     }
 
     /**
@@ -161,22 +188,113 @@ public class PreprocessingHelper {
         deleteOldFiles(pageIds);
         initializeProcessState(pageIds);
 
-        List<String> command = new ArrayList<String>();
-        for (String pageId : pageIds) {
-            // Add affected pages with their absolute path to the command list
-            command.add(projConf.ORIG_IMG_DIR + pageId + projConf.IMG_EXT);
+        // Every shard processes its pages sequentially, the parallelism is achieved by the shards
+        List<String> cmdArgsWork = new ArrayList<String>(cmdArgs);
+        int parallelIndex = cmdArgsWork.indexOf("--parallel");
+        if (parallelIndex > -1) {
+            cmdArgsWork.remove(parallelIndex);
+            if (parallelIndex < cmdArgsWork.size())
+                cmdArgsWork.remove(parallelIndex);
         }
-        command.add("-o");
-        command.add(projConf.PREPROC_DIR);
-        command.addAll(cmdArgs);
+        List<List<String>> shards = ShardRunner.partition(pageIds, getEffectiveShardCount(cmdArgs, pageIds.size()),
+            pageId -> new File(projConf.ORIG_IMG_DIR + pageId + projConf.IMG_EXT).length());
 
+        // All shards write to the console of the process handler
+        // Their combined progress is determined by the processState
         processHandler = new ProcessHandler();
         processHandler.setFetchProcessConsole(true);
-        processHandler.startProcess("ocropus-nlbin", command, false);
+        shardRunner = new ShardRunner(processHandler, () -> preprocessingRunning);
+        for (List<String> shard : shards) {
+            List<String> command = new ArrayList<String>();
+            for (String pageId : shard) {
+                // Add affected pages with their absolute path to the command list
+                command.add(projConf.ORIG_IMG_DIR + pageId + projConf.IMG_EXT);
+            }
+            command.add("-o");
+            command.add(projConf.PREPROC_DIR);
+            command.addAll(cmdArgsWork);
+            shardRunner.addShard("ocropus-nlbin", command);
+        }
 
+        try {
+            shardRunner.run("Preprocessing");
+        } catch (IOException e) {
+            cancelProcess();
+            throw e;
+        }
+
+        progressTracker.close();
         getProgress();
+
+        // ocropus-nlbin writes its images with default settings
+        recompressResults(pageIds);
+
         preprocessingRunning = false;
         progress = 100;
+
+        if (pregenerateThumbnails)
+            new ImageHelper(projConf.PROJECT_DIR).pregenerateThumbnails(pageIds, Arrays.asList("Binary", "Gray"));
+    }
+
+    /**
+     * Encodes the binary and gray images of the pages with the encoding profile of the project
+     * Nothing is done for the default profile
+     *
+     * @param pageIds Identifiers of the pages (e.g 0002,0003)
+     */
+    private void recompressResults(List<String> pageIds) {
+        final ImageEncodingProfile encodingProfile = ImageEncoder.getProfile(projConf);
+        if (!encodingProfile.isCustomized())
+            return;
+
+        pageIds.parallelStream().forEach(pageId -> {
+            if (preprocessingRunning == false)
+                return;
+
+            for (File image : new File[] { new File(projConf.BINR_IMG_DIR + pageId + projConf.BINR_IMG_EXT),
+                                           new File(projConf.GRAY_IMG_DIR + pageId + projConf.GRAY_IMG_EXT) }) {
+                if (!image.isFile())
+                    continue;
+                try {
+                    ImageEncoder.recompress(image, encodingProfile);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the number of parallel ocropus-nlbin processes for the given arguments and number of pages
+     *
+     * @param cmdArgs Command line arguments for "ocropus-nlbin"
+     * @param pageCount Number of pages to preprocess
+     * @return Number of shards (at least 1, at most one shard per page)
+     */
+    public int getEffectiveShardCount(List<String> cmdArgs, int pageCount) {
+        int shards = shardCount;
+        if (shards <= 0)
+            shards = GenericHelper.getIntArgument(cmdArgs, "--parallel", GenericHelper.getLogicalThreadCount());
+        return Math.max(1, Math.min(shards, pageCount));
+    }
+
+    /**
+     * Setter for the number of parallel ocropus-nlbin processes
+     * A value of 0 uses the value of the --parallel argument (or the number of logical threads)
+     *
+     * @param shardCount Number of shards
+     */
+    public void setShardCount(int shardCount) {
+        this.shardCount = Math.max(0, shardCount);
+    }
+
+    /**
+     * Setter for the pre-generation of the standard thumbnails of the binary and gray images
+     *
+     * @param pregenerateThumbnails True to generate the thumbnails in the background after the preprocessing
+     */
+    public void setPregenerateThumbnails(boolean pregenerateThumbnails) {
+        this.pregenerateThumbnails = pregenerateThumbnails;
     }
 
     /**
@@ -185,14 +303,19 @@ public class PreprocessingHelper {
     public void resetProgress() {
         preprocessingRunning = false;
         progress = -1;
+        if (progressTracker != null)
+            progressTracker.close();
     }
 
     /**
      * Cancels the process
      */
     public void cancelProcess() {
+        preprocessingRunning = false;
         if (processHandler != null)
             processHandler.stopProcess();
+        if (shardRunner != null)
+            shardRunner.stop();
     }
 
     /**
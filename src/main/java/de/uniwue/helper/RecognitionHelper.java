@@ -25,9 +25,16 @@ import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import de.uniwue.config.ProjectConfiguration;
+import de.uniwue.feature.CalamariPredictProgressParser;
+import de.uniwue.feature.FileProgressTracker;
+import de.uniwue.feature.PageStateIndex;
 import de.uniwue.feature.ProcessConflictDetector;
 import de.uniwue.feature.ProcessHandler;
+import de.uniwue.feature.ProcessProgress;
 import de.uniwue.feature.ProcessStateCollector;
+import de.uniwue.feature.RecognitionWorker;
+import de.uniwue.feature.ShardRunner;
+import de.uniwue.model.PageState;
 
 /**
  * Helper class for recognition module
@@ -68,12 +75,37 @@ public class RecognitionHelper {
     /**
      * Indicates if a Recognition process is already running
      */
-    private boolean RecognitionRunning = false;
+    private volatile boolean RecognitionRunning = false;
 
     /**
-     * Last time the images/pagexml are modified
+     * Tracks the modification of the pagexml files of the process
      */
-    private Map<String,Long> imagesLastModified;
+    private FileProgressTracker progressTracker;
+
+    /**
+     * Number of logical threads used by a shard if the number of shards is determined automatically
+     */
+    private static final int THREADS_PER_SHARD = 4;
+
+    /**
+     * Number of parallel calamari-predict processes (0 determines the number from the logical threads)
+     */
+    private int shardCount = 1;
+
+    /**
+     * Parallel calamari-predict processes of the current execution
+     */
+    private volatile ShardRunner shardRunner;
+
+    /**
+     * Progress of all calamari-predict shards as reported on their consoles
+     */
+    private ProcessProgress recognitionProgress;
+
+    /**
+     * Worker that executes the current recognition (null if calamari-predict is started for the recognition)
+     */
+    private volatile RecognitionWorker recognitionWorker;
 
     /**
      * Structure to monitor the progress of the process
@@ -126,12 +158,16 @@ public class RecognitionHelper {
      * @throws IOException
      */
     public void initialize(List<String> pageIds) throws IOException {
-        // Init the listener for image modification
-        imagesLastModified = new HashMap<>();
+        // Init the listener for pagexml modification
+        if (progressTracker != null)
+            progressTracker.close();
+
+        Map<String, List<String>> pageXMLs = new HashMap<String, List<String>>();
         for(String pageId: pageIds) {
-            final String pageXML = projConf.OCR_DIR + pageId + projConf.CONF_EXT;
-            imagesLastModified.put(pageXML,new File(pageXML).lastModified());
+            pageXMLs.put(pageId, Collections.singletonList(projConf.OCR_DIR + pageId + projConf.CONF_EXT));
         }
+        progressTracker = new FileProgressTracker(pageXMLs, true, null);
+        progressTracker.start();
     }
 
     /**
@@ -165,20 +201,28 @@ public class RecognitionHelper {
         if (RecognitionRunning == false)
             return progress;
 
-        int modifiedCount = 0;
-        if(imagesLastModified != null) {
-            for(String pagexml : imagesLastModified.keySet()) {
-                if(imagesLastModified.get(pagexml) < new File(pagexml).lastModified()) {
-                    modifiedCount++;
-                }
-            }
-            progress = (modifiedCount*100) / imagesLastModified.size();
+        if(progressTracker != null) {
+            progress = progressTracker.getProgress();
         } else {
             progress = -1;
         }
+
+        // The console reports the progress on line level, the PageXML files are written afterwards
+        ProcessProgress consoleProgress = getProgressDetails();
+        if (consoleProgress != null)
+            progress = Math.max(progress, Math.min(consoleProgress.getProgress(), 99));
         return progress;
     }
 
+    /**
+     * Returns the progress of the process as reported by calamari-predict
+     *
+     * @return Progress object with throughput and estimated remaining time (null if not available)
+     */
+    public ProcessProgress getProgressDetails() {
+        return recognitionProgress;
+    }
+
     /**
      * Extracts checkpoints of a String joined by a whitespace
      *
@@ -268,11 +312,153 @@ public class RecognitionHelper {
             }
         }
 
-        List<String> command = new ArrayList<String>();
         List<String> lineSegmentImages = getLineSegmentImagesForCurrentProcess(pageIds);
-        command.add("--files");
-        // Create temp json file with all segment images (to not overload parameter list)
-		// Temp file in a temp folder named "calamari-<random numbers>.json"
+
+        // Recognize with the warm worker if one is configured, otherwise start calamari-predict
+        RecognitionWorker worker = RecognitionWorker.getConfiguredWorker();
+        if (worker != null)
+            recognizeWithWorker(worker, pageIds, cmdArgsWork);
+        else
+            recognizeWithShards(pageIds, cmdArgsWork);
+
+        // Execute progress update to fill processState data structure with correct values
+        getProgress();
+        // Process extension to ocropus-gpageseg script
+        createSkippedSegments();
+
+        progress = 100;
+        RecognitionRunning = false;
+        progressTracker.close();
+    }
+
+    /**
+     * Recognizes the pages with parallel calamari-predict processes
+     *
+     * @param pageIds Identifiers of the pages (e.g 0002,0003)
+     * @param cmdArgsWork Command line arguments for "calamary-predict"
+     * @throws IOException
+     */
+    private void recognizeWithShards(List<String> pageIds, List<String> cmdArgsWork) throws IOException {
+        // Split the pages into shards that are recognized by parallel calamari-predict processes
+        PageStateIndex pageStateIndex = PageStateIndex.getIndex(projConf);
+        List<List<String>> shards = ShardRunner.partition(pageIds, getEffectiveShardCount(pageIds.size()), pageId -> {
+            // Pages without a PageXML have no state and therefore no lines
+            PageState state = pageStateIndex.getState(pageId);
+            return (state != null) ? state.getLineCount() : 0;
+        });
+        int threadBudget = getThreadsPerShard(cmdArgsWork, pageIds.size());
+        if (shards.size() > 1) {
+            int processesIndex = cmdArgsWork.indexOf("--processes");
+            if (processesIndex > -1) {
+                cmdArgsWork.remove(processesIndex);
+                // The value might be missing if the flag is the last argument
+                if (processesIndex < cmdArgsWork.size())
+                    cmdArgsWork.remove(processesIndex);
+            }
+            cmdArgsWork.add("--processes");
+            cmdArgsWork.add(Integer.toString(threadBudget));
+        }
+
+        // All shards write to the console of the process handler and report to the same progress object
+        processHandler = new ProcessHandler();
+        processHandler.setFetchProcessConsole(true);
+        recognitionProgress = new ProcessProgress(0);
+        shardRunner = new ShardRunner(processHandler, () -> RecognitionRunning);
+
+        // Only the CPUs that the server may use can be assigned (e.g. the cpuset of a container)
+        // Without enough of them for disjoint sets the shards are limited by their thread settings only
+        List<Integer> allowedCpus = (shards.size() > 1 && isTasksetAvailable()) ? getAllowedCpus() : Collections.emptyList();
+        if (allowedCpus.size() < shards.size() * threadBudget)
+            allowedCpus = Collections.emptyList();
+        List<File> segmentListFiles = new ArrayList<File>();
+        try {
+            for (int shardIndex = 0; shardIndex < shards.size(); shardIndex++) {
+                File segmentListFile = createSegmentListFile(shards.get(shardIndex));
+                segmentListFiles.add(segmentListFile);
+
+                List<String> command = new ArrayList<String>();
+                String program = "calamari-predict";
+                if (!allowedCpus.isEmpty()) {
+                    // Pin every shard to its own part of the allowed CPUs
+                    List<String> shardCpus = new ArrayList<String>();
+                    for (int thread = 0; thread < threadBudget; thread++)
+                        shardCpus.add(allowedCpus.get(shardIndex * threadBudget + thread).toString());
+                    command.add("-c");
+                    command.add(String.join(",", shardCpus));
+                    command.add(program);
+                    program = "taskset";
+                }
+                command.addAll(getCalamariArguments(segmentListFile, cmdArgsWork));
+
+                ProcessHandler shardHandler = shardRunner.addShard(program, command);
+                // Progress bars of calamari are parsed instead of shown in the console
+                shardHandler.setProgressParser(new CalamariPredictProgressParser(), recognitionProgress);
+                if (shards.size() > 1) {
+                    // Limit the threads of the numerical libraries to the budget of the shard
+                    shardHandler.setEnvironmentVariable("OMP_NUM_THREADS", Integer.toString(threadBudget));
+                    shardHandler.setEnvironmentVariable("TF_NUM_INTRAOP_THREADS", Integer.toString(threadBudget));
+                    shardHandler.setEnvironmentVariable("TF_NUM_INTEROP_THREADS", "1");
+                }
+            }
+
+            shardRunner.run("Recognition");
+        } catch (IOException e) {
+            cancelProcess();
+            throw e;
+        } finally {
+            // Clean up temp segmentListFiles
+            for (File segmentListFile : segmentListFiles)
+                segmentListFile.delete();
+        }
+    }
+
+    /**
+     * Recognizes the pages with a long-lived worker that keeps the models loaded
+     *
+     * @param worker Worker that recognizes the pages
+     * @param pageIds Identifiers of the pages (e.g 0002,0003)
+     * @param cmdArgsWork Command line arguments for "calamary-predict"
+     * @throws IOException
+     */
+    private void recognizeWithWorker(RecognitionWorker worker, List<String> pageIds, List<String> cmdArgsWork)
+            throws IOException {
+        processHandler = new ProcessHandler();
+        processHandler.setFetchProcessConsole(true);
+        recognitionProgress = new ProcessProgress(0);
+        shardRunner = null;
+        recognitionWorker = worker;
+
+        // The checkpoints are passed separately, as the worker caches the models by their path
+        List<String> checkpoints = new ArrayList<String>();
+        List<String> arguments = new ArrayList<String>();
+        Iterator<String> cmdArgsIterator = cmdArgsWork.iterator();
+        while (cmdArgsIterator.hasNext()) {
+            String arg = cmdArgsIterator.next();
+            if (arg.equals("--checkpoint") && cmdArgsIterator.hasNext())
+                checkpoints.addAll(extractModelsOfJoinedString(cmdArgsIterator.next()));
+            else
+                arguments.add(arg);
+        }
+
+        List<String> files = new ArrayList<String>();
+        for (String pageId : pageIds) {
+            files.add(projConf.getImageDirectoryByType(projectImageType) + pageId +
+                projConf.getImageExtensionByType(projectImageType));
+        }
+
+        if (RecognitionRunning == false)
+            return;
+        worker.predict(this, checkpoints, files, arguments, recognitionProgress, processHandler);
+    }
+
+    /**
+     * Creates the temp json file with the images of the given pages (to not overload parameter list)
+     *
+     * @param pageIds Identifiers of the pages (e.g 0002,0003)
+     * @return Temp file in a temp folder named "calamari-<random numbers>.json"
+     * @throws IOException
+     */
+    private File createSegmentListFile(List<String> pageIds) throws IOException {
         File segmentListFile = File.createTempFile("calamari-",".json");
         segmentListFile.deleteOnExit(); // Delete if OCR4all terminates
         ObjectMapper mapper = new ObjectMapper();
@@ -286,11 +472,23 @@ public class RecognitionHelper {
         segmentObj.set("files", segmentList);
         ObjectWriter writer = mapper.writer();
         writer.writeValue(segmentListFile, segmentObj); 
+        return segmentListFile;
+    }
+
+    /**
+     * Builds the command line arguments of calamari-predict
+     *
+     * @param segmentListFile Temp json file with the images to recognize
+     * @param cmdArgs Command line arguments for "calamary-predict"
+     * @return Command line arguments
+     */
+    private List<String> getCalamariArguments(File segmentListFile, List<String> cmdArgs) {
+        List<String> command = new ArrayList<String>();
+        command.add("--files");
         command.add(segmentListFile.toString());
-        
-        
+
         //Add checkpoints
-        Iterator<String> cmdArgsIterator = cmdArgsWork.iterator();
+        Iterator<String> cmdArgsIterator = cmdArgs.iterator();
         while (cmdArgsIterator.hasNext()) {
             String arg = cmdArgsIterator.next();
             command.add(arg);
@@ -299,29 +497,99 @@ public class RecognitionHelper {
             }
         }
 
-        command.add("--no_progress_bars");
-
         command.add("--dataset");
         command.add("PAGEXML");
         // Set output extension to input extension in order to overwrite the original file
         // (default would've been .pred.xml)
         command.add("--extension");
         command.add(".xml");
+        return command;
+    }
 
-        processHandler = new ProcessHandler();
-        processHandler.setFetchProcessConsole(true);
-        processHandler.startProcess("calamari-predict", command, false);
+    /**
+     * Returns the number of shards to use for the given number of pages
+     *
+     * @param pageCount Number of pages to recognize
+     * @return Number of shards (at least 1, at most one shard per page)
+     */
+    public int getEffectiveShardCount(int pageCount) {
+        // The configured worker recognizes all pages in a single process
+        if (RecognitionWorker.getConfiguredWorker() != null)
+            return 1;
+
+        int shards = shardCount;
+        if (shards <= 0)
+            shards = GenericHelper.getLogicalThreadCount() / THREADS_PER_SHARD;
+        return Math.max(1, Math.min(shards, pageCount));
+    }
 
-        // Execute progress update to fill processState data structure with correct values
-        getProgress();
-        // Process extension to ocropus-gpageseg script
-        createSkippedSegments();
+    /**
+     * Returns the number of threads of every shard for the given arguments and number of pages
+     *
+     * @param cmdArgs Command line arguments for "calamary-predict"
+     * @param pageCount Number of pages to recognize
+     * @return Number of threads (--processes of calamari-predict)
+     */
+    public int getThreadsPerShard(List<String> cmdArgs, int pageCount) {
+        int shards = getEffectiveShardCount(pageCount);
+        // Every shard gets an equal part of the logical threads
+        if (shards > 1)
+            return Math.max(1, GenericHelper.getLogicalThreadCount() / shards);
+        return Math.max(1, GenericHelper.getIntArgument(cmdArgs, "--processes", 1));
+    }
 
-        progress = 100;
-        RecognitionRunning = false;
-        
-        // Clean up temp segmentListFile
-        segmentListFile.delete();
+    /**
+     * Checks if the taskset program is available to pin processes to CPUs
+     *
+     * @return Availability of taskset
+     */
+    private static boolean isTasksetAvailable() {
+        String path = System.getenv("PATH");
+        if (path == null)
+            return false;
+        for (String directory : path.split(File.pathSeparator)) {
+            if (new File(directory, "taskset").canExecute())
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the CPUs that the server process is allowed to run on (Cpus_allowed_list of /proc/self/status)
+     *
+     * @return Numbers of the allowed CPUs (empty if they cannot be determined, e.g. on other systems than Linux)
+     */
+    private static List<Integer> getAllowedCpus() {
+        List<Integer> cpus = new ArrayList<Integer>();
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/self/status"))) {
+                if (!line.startsWith("Cpus_allowed_list:"))
+                    continue;
+
+                // Format: comma separated CPUs and ranges (e.g. 0-3,8,10-11)
+                for (String range : line.substring(line.indexOf(':') + 1).trim().split(",")) {
+                    String[] bounds = range.trim().split("-");
+                    int first = Integer.parseInt(bounds[0]);
+                    int last = (bounds.length > 1) ? Integer.parseInt(bounds[1]) : first;
+                    for (int cpu = first; cpu <= last; cpu++)
+                        cpus.add(cpu);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Shards are not pinned if the allowed CPUs are unknown
+            return Collections.emptyList();
+        }
+        return cpus;
+    }
+
+    /**
+     * Setter for the number of parallel calamari-predict processes
+     * A value of 1 recognizes all pages with a single process, 0 determines the number from the logical threads
+     *
+     * @param shardCount Number of shards
+     */
+    public void setShardCount(int shardCount) {
+        this.shardCount = Math.max(0, shardCount);
     }
 
     /**
@@ -330,15 +598,21 @@ public class RecognitionHelper {
     public void resetProgress() {
         RecognitionRunning = false;
         progress = -1;
+        if (progressTracker != null)
+            progressTracker.close();
     }
 
     /**
      * Cancels the process
      */
     public void cancelProcess() {
+        RecognitionRunning = false;
         if (processHandler != null)
             processHandler.stopProcess();
-        RecognitionRunning = false;
+        if (shardRunner != null)
+            shardRunner.stop();
+        if (recognitionWorker != null)
+            recognitionWorker.cancel(this);
     }
 
     /**
@@ -0,0 +1,80 @@
+package de.uniwue.model;
+
+/**
+ * Represents a part of the console output of a process
+ * Lines are identified by sequence numbers, which are continuous for the lifetime of a console buffer
+ */
+public class ConsoleSegment {
+    /**
+     * Identifier of the console buffer the lines belong to
+     * Changes if the process console is replaced (clients need to start over with offset 0)
+     */
+    private long bufferId;
+
+    /**
+     * Sequence number of the first line of the segment
+     * Is larger than the requested offset if older lines were already dropped from the buffer
+     */
+    private long start;
+
+    /**
+     * Sequence number after the last line of the segment (offset for the next request)
+     */
+    private long end;
+
+    /**
+     * Lines of the segment (each terminated by a line separator)
+     */
+    private String content;
+
+    /**
+     * Constructor
+     *
+     * @param bufferId Identifier of the console buffer
+     * @param start Sequence number of the first line
+     * @param end Sequence number after the last line
+     * @param content Lines of the segment
+     */
+    public ConsoleSegment(long bufferId, long start, long end, String content) {
+        this.bufferId = bufferId;
+        this.start = start;
+        this.end = end;
+        this.content = content;
+    }
+
+    /**
+     * Gets the identifier of the console buffer
+     *
+     * @return Buffer identifier
+     */
+    public long getBufferId() {
+        return bufferId;
+    }
+
+    /**
+     * Gets the sequence number of the first line
+     *
+     * @return Sequence number
+     */
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * Gets the sequence number after the last line
+     *
+     * @return Offset for the next request
+     */
+    public long getEnd() {
+        return end;
+    }
+
+    /**
+     * Gets the lines of the segment
+     *
+     * @return Console content
+     */
+    public String getContent() {
+        return content;
+    }
+}
@@ -0,0 +1,61 @@
+package de.uniwue.model;
+
+/**
+ * Represents the number of contours that the despeckling of a page removes for different settings
+ */
+public class DespeckleCurve {
+    /**
+     * Number of contours that can be removed
+     */
+    private int contourCount;
+
+    /**
+     * Maximum contour sizes of the curve in ascending order
+     */
+    private double[] thresholds;
+
+    /**
+     * Number of removed contours for every maximum contour size
+     */
+    private int[] removed;
+
+    /**
+     * Constructor
+     *
+     * @param contourCount Number of contours that can be removed
+     * @param thresholds Maximum contour sizes of the curve in ascending order
+     * @param removed Number of removed contours for every maximum contour size
+     */
+    public DespeckleCurve(int contourCount, double[] thresholds, int[] removed) {
+        this.contourCount = contourCount;
+        this.thresholds = thresholds;
+        this.removed = removed;
+    }
+
+    /**
+     * Gets the number of contours that can be removed
+     *
+     * @return Number of contours
+     */
+    public int getContourCount() {
+        return contourCount;
+    }
+
+    /**
+     * Gets the maximum contour sizes of the curve
+     *
+     * @return Maximum contour sizes in ascending order
+     */
+    public double[] getThresholds() {
+        return thresholds;
+    }
+
+    /**
+     * Gets the number of removed contours
+     *
+     * @return Number of removed contours for every maximum contour size
+     */
+    public int[] getRemoved() {
+        return removed;
+    }
+}
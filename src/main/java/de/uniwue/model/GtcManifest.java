@@ -0,0 +1,78 @@
+package de.uniwue.model;
+
+import java.util.TreeMap;
+
+/**
+ * Represents the files that were shipped by the GTC exports of a project
+ * Incremental exports only contain the files that differ from this manifest
+ */
+public class GtcManifest {
+    /**
+     * Name of the last archive that updated the manifest
+     */
+    private String archive;
+
+    /**
+     * Indicates if the last archive was an incremental export
+     */
+    private boolean incremental;
+
+    /**
+     * Exported files (entry name within the archive : file state)
+     */
+    private TreeMap<String, GtcManifestEntry> entries = new TreeMap<String, GtcManifestEntry>();
+
+    /**
+     * Gets the name of the last archive
+     *
+     * @return Name of the archive (null if nothing was exported yet)
+     */
+    public String getArchive() {
+        return archive;
+    }
+
+    /**
+     * Sets the name of the last archive
+     *
+     * @param archive Name of the archive
+     */
+    public void setArchive(String archive) {
+        this.archive = archive;
+    }
+
+    /**
+     * Gets the type of the last archive
+     *
+     * @return True if the last archive was an incremental export
+     */
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * Sets the type of the last archive
+     *
+     * @param incremental True if the last archive was an incremental export
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    /**
+     * Gets the exported files
+     *
+     * @return Exported files (entry name : file state)
+     */
+    public TreeMap<String, GtcManifestEntry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Sets the exported files
+     *
+     * @param entries Exported files (entry name : file state)
+     */
+    public void setEntries(TreeMap<String, GtcManifestEntry> entries) {
+        this.entries = entries;
+    }
+}
@@ -0,0 +1,93 @@
+package de.uniwue.model;
+
+/**
+ * Represents a file of a GTC export in the export manifest
+ */
+public class GtcManifestEntry {
+    /**
+     * Size of the file in bytes
+     */
+    private long size;
+
+    /**
+     * Modification time of the file in milliseconds
+     */
+    private long lastModified;
+
+    /**
+     * MD5 hash of the file content
+     */
+    private String hash;
+
+    /**
+     * Constructor (needed for deserialization)
+     */
+    public GtcManifestEntry() { }
+
+    /**
+     * Constructor
+     *
+     * @param size Size of the file in bytes
+     * @param lastModified Modification time of the file in milliseconds
+     * @param hash MD5 hash of the file content
+     */
+    public GtcManifestEntry(long size, long lastModified, String hash) {
+        this.size = size;
+        this.lastModified = lastModified;
+        this.hash = hash;
+    }
+
+    /**
+     * Gets the size of the file
+     *
+     * @return Size in bytes
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Sets the size of the file
+     *
+     * @param size Size in bytes
+     */
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    /**
+     * Gets the modification time of the file
+     *
+     * @return Modification time in milliseconds
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Sets the modification time of the file
+     *
+     * @param lastModified Modification time in milliseconds
+     */
+    public void setLastModified(long lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Gets the hash of the file content
+     *
+     * @return MD5 hash
+     */
+    public String getHash() {
+        return hash;
+    }
+
+    /**
+     * Sets the hash of the file content
+     *
+     * @param hash MD5 hash
+     */
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+}
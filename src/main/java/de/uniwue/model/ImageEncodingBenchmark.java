@@ -0,0 +1,77 @@
+package de.uniwue.model;
+
+/**
+ * Represents the result of encoding a page image with an encoding profile
+ */
+public class ImageEncodingBenchmark {
+    /**
+     * Name of the encoding profile
+     */
+    private String profile;
+
+    /**
+     * Type of the encoded image (e.g. Binary)
+     */
+    private String imageType;
+
+    /**
+     * Size of the encoded image in bytes
+     */
+    private long bytes;
+
+    /**
+     * Time to encode the image in milliseconds
+     */
+    private double milliseconds;
+
+    /**
+     * Constructor
+     *
+     * @param profile Name of the encoding profile
+     * @param imageType Type of the encoded image
+     * @param bytes Size of the encoded image in bytes
+     * @param milliseconds Time to encode the image in milliseconds
+     */
+    public ImageEncodingBenchmark(String profile, String imageType, long bytes, double milliseconds) {
+        this.profile = profile;
+        this.imageType = imageType;
+        this.bytes = bytes;
+        this.milliseconds = milliseconds;
+    }
+
+    /**
+     * Gets the name of the encoding profile
+     *
+     * @return Name of the profile
+     */
+    public String getProfile() {
+        return profile;
+    }
+
+    /**
+     * Gets the type of the encoded image
+     *
+     * @return Image type
+     */
+    public String getImageType() {
+        return imageType;
+    }
+
+    /**
+     * Gets the size of the encoded image
+     *
+     * @return Size in bytes
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Gets the time to encode the image
+     *
+     * @return Time in milliseconds
+     */
+    public double getMilliseconds() {
+        return milliseconds;
+    }
+}
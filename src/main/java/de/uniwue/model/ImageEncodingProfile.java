@@ -0,0 +1,164 @@
+package de.uniwue.model;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Represents the settings that are used to encode the images generated for a project
+ * Images of the project are always stored as PNG, since the external tools expect this format
+ * The default profile passes no settings to the encoders, so that images are written as before the profiles existed.
+ * Its level and strategy only describe what OpenCV uses without settings.
+ */
+public class ImageEncodingProfile {
+    /**
+     * Name of the profile (name of the preset or "custom")
+     */
+    private String name = "default";
+
+    /**
+     * zlib compression level (range: 0 - 9)
+     */
+    private int compressionLevel = 1;
+
+    /**
+     * zlib strategy (default, filtered, huffman, rle or fixed)
+     */
+    private String strategy = "rle";
+
+    /**
+     * Indicates if bitonal images are stored with a bit depth of 1
+     */
+    private boolean bilevel = false;
+
+    /**
+     * Constructor (default profile)
+     */
+    public ImageEncodingProfile() { }
+
+    /**
+     * Constructor
+     *
+     * @param name Name of the profile
+     * @param compressionLevel zlib compression level (range: 0 - 9)
+     * @param strategy zlib strategy (default, filtered, huffman, rle or fixed)
+     * @param bilevel Indicates if bitonal images are stored with a bit depth of 1
+     */
+    public ImageEncodingProfile(String name, int compressionLevel, String strategy, boolean bilevel) {
+        this.name = name;
+        this.compressionLevel = compressionLevel;
+        this.strategy = strategy;
+        this.bilevel = bilevel;
+    }
+
+    /**
+     * Returns the predefined profiles
+     * default: no encoder settings (OpenCV: level 1 and rle strategy, PDF pages: ImageIO defaults)
+     * fast:    low compression, bitonal images with 1 bit per pixel
+     * compact: highest compression, bitonal images with 1 bit per pixel
+     *
+     * @return List of the predefined profiles
+     */
+    public static List<ImageEncodingProfile> getPresets() {
+        return Arrays.asList(
+            new ImageEncodingProfile(),
+            new ImageEncodingProfile("fast", 1, "default", true),
+            new ImageEncodingProfile("compact", 9, "default", true)
+        );
+    }
+
+    /**
+     * Returns the predefined profile with the given name
+     *
+     * @param name Name of the profile
+     * @return Predefined profile or null if no profile with the name exists
+     */
+    public static ImageEncodingProfile getPreset(String name) {
+        for (ImageEncodingProfile preset : getPresets()) {
+            if (preset.getName().equals(name))
+                return preset;
+        }
+        return null;
+    }
+
+    /**
+     * Checks if the profile deviates from the default encoding
+     * Only explicitly chosen profiles pass settings to the encoders
+     *
+     * @return True if images encoded with default settings can be made smaller or faster to decode
+     */
+    public boolean isCustomized() {
+        return !"default".equals(name);
+    }
+
+    /**
+     * Gets the name of the profile
+     *
+     * @return Name of the profile
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Sets the name of the profile
+     *
+     * @param name Name of the profile
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the zlib compression level
+     *
+     * @return Compression level (range: 0 - 9)
+     */
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    /**
+     * Sets the zlib compression level
+     *
+     * @param compressionLevel Compression level (range: 0 - 9)
+     */
+    public void setCompressionLevel(int compressionLevel) {
+        this.compressionLevel = Math.max(0, Math.min(9, compressionLevel));
+    }
+
+    /**
+     * Gets the zlib strategy
+     *
+     * @return Strategy (default, filtered, huffman, rle or fixed)
+     */
+    public String getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Sets the zlib strategy
+     *
+     * @param strategy Strategy (default, filtered, huffman, rle or fixed)
+     */
+    public void setStrategy(String strategy) {
+        this.strategy = strategy;
+    }
+
+    /**
+     * Gets the state of the bit depth reduction of bitonal images
+     *
+     * @return True if bitonal images are stored with a bit depth of 1
+     */
+    public boolean isBilevel() {
+        return bilevel;
+    }
+
+    /**
+     * Sets the state of the bit depth reduction of bitonal images
+     *
+     * @param bilevel True if bitonal images are stored with a bit depth of 1
+     */
+    public void setBilevel(boolean bilevel) {
+        this.bilevel = bilevel;
+    }
+}
@@ -0,0 +1,151 @@
+package de.uniwue.model;
+
+/**
+ * Represents the state of a process that is executed as a job
+ */
+public class JobStatus {
+    /**
+     * Job is waiting for a free worker
+     */
+    public static final String QUEUED = "queued";
+
+    /**
+     * Job is executed
+     */
+    public static final String RUNNING = "running";
+
+    /**
+     * Job finished without errors
+     */
+    public static final String FINISHED = "finished";
+
+    /**
+     * Job finished with an error (see status code)
+     */
+    public static final String FAILED = "failed";
+
+    /**
+     * Job was cancelled
+     */
+    public static final String CANCELLED = "cancelled";
+
+    /**
+     * Identifier of the job
+     */
+    private String jobId;
+
+    /**
+     * Name of the executed process (e.g. recognition)
+     */
+    private String process;
+
+    /**
+     * State of the job (queued, running, finished, failed or cancelled)
+     */
+    private String state;
+
+    /**
+     * Status code that the process set (200 or error status of the execute request)
+     */
+    private int statusCode;
+
+    /**
+     * Time of submission in milliseconds
+     */
+    private long submitted;
+
+    /**
+     * Time when the execution started in milliseconds (0 if not started yet)
+     */
+    private long started;
+
+    /**
+     * Time when the execution ended in milliseconds (0 if not ended yet)
+     */
+    private long finished;
+
+    /**
+     * Constructor
+     *
+     * @param jobId Identifier of the job
+     * @param process Name of the executed process
+     * @param state State of the job
+     * @param statusCode Status code that the process set
+     * @param submitted Time of submission in milliseconds
+     * @param started Time when the execution started in milliseconds
+     * @param finished Time when the execution ended in milliseconds
+     */
+    public JobStatus(String jobId, String process, String state, int statusCode,
+            long submitted, long started, long finished) {
+        this.jobId = jobId;
+        this.process = process;
+        this.state = state;
+        this.statusCode = statusCode;
+        this.submitted = submitted;
+        this.started = started;
+        this.finished = finished;
+    }
+
+    /**
+     * Gets the identifier of the job
+     *
+     * @return Identifier of the job
+     */
+    public String getJobId() {
+        return jobId;
+    }
+
+    /**
+     * Gets the name of the executed process
+     *
+     * @return Name of the process
+     */
+    public String getProcess() {
+        return process;
+    }
+
+    /**
+     * Gets the state of the job
+     *
+     * @return State (queued, running, finished, failed or cancelled)
+     */
+    public String getState() {
+        return state;
+    }
+
+    /**
+     * Gets the status code that the process set
+     *
+     * @return Status code (200 or error status of the execute request)
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Gets the time of submission
+     *
+     * @return Time in milliseconds
+     */
+    public long getSubmitted() {
+        return submitted;
+    }
+
+    /**
+     * Gets the time when the execution started
+     *
+     * @return Time in milliseconds (0 if not started yet)
+     */
+    public long getStarted() {
+        return started;
+    }
+
+    /**
+     * Gets the time when the execution ended
+     *
+     * @return Time in milliseconds (0 if not ended yet)
+     */
+    public long getFinished() {
+        return finished;
+    }
+}
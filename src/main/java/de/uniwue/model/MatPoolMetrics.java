@@ -0,0 +1,87 @@
+package de.uniwue.model;
+
+/**
+ * Represents the metrics of the pool for native Mat buffers
+ */
+public class MatPoolMetrics {
+    /**
+     * Native bytes of all buffers allocated by the pool and not released yet (in use and idle)
+     */
+    private long liveBytes;
+
+    /**
+     * Native bytes of the idle buffers
+     */
+    private long pooledBytes;
+
+    /**
+     * Number of requests served by an idle buffer
+     */
+    private long hits;
+
+    /**
+     * Number of requests that needed a new allocation
+     */
+    private long misses;
+
+    /**
+     * Constructor
+     *
+     * @param liveBytes Native bytes of all allocated buffers
+     * @param pooledBytes Native bytes of the idle buffers
+     * @param hits Number of requests served by an idle buffer
+     * @param misses Number of requests that needed a new allocation
+     */
+    public MatPoolMetrics(long liveBytes, long pooledBytes, long hits, long misses) {
+        this.liveBytes = liveBytes;
+        this.pooledBytes = pooledBytes;
+        this.hits = hits;
+        this.misses = misses;
+    }
+
+    /**
+     * Gets the native bytes of all allocated buffers
+     *
+     * @return Number of bytes
+     */
+    public long getLiveBytes() {
+        return liveBytes;
+    }
+
+    /**
+     * Gets the native bytes of the idle buffers
+     *
+     * @return Number of bytes
+     */
+    public long getPooledBytes() {
+        return pooledBytes;
+    }
+
+    /**
+     * Gets the number of requests served by an idle buffer
+     *
+     * @return Number of hits
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of requests that needed a new allocation
+     *
+     * @return Number of misses
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the share of requests served by an idle buffer
+     *
+     * @return Hit rate (range: 0 - 1)
+     */
+    public double getHitRate() {
+        long requests = hits + misses;
+        return (requests == 0) ? 0 : (double) hits / requests;
+    }
+}
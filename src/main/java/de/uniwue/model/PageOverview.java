@@ -44,6 +44,21 @@ public class PageOverview {
      */
     private boolean groundtruth = false;
 
+    /**
+     * Number of regions in the PageXML
+     */
+    private int regionCount = 0;
+
+    /**
+     * Number of lines in the PageXML
+     */
+    private int lineCount = 0;
+
+    /**
+     * Number of lines with ground truth in the PageXML
+     */
+    private int groundtruthLineCount = 0;
+
     /**
      * Constructor
      *
@@ -195,4 +210,58 @@ public class PageOverview {
     public void setDespeckled(boolean despeckled) {
         this.despeckled = despeckled;
     }
+
+    /**
+     * Gets the number of regions of the page
+     *
+     * @return Number of regions
+     */
+    public int getRegionCount() {
+        return regionCount;
+    }
+
+    /**
+     * Sets the number of regions of the page
+     *
+     * @param regionCount Number of regions
+     */
+    public void setRegionCount(int regionCount) {
+        this.regionCount = regionCount;
+    }
+
+    /**
+     * Gets the number of lines of the page
+     *
+     * @return Number of lines
+     */
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Sets the number of lines of the page
+     *
+     * @param lineCount Number of lines
+     */
+    public void setLineCount(int lineCount) {
+        this.lineCount = lineCount;
+    }
+
+    /**
+     * Gets the number of lines with ground truth of the page
+     *
+     * @return Number of lines with ground truth
+     */
+    public int getGroundtruthLineCount() {
+        return groundtruthLineCount;
+    }
+
+    /**
+     * Sets the number of lines with ground truth of the page
+     *
+     * @param groundtruthLineCount Number of lines with ground truth
+     */
+    public void setGroundtruthLineCount(int groundtruthLineCount) {
+        this.groundtruthLineCount = groundtruthLineCount;
+    }
 }
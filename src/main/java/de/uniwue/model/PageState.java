@@ -0,0 +1,195 @@
+package de.uniwue.model;
+
+/**
+ * Represents the process states of a page that are determined from its PageXML file
+ */
+public class PageState {
+    /**
+     * Last modification time of the PageXML file when it was scanned
+     */
+    private long lastModified = 0;
+
+    /**
+     * Size of the PageXML file when it was scanned
+     */
+    private long size = 0;
+
+    /**
+     * Indicates if the PageXML contains TextLines
+     */
+    private boolean lines = false;
+
+    /**
+     * Indicates if the PageXML contains TextEquivs with an index higher 0 (recognition results)
+     */
+    private boolean recognition = false;
+
+    /**
+     * Indicates if the PageXML contains TextEquivs with index 0 (ground truth)
+     */
+    private boolean groundTruth = false;
+
+    /**
+     * Number of regions of the page
+     */
+    private int regionCount = 0;
+
+    /**
+     * Number of TextLines of the page
+     */
+    private int lineCount = 0;
+
+    /**
+     * Number of TextLines with ground truth (TextEquiv with index 0)
+     */
+    private int groundTruthLineCount = 0;
+
+    /**
+     * Constructor
+     */
+    public PageState() { }
+
+    /**
+     * Gets the last modification time of the scanned PageXML file
+     *
+     * @return Modification time in milliseconds
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Sets the last modification time of the scanned PageXML file
+     *
+     * @param lastModified Modification time in milliseconds
+     */
+    public void setLastModified(long lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Gets the size of the scanned PageXML file
+     *
+     * @return Size in bytes
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Sets the size of the scanned PageXML file
+     *
+     * @param size Size in bytes
+     */
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    /**
+     * Gets the lines state of the page
+     *
+     * @return Boolean representation of the state
+     */
+    public boolean isLines() {
+        return lines;
+    }
+
+    /**
+     * Sets the lines state of the page
+     *
+     * @param lines Boolean representation of the state
+     */
+    public void setLines(boolean lines) {
+        this.lines = lines;
+    }
+
+    /**
+     * Gets the recognition state of the page
+     *
+     * @return Boolean representation of the state
+     */
+    public boolean isRecognition() {
+        return recognition;
+    }
+
+    /**
+     * Sets the recognition state of the page
+     *
+     * @param recognition Boolean representation of the state
+     */
+    public void setRecognition(boolean recognition) {
+        this.recognition = recognition;
+    }
+
+    /**
+     * Gets the ground truth state of the page
+     *
+     * @return Boolean representation of the state
+     */
+    public boolean isGroundTruth() {
+        return groundTruth;
+    }
+
+    /**
+     * Sets the ground truth state of the page
+     *
+     * @param groundTruth Boolean representation of the state
+     */
+    public void setGroundTruth(boolean groundTruth) {
+        this.groundTruth = groundTruth;
+    }
+
+    /**
+     * Gets the number of regions of the page
+     *
+     * @return Number of regions
+     */
+    public int getRegionCount() {
+        return regionCount;
+    }
+
+    /**
+     * Sets the number of regions of the page
+     *
+     * @param regionCount Number of regions
+     */
+    public void setRegionCount(int regionCount) {
+        this.regionCount = regionCount;
+    }
+
+    /**
+     * Gets the number of TextLines of the page
+     *
+     * @return Number of TextLines
+     */
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Sets the number of TextLines of the page
+     *
+     * @param lineCount Number of TextLines
+     */
+    public void setLineCount(int lineCount) {
+        this.lineCount = lineCount;
+    }
+
+    /**
+     * Gets the number of TextLines with ground truth
+     *
+     * @return Number of TextLines with ground truth
+     */
+    public int getGroundTruthLineCount() {
+        return groundTruthLineCount;
+    }
+
+    /**
+     * Sets the number of TextLines with ground truth
+     *
+     * @param groundTruthLineCount Number of TextLines with ground truth
+     */
+    public void setGroundTruthLineCount(int groundTruthLineCount) {
+        this.groundTruthLineCount = groundTruthLineCount;
+    }
+}
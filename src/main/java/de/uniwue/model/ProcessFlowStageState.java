@@ -0,0 +1,110 @@
+package de.uniwue.model;
+
+/**
+ * Represents the state of a process within a pipelined process flow execution
+ */
+public class ProcessFlowStageState {
+    /**
+     * Name of the process (e.g. recognition)
+     */
+    private String process;
+
+    /**
+     * Number of pages that wait for the process
+     */
+    private int queuedPages;
+
+    /**
+     * Number of pages that are currently processed
+     */
+    private int runningPages;
+
+    /**
+     * Number of pages that were processed successfully
+     */
+    private int finishedPages;
+
+    /**
+     * Number of pages that were skipped (previous process failed for them or the execution was stopped)
+     */
+    private int skippedPages;
+
+    /**
+     * Time in milliseconds when the first page was processed successfully (0 if none was processed yet)
+     */
+    private long firstPageFinished;
+
+    /**
+     * Constructor
+     *
+     * @param process Name of the process
+     * @param queuedPages Number of pages that wait for the process
+     * @param runningPages Number of pages that are currently processed
+     * @param finishedPages Number of pages that were processed successfully
+     * @param skippedPages Number of pages that were skipped
+     * @param firstPageFinished Time when the first page was processed successfully
+     */
+    public ProcessFlowStageState(String process, int queuedPages, int runningPages,
+            int finishedPages, int skippedPages, long firstPageFinished) {
+        this.process = process;
+        this.queuedPages = queuedPages;
+        this.runningPages = runningPages;
+        this.finishedPages = finishedPages;
+        this.skippedPages = skippedPages;
+        this.firstPageFinished = firstPageFinished;
+    }
+
+    /**
+     * Gets the name of the process
+     *
+     * @return Name of the process
+     */
+    public String getProcess() {
+        return process;
+    }
+
+    /**
+     * Gets the number of pages that wait for the process
+     *
+     * @return Number of queued pages
+     */
+    public int getQueuedPages() {
+        return queuedPages;
+    }
+
+    /**
+     * Gets the number of pages that are currently processed
+     *
+     * @return Number of running pages
+     */
+    public int getRunningPages() {
+        return runningPages;
+    }
+
+    /**
+     * Gets the number of pages that were processed successfully
+     *
+     * @return Number of finished pages
+     */
+    public int getFinishedPages() {
+        return finishedPages;
+    }
+
+    /**
+     * Gets the number of pages that were skipped
+     *
+     * @return Number of skipped pages
+     */
+    public int getSkippedPages() {
+        return skippedPages;
+    }
+
+    /**
+     * Gets the time when the first page was processed successfully
+     *
+     * @return Time in milliseconds (0 if none was processed yet)
+     */
+    public long getFirstPageFinished() {
+        return firstPageFinished;
+    }
+}
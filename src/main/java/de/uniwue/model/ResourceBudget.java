@@ -0,0 +1,69 @@
+package de.uniwue.model;
+
+/**
+ * Represents an amount of CPU cores and memory
+ * Used as the demand of a single execution of a process and as the capacity of the server
+ */
+public class ResourceBudget {
+    /**
+     * Number of CPU cores
+     */
+    private int cores;
+
+    /**
+     * Memory in megabytes
+     */
+    private long memoryMb;
+
+    /**
+     * Constructor (needed for deserialization)
+     */
+    public ResourceBudget() { }
+
+    /**
+     * Constructor
+     *
+     * @param cores Number of CPU cores
+     * @param memoryMb Memory in megabytes
+     */
+    public ResourceBudget(int cores, long memoryMb) {
+        this.cores = cores;
+        this.memoryMb = memoryMb;
+    }
+
+    /**
+     * Gets the number of CPU cores
+     *
+     * @return Number of cores
+     */
+    public int getCores() {
+        return cores;
+    }
+
+    /**
+     * Sets the number of CPU cores
+     *
+     * @param cores Number of cores
+     */
+    public void setCores(int cores) {
+        this.cores = Math.max(0, cores);
+    }
+
+    /**
+     * Gets the memory
+     *
+     * @return Memory in megabytes
+     */
+    public long getMemoryMb() {
+        return memoryMb;
+    }
+
+    /**
+     * Sets the memory
+     *
+     * @param memoryMb Memory in megabytes
+     */
+    public void setMemoryMb(long memoryMb) {
+        this.memoryMb = Math.max(0, memoryMb);
+    }
+}
@@ -0,0 +1,177 @@
+package de.uniwue.model;
+
+import java.util.Map;
+
+/**
+ * Represents the state of the server-wide scheduler of the processes
+ */
+public class SchedulerMetrics {
+    /**
+     * Resources of the server that can be assigned to processes
+     */
+    private ResourceBudget capacity;
+
+    /**
+     * Resources that are assigned to running processes
+     */
+    private ResourceBudget used;
+
+    /**
+     * Resources that a single execution of every process needs (process : demand)
+     */
+    private Map<String, ResourceBudget> budgets;
+
+    /**
+     * Number of processes that wait for resources
+     */
+    private int queueDepth;
+
+    /**
+     * Number of processes that are running
+     */
+    private int running;
+
+    /**
+     * Number of waiting processes of every project (project directory : count)
+     */
+    private Map<String, Integer> waitingByProject;
+
+    /**
+     * Number of running processes of every project (project directory : count)
+     */
+    private Map<String, Integer> runningByProject;
+
+    /**
+     * Time in milliseconds that the longest waiting process waits already
+     */
+    private long longestWaitMillis;
+
+    /**
+     * Average time in milliseconds that admitted processes waited
+     */
+    private long averageWaitMillis;
+
+    /**
+     * Number of processes that were admitted since the server started
+     */
+    private long admitted;
+
+    /**
+     * Constructor
+     *
+     * @param capacity Resources of the server that can be assigned to processes
+     * @param used Resources that are assigned to running processes
+     * @param budgets Resources that a single execution of every process needs
+     * @param queueDepth Number of processes that wait for resources
+     * @param running Number of processes that are running
+     * @param waitingByProject Number of waiting processes of every project
+     * @param runningByProject Number of running processes of every project
+     * @param longestWaitMillis Time that the longest waiting process waits already
+     * @param averageWaitMillis Average time that admitted processes waited
+     * @param admitted Number of processes that were admitted
+     */
+    public SchedulerMetrics(ResourceBudget capacity, ResourceBudget used, Map<String, ResourceBudget> budgets,
+            int queueDepth, int running, Map<String, Integer> waitingByProject, Map<String, Integer> runningByProject,
+            long longestWaitMillis, long averageWaitMillis, long admitted) {
+        this.capacity = capacity;
+        this.used = used;
+        this.budgets = budgets;
+        this.queueDepth = queueDepth;
+        this.running = running;
+        this.waitingByProject = waitingByProject;
+        this.runningByProject = runningByProject;
+        this.longestWaitMillis = longestWaitMillis;
+        this.averageWaitMillis = averageWaitMillis;
+        this.admitted = admitted;
+    }
+
+    /**
+     * Gets the resources of the server that can be assigned to processes
+     *
+     * @return Capacity of the server
+     */
+    public ResourceBudget getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the resources that are assigned to running processes
+     *
+     * @return Used resources
+     */
+    public ResourceBudget getUsed() {
+        return used;
+    }
+
+    /**
+     * Gets the resources that a single execution of every process needs
+     *
+     * @return Demand of every process
+     */
+    public Map<String, ResourceBudget> getBudgets() {
+        return budgets;
+    }
+
+    /**
+     * Gets the number of processes that wait for resources
+     *
+     * @return Number of waiting processes
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * Gets the number of processes that are running
+     *
+     * @return Number of running processes
+     */
+    public int getRunning() {
+        return running;
+    }
+
+    /**
+     * Gets the number of waiting processes of every project
+     *
+     * @return Waiting processes (project directory : count)
+     */
+    public Map<String, Integer> getWaitingByProject() {
+        return waitingByProject;
+    }
+
+    /**
+     * Gets the number of running processes of every project
+     *
+     * @return Running processes (project directory : count)
+     */
+    public Map<String, Integer> getRunningByProject() {
+        return runningByProject;
+    }
+
+    /**
+     * Gets the time that the longest waiting process waits already
+     *
+     * @return Time in milliseconds
+     */
+    public long getLongestWaitMillis() {
+        return longestWaitMillis;
+    }
+
+    /**
+     * Gets the average time that admitted processes waited
+     *
+     * @return Time in milliseconds
+     */
+    public long getAverageWaitMillis() {
+        return averageWaitMillis;
+    }
+
+    /**
+     * Gets the number of processes that were admitted since the server started
+     *
+     * @return Number of admitted processes
+     */
+    public long getAdmitted() {
+        return admitted;
+    }
+}
@@ -54,6 +54,11 @@
                                     $(td).html('<i class="material-icons red-text">clear</i>');
                                 }
                             });
+                            // Show the number of lines next to the line segmentation and ground truth states
+                            if( data.linesExtracted === true )
+                                $('td:eq(4)', row).append(data.lineCount);
+                            if( data.groundtruth === true )
+                                $('td:eq(6)', row).append(data.groundtruthLineCount + ' / ' + data.lineCount);
                         },
                         initComplete: function() {
                             openCollapsibleEntriesExclusively([2]);
@@ -179,7 +184,7 @@
                 checkExportGTClicked();
 
 
-                function exportData(newPageVisit, completeDir, pages, binary, gray) {
+                function exportData(newPageVisit, completeDir, pages, binary, gray, incremental) {
                     var ajaxParams = { "projectDir" : $('#projectDir').val(), "imageType" : $('#imageType').val(), "processingMode" : $('#processingMode').val() };
                     // Check if directory exists
                     $.get( "ajax/overview/checkDir?",
@@ -191,7 +196,7 @@
                                 $.get( "ajax/overview/validate?" )
                                     .done(function( data ) {
                                         if( data === true ) {
-                                                var ajaxParams = {"completeDir" : completeDir, "pages" : pages, "binary" : binary, "gray" : gray};
+                                                var ajaxParams = {"completeDir" : completeDir, "pages" : pages, "binary" : binary, "gray" : gray, "incremental" : incremental};
                                                 $.post( "ajax/overview/exportGtc", ajaxParams )
                                                     .done(function( data ) {
                                                         setTimeout(function() {
@@ -353,7 +358,8 @@
                             exportData(false,($this.attr('id') == 'exportAllPages'),
                                 document.getElementById('pageNo').value,
                                 document.getElementById('binaryCheckbox').checked,
-                                document.getElementById('grayCheckbox').checked);
+                                document.getElementById('grayCheckbox').checked,
+                                document.getElementById('incrementalCheckbox').checked);
                         }
                         else {
                             $('#modal_inprogress').modal('open');
@@ -629,6 +635,11 @@
                                 <input type="checkbox" id="grayCheckbox" name="Gray" checked="checked">
                                 <label for="grayCheckbox">Gray</label>
                             </div>
+
+                            <div>
+                                <input type="checkbox" id="incrementalCheckbox" name="Incremental">
+                                <label for="incrementalCheckbox">Only changes since the last export</label>
+                            </div>
                         </td>
                         <td>
                             <div class="col s12">
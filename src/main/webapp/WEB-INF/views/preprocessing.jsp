@@ -37,7 +37,7 @@
                     $.post( "ajax/preprocessing/exists", { "pageIds[]" : selectedPages } )
                     .done(function( data ){
                         if(data === false){
-                            var ajaxParams = $.extend( { "pageIds[]" : selectedPages }, getInputParams() );
+                            var ajaxParams = $.extend( { "pageIds[]" : selectedPages, "thumbnails" : true }, getInputParams() );
                             // Execute Preprocessing process
                             executeProcess(ajaxParams);
                         }
@@ -56,7 +56,7 @@
                 });
                 $('#agree').click(function() {
                     var selectedPages = getSelectedPages();
-                    var ajaxParams = $.extend( { "pageIds[]" : selectedPages }, getInputParams() );
+                    var ajaxParams = $.extend( { "pageIds[]" : selectedPages, "thumbnails" : true }, getInputParams() );
                     // Execute Preprocessing process
                     executeProcess(ajaxParams);
                 });
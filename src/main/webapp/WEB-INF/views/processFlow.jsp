@@ -127,7 +127,7 @@
                             'Content-Type': 'application/json' 
                         },
                         'type': 'POST',
-                        'url': "ajax/processFlow/execute",
+                        'url': "ajax/processFlow/execute?pipeline=" + $('#pipelineCheckbox').is(':checked'),
                         'data': JSON.stringify({
                             "pageIds" : selectedPages,
                             "processesToExecute" : processesToExecute,
@@ -316,6 +316,13 @@
                                             </div>
                                         </td>
                                     </tr>
+                                    <tr>
+                                        <td><p>Pass every page to the next process as soon as it is finished</p></td>
+                                        <td>
+                                            <input type="checkbox" class="filled-in" id="pipelineCheckbox" />
+                                            <label for="pipelineCheckbox">Pipeline pages</label>
+                                        </td>
+                                    </tr>
                                 </tbody>
                             </table>
 
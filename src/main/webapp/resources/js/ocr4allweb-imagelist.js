@@ -127,21 +127,16 @@ function loadVisiblePages() {
         if( $(imgEl).attr('src') !== '' )
             return;
 
-        // Load page images via Ajax
-        $.get( "ajax/image/page", { "imageId" : globalImageType, "pageId" : $(aEl).attr('data-pageid'), "width" : 150 } )
-        .always(function( data ) {
+        // Load page images as binary data, which allows the browser to cache them
+        $(imgEl).one('load', function() {
             // Remove broken image icon first
-            var nextEl = $(imgEl).next();
-            if( nextEl.length !== 0 ) {
-                $(nextEl).remove();
-            }
+            $(imgEl).next('i[data-info="broken-image"]').remove();
         })
-        .done(function( data ) {
-            $(imgEl).attr('src', "data:image/jpeg;base64, " + data);
-        })
-        .fail(function( data ) {
+        .one('error', function() {
+            $(imgEl).next('i[data-info="broken-image"]').remove();
             $(imgEl).after('<i class="material-icons image-list-broken-image" data-info="broken-image">broken_image</i>');
-        });
+        })
+        .attr('src', "ajax/image/page/raw?" + $.param({ "imageId" : globalImageType, "pageId" : $(aEl).attr('data-pageid'), "width" : 150 }));
     });
 }
 
@@ -12,7 +12,7 @@
 
 var globalInProgress = false;
 var globalProgressInterval = null;
-var globalConsoleStream = { "out" : "", "err" : "" };
+var globalConsoleStream = { "out" : { "bufferId" : null, "offset" : 0 }, "err" : { "bufferId" : null, "offset" : 0 } };
 
 var globalController = "";
 var globalCollapsibleOpenStandard = [];
@@ -57,17 +57,22 @@ $(document).ready(function() {
 });
 
 // Function to handle process console
+// Only the lines after the last received offset are fetched and appended
 function updateProcessConsole(streamType, tabId) {
-    $.get( "ajax/" + globalController + "/console", { "streamType" : streamType } )
+    var stream = globalConsoleStream[streamType];
+    $.get( "ajax/" + globalController + "/consoleSince", { "streamType" : streamType, "offset" : stream.offset } )
     .done(function( data ) {
-        if( data === '' ) return;
+        if( !data ) return;
 
-        // Prevents duplicate output due to complete console output storage
-        if( data === globalConsoleStream[streamType])
-            return;
+        // Start over if the console of the process was replaced
+        if( data.bufferId !== stream.bufferId ) {
+            $('#' + tabId + ' pre').empty();
+            stream.bufferId = data.bufferId;
+        }
+        stream.offset = data.end;
+        if( data.content === '' ) return;
 
-        globalConsoleStream[streamType] = data;
-        $('#' + tabId + ' pre').html(data);
+        $('#' + tabId + ' pre').append(document.createTextNode(data.content));
 
         if( !$('#' + tabId + ' pre').is(":visible") )
             $('#' + tabId + ' pre').show();
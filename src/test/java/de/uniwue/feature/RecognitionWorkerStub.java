@@ -0,0 +1,222 @@
+package de.uniwue.feature;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Stub worker that implements the protocol of the RecognitionWorker without recognizing anything
+ * Simulates the loading of models and keeps them in a cache with LRU eviction. The page files are not modified.
+ * Used to test the protocol and the caching without calamari. The stub is only compiled with the test sources:
+ *     mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/stub.classpath
+ *     export OCR4ALL_RECOGNITION_WORKER="java -cp target/test-classes:$(cat target/stub.classpath) \
+ *         de.uniwue.feature.RecognitionWorkerStub --max-models 2"
+ * Recognitions of the application then use the stub (the console shows loaded, evicted and cached models).
+ * The protocol can also be checked by hand by writing requests to stdin, e.g.:
+ *     {"id": 1, "type": "predict", "checkpoints": ["/path/to/model.ckpt.json"], "files": ["0001.png"]}
+ *     {"id": 2, "type": "ping"}
+ *
+ * Arguments:
+ *     --max-models Number of models that are kept loaded (default: 2)
+ *     --load-delay Time in milliseconds that the loading of a model takes (default: 500)
+ */
+public class RecognitionWorkerStub {
+    /**
+     * Object to read and write the messages of the protocol
+     */
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * Stdout of the worker (reserved for the protocol)
+     */
+    private final PrintWriter out = new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), true);
+
+    /**
+     * Loaded models in order of their last usage (checkpoint path : modification time of the checkpoint)
+     */
+    private final LinkedHashMap<String, Long> models = new LinkedHashMap<String, Long>(16, 0.75f, true);
+
+    /**
+     * Number of models that are kept loaded
+     */
+    private final int maxModels;
+
+    /**
+     * Time in milliseconds that the loading of a model takes
+     */
+    private final long loadDelay;
+
+    /**
+     * Constructor
+     *
+     * @param maxModels Number of models that are kept loaded
+     * @param loadDelay Time in milliseconds that the loading of a model takes
+     */
+    public RecognitionWorkerStub(int maxModels, long loadDelay) {
+        this.maxModels = Math.max(1, maxModels);
+        this.loadDelay = Math.max(0, loadDelay);
+    }
+
+    /**
+     * Starts the stub worker
+     *
+     * @param args Command line arguments
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        int maxModels = 2;
+        long loadDelay = 500;
+        for (int i = 0; i + 1 < args.length; i++) {
+            if (args[i].equals("--max-models"))
+                maxModels = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--load-delay"))
+                loadDelay = Long.parseLong(args[++i]);
+        }
+        new RecognitionWorkerStub(maxModels, loadDelay).run();
+    }
+
+    /**
+     * Handles requests until the end of stdin or a shutdown request
+     *
+     * @throws IOException
+     */
+    public void run() throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.trim().isEmpty())
+                continue;
+
+            JsonNode request;
+            try {
+                request = mapper.readTree(line);
+            } catch (IOException e) {
+                send(message(0, "error").put("message", "Invalid request: " + e.getMessage()));
+                continue;
+            }
+
+            long id = request.path("id").asLong();
+            switch (request.path("type").asText()) {
+                case "predict":
+                    predict(id, request);
+                    break;
+                case "ping":
+                    ObjectNode pong = message(id, "pong");
+                    addModels(pong.putArray("models"));
+                    send(pong);
+                    break;
+                case "shutdown":
+                    return;
+                default:
+                    send(message(id, "error").put("message", "Unknown request type: " + request.path("type").asText()));
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Handles a predict request
+     *
+     * @param id Identifier of the request
+     * @param request Predict request
+     */
+    private void predict(long id, JsonNode request) {
+        // Models of the current ensemble are never evicted by the request itself
+        Set<String> checkpoints = new HashSet<String>();
+        ObjectNode done = message(id, "done");
+        ArrayNode loaded = done.putArray("loaded");
+        for (JsonNode checkpointNode : request.path("checkpoints")) {
+            String checkpoint = checkpointNode.asText();
+            checkpoints.add(checkpoint);
+
+            File checkpointFile = new File(checkpoint);
+            if (!checkpointFile.exists()) {
+                send(message(id, "error").put("message", "Model does not exist: " + checkpoint));
+                return;
+            }
+
+            // Reload models whose checkpoint was replaced (e.g. by a training)
+            Long modified = models.get(checkpoint);
+            if (modified != null && modified == checkpointFile.lastModified())
+                continue;
+
+            try {
+                Thread.sleep(loadDelay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            models.put(checkpoint, checkpointFile.lastModified());
+            loaded.add(checkpoint);
+            send(message(id, "log").put("message", "Loaded model " + checkpoint));
+        }
+
+        Iterator<Map.Entry<String, Long>> iterator = models.entrySet().iterator();
+        while (models.size() > maxModels && iterator.hasNext()) {
+            String checkpoint = iterator.next().getKey();
+            if (checkpoints.contains(checkpoint))
+                continue;
+
+            iterator.remove();
+            send(message(id, "log").put("message", "Evicted model " + checkpoint));
+        }
+
+        int total = request.path("files").size();
+        for (int processed = 1; processed <= total; processed++)
+            send(message(id, "progress").put("processed", processed).put("total", total));
+
+        addModels(done.putArray("models"));
+        send(done);
+    }
+
+    /**
+     * Creates a message of the protocol
+     *
+     * @param id Identifier of the request
+     * @param type Type of the message
+     * @return Message object
+     */
+    private ObjectNode message(long id, String type) {
+        ObjectNode message = mapper.createObjectNode();
+        message.put("id", id);
+        message.put("type", type);
+        return message;
+    }
+
+    /**
+     * Adds the loaded models (least recently used first) to an array
+     *
+     * @param modelList Array of the message
+     */
+    private void addModels(ArrayNode modelList) {
+        for (String checkpoint : models.keySet())
+            modelList.add(checkpoint);
+    }
+
+    /**
+     * Writes a message to stdout
+     *
+     * @param message Message object
+     */
+    private void send(ObjectNode message) {
+        try {
+            out.println(mapper.writeValueAsString(message));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
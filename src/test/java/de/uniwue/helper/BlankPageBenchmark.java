@@ -0,0 +1,179 @@
+package de.uniwue.helper;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import javax.imageio.ImageIO;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * Benchmark of the blank page detection of the PDF conversion
+ * Compares the former implementation (PNG round trip to a Mat, grayscale conversion and threshold) with the
+ * statistic on the raster of the rendered page (OverviewHelper.isBlank). Both paths are warmed up first and
+ * then measured in alternating order, so that neither profits from caches or JIT compilation of the other.
+ * The benchmark is only compiled with the test sources:
+ *     mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/benchmark.classpath
+ *     java -cp target/classes:target/test-classes:$(cat target/benchmark.classpath) \
+ *         de.uniwue.helper.BlankPageBenchmark [image file] [rounds]
+ * Without an image file a synthetic A4 page at 300 DPI is used.
+ */
+public class BlankPageBenchmark {
+    /**
+     * Number of runs of every path before the measurement
+     */
+    private static final int WARMUP_RUNS = 5;
+
+    /**
+     * Constructor
+     */
+    private BlankPageBenchmark() { }
+
+    /**
+     * Runs the benchmark
+     *
+     * @param args Optional image file and number of measured rounds
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        nu.pattern.OpenCV.loadLocally();
+
+        BufferedImage page = (args.length > 0) ? toRenderedPage(ImageIO.read(new File(args[0]))) : createSyntheticPage();
+        int rounds = (args.length > 1) ? Integer.parseInt(args[1]) : 20;
+
+        boolean formerBlank = runFormer(page);
+        boolean rasterBlank = OverviewHelper.isBlank(page, 0.99, 0.99);
+        if (formerBlank != rasterBlank)
+            throw new IllegalStateException("Results differ: former " + formerBlank + ", raster " + rasterBlank);
+
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            runFormer(page);
+            OverviewHelper.isBlank(page, 0.99, 0.99);
+        }
+
+        double[] former = new double[rounds];
+        double[] raster = new double[rounds];
+        for (int round = 0; round < rounds; round++) {
+            // Alternate the order of the paths in every round
+            if (round % 2 == 0) {
+                former[round] = measureFormer(page);
+                raster[round] = measureRaster(page);
+            } else {
+                raster[round] = measureRaster(page);
+                former[round] = measureFormer(page);
+            }
+        }
+
+        System.out.println("Page: " + page.getWidth() + "x" + page.getHeight() + ", blank: " + rasterBlank
+            + ", rounds: " + rounds);
+        print("PNG round trip and Mat threshold", former);
+        print("Raster statistic", raster);
+    }
+
+    /**
+     * Measures the former implementation once
+     *
+     * @param page Rendered page
+     * @return Time in milliseconds
+     * @throws IOException
+     */
+    private static double measureFormer(BufferedImage page) throws IOException {
+        long start = System.nanoTime();
+        runFormer(page);
+        return (System.nanoTime() - start) / 1e6;
+    }
+
+    /**
+     * Measures the raster statistic once
+     *
+     * @param page Rendered page
+     * @return Time in milliseconds
+     */
+    private static double measureRaster(BufferedImage page) {
+        long start = System.nanoTime();
+        OverviewHelper.isBlank(page, 0.99, 0.99);
+        return (System.nanoTime() - start) / 1e6;
+    }
+
+    /**
+     * Former blank page detection: encodes the page as PNG, decodes it to a Mat and counts the thresholded pixels
+     *
+     * @param page Rendered page
+     * @return True if the page is blank
+     * @throws IOException
+     */
+    private static boolean runFormer(BufferedImage page) throws IOException {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        ImageIO.write(page, "png", byteArrayOutputStream);
+        final MatOfByte bytes = new MatOfByte(byteArrayOutputStream.toByteArray());
+        final Mat img = Imgcodecs.imdecode(bytes, Imgcodecs.CV_LOAD_IMAGE_UNCHANGED);
+        bytes.release();
+
+        final Mat gray = new Mat(img.size(), CvType.CV_8UC1);
+        Imgproc.cvtColor(img, gray, Imgproc.COLOR_BGR2GRAY);
+        final Mat blankMat = new Mat(img.size(), CvType.CV_8UC1);
+        Imgproc.threshold(gray, blankMat, 255 * 0.99, 1, Imgproc.THRESH_BINARY);
+        gray.release();
+
+        boolean blank = (img.size().height * img.size().width * 0.99) <= Core.countNonZero(blankMat);
+        blankMat.release();
+        img.release();
+        return blank;
+    }
+
+    /**
+     * Prints the median and the range of the measured times
+     *
+     * @param name Name of the path
+     * @param times Measured times in milliseconds
+     */
+    private static void print(String name, double[] times) {
+        double[] sorted = times.clone();
+        Arrays.sort(sorted);
+        System.out.println(String.format("%-34s median %8.2f ms, min %8.2f ms, max %8.2f ms",
+            name, sorted[sorted.length / 2], sorted[0], sorted[sorted.length - 1]));
+    }
+
+    /**
+     * Draws an image with the image type of rendered PDF pages
+     *
+     * @param image Image to draw
+     * @return Page with the type TYPE_INT_RGB
+     */
+    private static BufferedImage toRenderedPage(BufferedImage image) {
+        BufferedImage page = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = page.createGraphics();
+        graphics.drawImage(image, 0, 0, null);
+        graphics.dispose();
+        return page;
+    }
+
+    /**
+     * Creates an A4 page at 300 DPI with some lines of text
+     *
+     * @return Synthetic page
+     */
+    private static BufferedImage createSyntheticPage() {
+        BufferedImage page = new BufferedImage(2480, 3508, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = page.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, page.getWidth(), page.getHeight());
+        graphics.setColor(Color.BLACK);
+        graphics.setFont(new Font(Font.SERIF, Font.PLAIN, 40));
+        for (int y = 300; y < page.getHeight() - 300; y += 60)
+            graphics.drawString("Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod", 250, y);
+        graphics.dispose();
+        return page;
+    }
+}